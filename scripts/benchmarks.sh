@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+#
+# Runs the JMH benchmarks of the services' hot paths and keeps their results as JSON, one directory
+# per commit, so that two commits can be compared.
+#
+#   scripts/benchmarks.sh run [benchmark regex]   results in benchmark-results/<commit>/threads-<n>.json
+#   scripts/benchmarks.sh compare <base commit> <commit>
+#
+# run measures every benchmark once per thread count in BENCHMARK_THREADS (default "1 4"). A commit
+# with uncommitted changes is recorded as <commit>-dirty. Extra JMH options can be passed in JMH_OPTS,
+# e.g. JMH_OPTS="-p keys=zipf". Iterations, forks and random seeds are fixed in the benchmarks.
+# compare prints the score of every benchmark, parameter set and thread count in both runs, and the
+# change in percent, tab separated; it needs jq.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RESULTS_DIR=benchmark-results
+DEFAULT_BENCHMARKS='com\.example\.(service\.(Document|Permission|User)ServiceBenchmark|client\.SingleLineLoggerBenchmark|dto\.JsonRoundTripBenchmark)'
+
+commit_id() {
+    local commit
+    commit=$(git rev-parse --short HEAD)
+    if [[ -n $(git status --porcelain --untracked-files=no) ]]; then
+        commit="$commit-dirty"
+    fi
+    echo "$commit"
+}
+
+run() {
+    local benchmarks=${1:-$DEFAULT_BENCHMARKS}
+    local out
+    out="$RESULTS_DIR/$(commit_id)"
+    mkdir -p "$out"
+    mvn -B -q -Pbenchmarks test-compile
+    for threads in ${BENCHMARK_THREADS:-1 4}; do
+        echo "Running $benchmarks with $threads thread(s)"
+        mvn -B -q -Pbenchmarks exec:exec \
+            -Djmh.args="'$benchmarks' -t $threads -rf json -rff $out/threads-$threads.json ${JMH_OPTS:-}"
+    done
+    java -version 2>&1 | head -1 > "$out/jvm.txt"
+    echo "Results in $out"
+}
+
+compare() {
+    local base=$RESULTS_DIR/${1:?base commit}
+    local head=$RESULTS_DIR/${2:?commit}
+    # One line per benchmark, parameter set and thread count, from all result files of both runs
+    jq -r -n --slurpfile base <(jq -s 'add' "$base"/threads-*.json) --slurpfile head <(jq -s 'add' "$head"/threads-*.json) '
+        def key: "\(.benchmark | sub("^com\\.example\\."; ""))\(.params // {} | to_entries | map(" \(.key)=\(.value)") | join("")) t=\(.threads)";
+        def scores($runs): $runs[0] | map({key: key, value: .primaryMetric}) | from_entries;
+        scores($base) as $b | scores($head) as $h
+        | ["benchmark", "unit", "base", "head", "change"],
+          ($h | keys[] as $k | $h[$k] as $m | $b[$k] as $o
+           | [$k, $m.scoreUnit, ($o.score // "-" | tostring | .[0:10]), ($m.score | tostring | .[0:10]),
+              (if $o then "\((($m.score - $o.score) / $o.score * 1000 | round) / 10)%" else "new" end)])
+        | @tsv'
+}
+
+case "${1:-}" in
+    run) shift; run "$@" ;;
+    compare) shift; compare "$@" ;;
+    *) sed -n '3,13p' "$0" | sed 's/^# \{0,1\}//'; exit 1 ;;
+esac
@@ -0,0 +1,84 @@
+package com.example.client;
+
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the single-line Feign call logs at each {@link Logger.Level}, for a JSON request and
+ * response of about 1KB with the usual headers. Every response body is sampled, so FULL includes
+ * reading and rebuffering the body.
+ *
+ * Log events are built as in production but discarded by the benchmark logback configuration, so
+ * the results exclude the cost of writing them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SingleLineLoggerBenchmark {
+    private static final String CONFIG_KEY = "DocumentServiceClient#getDocumentsByUserId(UUID)";
+    private static final Map<String, Collection<String>> HEADERS = Map.of(
+            "Content-Type", List.of("application/json"),
+            "Accept", List.of("application/json"),
+            "X-Request-ID", List.of("6b1f0c9e-7c3a-4a57-9d3e-2f6a0f4e8b21"),
+            "traceparent", List.of("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+
+    @Param({"NONE", "BASIC", "HEADERS", "FULL"})
+    public Logger.Level level;
+
+    private SingleLineLogger logger;
+    private Request request;
+    private byte[] responseBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        logger = new SingleLineLogger("document-service",
+                new FeignBodyLoggingProperties(DataSize.ofKilobytes(1), 1.0, 1.0, Map.of()));
+        byte[] requestBody = "{\"id\":\"0b7d4f4e-5a5f-4a35-8f1e-3c0f6a2b9d17\",\"content\":\"%s\"}"
+                .formatted("x".repeat(960)).getBytes(StandardCharsets.UTF_8);
+        request = Request.create(Request.HttpMethod.POST, "http://document-service:8080/api/documents/user/0b7d4f4e",
+                HEADERS, requestBody, StandardCharsets.UTF_8, null);
+        responseBody = ("[" + "{\"id\":\"0b7d4f4e-5a5f-4a35-8f1e-3c0f6a2b9d17\",\"content\":\"document\"},".repeat(15)
+                + "{\"id\":\"0b7d4f4e-5a5f-4a35-8f1e-3c0f6a2b9d17\",\"content\":\"document\"}]").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Request logRequest() {
+        logger.logRequest(CONFIG_KEY, level, request);
+        return request;
+    }
+
+    @Benchmark
+    public Response logAndRebufferResponse() throws IOException {
+        Response response = Response.builder()
+                .status(200)
+                .request(request)
+                .headers(HEADERS)
+                .body(responseBody)
+                .build();
+        return logger.logAndRebufferResponse(CONFIG_KEY, level, response, 12);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.controller;
+
+import com.example.Main;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document reads on the servlet stack ({@link DocumentController}) and on the reactive stack
+ * ({@link ReactiveDocumentController}) while user-service and permission-service are slow.
+ *
+ * Each trial starts document-service in the given stack, with both downstream services replaced
+ * by a stub that answers after downstreamLatencyMs without holding a thread. One operation sends
+ * concurrency document reads at once, each for a new user so the permission cache never answers,
+ * and waits for all of them. The executor, bulkhead and connection pool limits are raised to the
+ * concurrency so that neither stack rejects calls; Tomcat keeps its default of 200 threads.
+ *
+ * Failed reads are reported as the "failed" counter, and the peak number of live threads of the
+ * JVM (the stub and the load generator use a few) is printed at the end of each trial.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="DocumentReadPath -p concurrency=1000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dsun.net.httpserver.nodelay=true"})
+@State(Scope.Benchmark)
+public class DocumentReadPathBenchmark {
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    @Param({"100", "1000"})
+    public int concurrency;
+
+    @Param({"50"})
+    public int downstreamLatencyMs;
+
+    private HttpServer downstream;
+    private ScheduledExecutorService responder;
+    private ConfigurableApplicationContext application;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private String documentsUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        responder = Executors.newSingleThreadScheduledExecutor();
+        downstream = HttpServer.create(new InetSocketAddress("localhost", 0), concurrency);
+        downstream.createContext("/api/users/", exchange -> respondLater(exchange,
+                "{\"id\":\"" + lastSegment(exchange.getRequestURI().getPath()) + "\",\"username\":\"reader\"}"));
+        downstream.createContext("/api/permissions/user/", exchange -> respondLater(exchange, "true"));
+        downstream.start();
+        String downstreamUrl = "http://localhost:" + downstream.getAddress().getPort();
+
+        int limit = Math.max(concurrency, 16);
+        application = new SpringApplicationBuilder(Main.class)
+                .profiles("document-service")
+                .properties(
+                        "spring.main.web-application-type=" + stack,
+                        "server.port=0",
+                        "feign.client.user-service.url=" + downstreamUrl,
+                        "feign.client.permission-service.url=" + downstreamUrl,
+                        "document-service.storage.engine=memory",
+                        "document-service.read.executor.core-size=" + 2 * limit,
+                        "document-service.read.executor.max-size=" + 2 * limit,
+                        "document-service.read.executor.queue-capacity=" + 2 * limit,
+                        "resilience4j.bulkhead.configs.default.max-concurrent-calls=" + limit,
+                        "feign.client.transport.max-connections=" + limit,
+                        "feign.client.transport.max-connections-per-route=" + limit,
+                        "logging.level.root=WARN",
+                        "logging.level.com.example=WARN")
+                .run();
+        String port = application.getEnvironment().getProperty("local.server.port");
+        documentsUrl = "http://localhost:" + port + "/api/documents/user/";
+
+        clientExecutor = Executors.newFixedThreadPool(4);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.printf("%n%s stack: peak live threads %d%n", stack, threads.getPeakThreadCount());
+        application.close();
+        downstream.stop(0);
+        responder.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void readConcurrently(Outcomes outcomes) {
+        List<CompletableFuture<HttpResponse<Void>>> reads = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            reads.add(client.sendAsync(HttpRequest.newBuilder(URI.create(documentsUrl + UUID.randomUUID())).build(),
+                    HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> read : reads) {
+            try {
+                if (read.join().statusCode() != 200) {
+                    outcomes.failed++;
+                }
+            } catch (RuntimeException e) {
+                outcomes.failed++;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long failed;
+    }
+
+    private void respondLater(HttpExchange exchange, String json) {
+        responder.schedule(() -> {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = exchange.getResponseBody()) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                out.write(body);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        }, downstreamLatencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static String lastSegment(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
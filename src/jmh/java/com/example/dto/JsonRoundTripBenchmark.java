@@ -0,0 +1,69 @@
+package com.example.dto;
+
+import com.example.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization followed by deserialization of the types sent between the services, with an
+ * ObjectMapper configured like the one Spring's message converters use. Readers and writers are
+ * created once, as the converters cache them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class JsonRoundTripBenchmark {
+    private final User user = new User(UUID.fromString("3f2c8a4e-1b7d-4c6e-9a0f-5d8e2b1c7a93"),
+            "jdoe", "John", "Doe", "john.doe@example.com");
+    private final DocumentId documentId = DocumentId.of(UUID.fromString("0b7d4f4e-5a5f-4a35-8f1e-3c0f6a2b9d17"));
+    private final Document document = new Document(documentId, "Quarterly report, second draft");
+
+    private ObjectWriter writer;
+    private ObjectReader userReader;
+    private ObjectReader documentReader;
+    private ObjectReader documentIdReader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        userReader = objectMapper.readerFor(User.class);
+        documentReader = objectMapper.readerFor(Document.class);
+        documentIdReader = objectMapper.readerFor(DocumentId.class);
+    }
+
+    @Benchmark
+    public User user() throws IOException {
+        return userReader.readValue(writer.writeValueAsBytes(user));
+    }
+
+    @Benchmark
+    public Document document() throws IOException {
+        return documentReader.readValue(writer.writeValueAsBytes(document));
+    }
+
+    @Benchmark
+    public DocumentId documentId() throws IOException {
+        return documentIdReader.readValue(writer.writeValueAsBytes(documentId));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.dto;
+
+import com.example.config.WireFormatConfig;
+import com.example.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the bodies sent between the services, as JSON and as Smile (see
+ * com.example.client.WireFormat), with ObjectMappers built like those of the message converters
+ * (see WireFormatConfig).
+ *
+ * - user: one user, as returned by user-service for a lookup
+ * - documents: a list of a user's documents, as returned by document-service
+ * - permissions: the permissions of several users keyed by user ID, as returned by a batch lookup
+ *
+ * The size of each body in each format is printed at the start of the trial.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="WireFormat -p size=10,100"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile"})
+    public String format;
+
+    /**
+     * Documents in the list, and users in the permissions map.
+     */
+    @Param({"100"})
+    public int size;
+
+    private User user;
+    private List<Document> documents;
+    private Map<UUID, List<String>> permissions;
+
+    private ObjectWriter writer;
+    private ObjectReader userReader;
+    private ObjectReader documentsReader;
+    private ObjectReader permissionsReader;
+
+    private byte[] userBody;
+    private byte[] documentsBody;
+    private byte[] permissionsBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        user = new User(UUID.randomUUID(), "jdoe", "John", "Doe", "john.doe@example.com");
+        documents = new ArrayList<>(size);
+        permissions = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            documents.add(new Document(DocumentId.of(UUID.randomUUID()), "Quarterly report, draft " + i));
+            permissions.put(UUID.randomUUID(), List.of("document-read", "document-write"));
+        }
+
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> builder.build();
+            case "smile" -> WireFormatConfig.smileObjectMapper(builder);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        writer = objectMapper.writer();
+        userReader = objectMapper.readerFor(User.class);
+        documentsReader = objectMapper.readerFor(new TypeReference<List<Document>>() {
+        });
+        permissionsReader = objectMapper.readerFor(new TypeReference<Map<UUID, List<String>>>() {
+        });
+
+        userBody = writer.writeValueAsBytes(user);
+        documentsBody = writer.writeValueAsBytes(documents);
+        permissionsBody = writer.writeValueAsBytes(permissions);
+        System.out.printf("%n%s bodies: user %d bytes, %d documents %d bytes, permissions of %d users %d bytes%n",
+                format, userBody.length, size, documentsBody.length, size, permissionsBody.length);
+    }
+
+    @Benchmark
+    public byte[] encodeUser() throws IOException {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User decodeUser() throws IOException {
+        return userReader.readValue(userBody);
+    }
+
+    @Benchmark
+    public byte[] encodeDocuments() throws IOException {
+        return writer.writeValueAsBytes(documents);
+    }
+
+    @Benchmark
+    public List<Document> decodeDocuments() throws IOException {
+        return documentsReader.readValue(documentsBody);
+    }
+
+    @Benchmark
+    public byte[] encodePermissions() throws IOException {
+        return writer.writeValueAsBytes(permissions);
+    }
+
+    @Benchmark
+    public Map<UUID, List<String>> decodePermissions() throws IOException {
+        return permissionsReader.readValue(permissionsBody);
+    }
+}
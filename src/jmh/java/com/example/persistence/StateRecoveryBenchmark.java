@@ -0,0 +1,134 @@
+package com.example.persistence;
+
+import com.example.dto.PermissionGrant;
+import com.example.model.User;
+import com.example.service.PermissionGrantOutbox;
+import com.example.service.PermissionRegistry;
+import com.example.service.PermissionService;
+import com.example.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup of user-service and permission-service with persisted state: the time to construct the
+ * service from a directory holding records users or grants, either as a snapshot (as left by a clean
+ * shutdown) or as a write-ahead log only (as left by a crash before the first snapshot).
+ *
+ * Each trial first writes the state through the service itself: users are created from 64 threads so
+ * that the group commit batches their records, grants are applied in batches of 1000.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="StateRecovery -p records=1000000,4000000"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StateRecoveryBenchmark {
+    private static final Duration NO_SNAPSHOTS = Duration.ofDays(1);
+
+    @Param({"users", "permissions"})
+    public String service;
+
+    @Param({"snapshot", "log"})
+    public String source;
+
+    @Param({"1000000"})
+    public int records;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("state-recovery-");
+        try (StatePersistence persistence = new StatePersistence(directory, NO_SNAPSHOTS, source.equals("snapshot"))) {
+            if (service.equals("users")) {
+                createUsers(new UserService(new PermissionGrantOutbox(), persistence, new SimpleMeterRegistry()));
+            } else {
+                grantPermissions(new PermissionService(new PermissionRegistry(), event -> {
+                }, persistence, new SimpleMeterRegistry()));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object recover() throws IOException {
+        // Nothing changes, so closing writes no snapshot and leaves the directory as it was
+        try (StatePersistence persistence = new StatePersistence(directory, NO_SNAPSHOTS, false)) {
+            return service.equals("users")
+                    ? new UserService(new PermissionGrantOutbox(), persistence, new SimpleMeterRegistry())
+                    : new PermissionService(new PermissionRegistry(), event -> {
+                    }, persistence, new SimpleMeterRegistry());
+        }
+    }
+
+    private void createUsers(UserService userService) throws Exception {
+        // createUser prints every user it creates; keep that out of the benchmark output
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutorService writers = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> created = new ArrayList<>(records);
+            for (int i = 0; i < records; i++) {
+                String username = "user" + i;
+                created.add(writers.submit(() -> userService.createUser(
+                        new User(null, username, "First", "Last", username + "@example.com"))));
+            }
+            for (Future<?> user : created) {
+                user.get();
+            }
+        } finally {
+            writers.shutdown();
+            System.setOut(out);
+        }
+    }
+
+    private void grantPermissions(PermissionService permissionService) {
+        List<PermissionGrant> batch = new ArrayList<>(1000);
+        for (int i = 0; i < records; i++) {
+            batch.add(new PermissionGrant(UUID.randomUUID(), UUID.randomUUID(), "document-read"));
+            if (batch.size() == 1000 || i == records - 1) {
+                permissionService.addPermissions(batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.service;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import com.example.storage.InMemoryDocumentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DocumentService#addDocument} and {@link DocumentService#getDocumentsByUserId} over the
+ * in-memory store, with users picked uniformly or with a Zipf skew where a few users get most of
+ * the calls, as they would in production.
+ *
+ * The number of threads is set with JMH's -t option (scripts/benchmarks.sh runs each thread count of
+ * BENCHMARK_THREADS). The readWrite group runs three readers next to one writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DocumentServiceBenchmark {
+    private static final Document DOCUMENT = new Document(DocumentId.of(UUID.randomUUID()), "Benchmark document");
+    private static final int DOCUMENTS_PER_USER = 16;
+    private static final int KEY_SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"uniform", "zipf"})
+    public String keys;
+
+    @Param({"10000"})
+    public int users;
+
+    private UUID[] userIds;
+    private UUID[] keySequence;
+    private DocumentService documentService;
+
+    @Setup(Level.Trial)
+    public void setUpKeys() {
+        Random random = new Random(42);
+        userIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        keySequence = new UUID[KEY_SEQUENCE_LENGTH];
+        double[] cumulative = "zipf".equals(keys) ? zipfCumulative(users) : null;
+        for (int i = 0; i < KEY_SEQUENCE_LENGTH; i++) {
+            keySequence[i] = userIds[cumulative == null ? random.nextInt(users) : rank(cumulative, random.nextDouble())];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpStore() {
+        // Start every iteration with the same documents so appends do not carry over between iterations
+        documentService = new DocumentService(new InMemoryDocumentStore(), new SimpleMeterRegistry());
+        for (UUID userId : userIds) {
+            for (int i = 0; i < DOCUMENTS_PER_USER; i++) {
+                documentService.addDocument(userId, DOCUMENT);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addDocument(Cursor cursor) {
+        documentService.addDocument(cursor.next(keySequence), DOCUMENT);
+    }
+
+    @Benchmark
+    public List<Document> getDocumentsByUserId(Cursor cursor) {
+        return documentService.getDocumentsByUserId(cursor.next(keySequence));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public List<Document> reader(Cursor cursor) {
+        return documentService.getDocumentsByUserId(cursor.next(keySequence));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer(Cursor cursor) {
+        documentService.addDocument(cursor.next(keySequence), DOCUMENT);
+    }
+
+    /**
+     * Position of one thread in the key sequence; threads start at different positions.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(KEY_SEQUENCE_LENGTH);
+
+        UUID next(UUID[] keySequence) {
+            position = (position + 1) & (KEY_SEQUENCE_LENGTH - 1);
+            return keySequence[position];
+        }
+    }
+
+    /**
+     * @return Cumulative probabilities of the ranks 0..n-1 with a Zipf distribution of exponent 1
+     */
+    private static double[] zipfCumulative(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int rank(double[] cumulative, double probability) {
+        int index = Arrays.binarySearch(cumulative, probability);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
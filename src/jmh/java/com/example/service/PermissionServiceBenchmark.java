@@ -0,0 +1,92 @@
+package com.example.service;
+
+import com.example.persistence.StatePersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks of permission-service: {@link PermissionService#getPermissionsByUserId} followed
+ * by a contains check on the returned names, as callers of the list endpoint do, next to the
+ * {@link PermissionService#hasPermission} check that answers the same question directly.
+ *
+ * Every user holds grantsPerUser of the permissions; half of the checks ask for one they hold.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PermissionServiceBenchmark {
+    private static final int CHECKS = 1 << 12;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"4", "32"})
+    public int grantsPerUser;
+
+    private PermissionService permissionService;
+    private UUID[] checkedUsers;
+    private String[] checkedPermissions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        permissionService = new PermissionService(new PermissionRegistry(), event -> {
+        }, StatePersistence.inMemory(), new SimpleMeterRegistry());
+        Random random = new Random(42);
+        UUID[] userIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = new UUID(random.nextLong(), random.nextLong());
+            for (int grant = 0; grant < grantsPerUser; grant++) {
+                permissionService.addPermission(userIds[i], "permission-" + grant);
+            }
+        }
+        checkedUsers = new UUID[CHECKS];
+        checkedPermissions = new String[CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            checkedUsers[i] = userIds[random.nextInt(users)];
+            checkedPermissions[i] = "permission-" + random.nextInt(2 * grantsPerUser);
+        }
+    }
+
+    @Benchmark
+    public boolean getPermissionsAndContains(Cursor cursor) {
+        int check = cursor.next();
+        List<String> permissions = permissionService.getPermissionsByUserId(checkedUsers[check]);
+        return permissions.contains(checkedPermissions[check]);
+    }
+
+    @Benchmark
+    public boolean hasPermission(Cursor cursor) {
+        int check = cursor.next();
+        return permissionService.hasPermission(checkedUsers[check], checkedPermissions[check]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(CHECKS);
+
+        int next() {
+            position = (position + 1) & (CHECKS - 1);
+            return position;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.service;
+
+import com.example.model.User;
+import com.example.persistence.StatePersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User lookups of user-service: single lookups by ID (found and unknown) and batch lookups of
+ * batchSize IDs, as made by the batching Feign clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"16"})
+    public int batchSize;
+
+    private UserService userService;
+    private UUID[] knownIds;
+    private UUID[] unknownIds;
+    private List<List<UUID>> batches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The grants of createUser stay in an outbox that nothing delivers
+        userService = new UserService(new PermissionGrantOutbox(), StatePersistence.inMemory(), new SimpleMeterRegistry());
+        UUID[] storedIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            storedIds[i] = userService.createUser(new User(null, "user" + i, "First", "Last", "user" + i + "@example.com")).id();
+        }
+
+        Random random = new Random(42);
+        knownIds = new UUID[LOOKUPS];
+        unknownIds = new UUID[LOOKUPS];
+        batches = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            knownIds[i] = storedIds[random.nextInt(users)];
+            unknownIds[i] = new UUID(random.nextLong(), random.nextLong());
+            List<UUID> batch = new ArrayList<>(batchSize);
+            for (int j = 0; j < batchSize; j++) {
+                batch.add(storedIds[random.nextInt(users)]);
+            }
+            batches.add(batch);
+        }
+    }
+
+    @Benchmark
+    public Optional<User> getUserById(Cursor cursor) {
+        return userService.getUserById(knownIds[cursor.next()]);
+    }
+
+    @Benchmark
+    public Optional<User> getUnknownUserById(Cursor cursor) {
+        return userService.getUserById(unknownIds[cursor.next()]);
+    }
+
+    @Benchmark
+    public Map<UUID, User> getUsersByIds(Cursor cursor) {
+        return userService.getUsersByIds(batches.get(cursor.next()));
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(LOOKUPS);
+
+        int next() {
+            position = (position + 1) & (LOOKUPS - 1);
+            return position;
+        }
+    }
+}
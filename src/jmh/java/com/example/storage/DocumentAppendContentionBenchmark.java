@@ -0,0 +1,131 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of concurrent document appends for a single hot user.
+ *
+ * Compares the {@link InMemoryDocumentStore} (backed by {@link AppendOnlyList}) with the two
+ * usual thread-safe alternatives: a synchronized ArrayList, which readers must copy under the
+ * lock to get a stable snapshot, and a CopyOnWriteArrayList, which copies on every append.
+ *
+ * The number of writers is set with JMH's -t option, e.g.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="DocumentAppendContention.append -t 8"
+ * The appendAndRead group runs three writers next to one reader taking snapshots.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DocumentAppendContentionBenchmark {
+    private static final UUID HOT_USER = UUID.randomUUID();
+    private static final Document DOCUMENT = new Document(DocumentId.of(UUID.randomUUID()), "Hot user document");
+
+    @Param({"append-only", "synchronized-list", "copy-on-write"})
+    public String structure;
+
+    private HotUser hotUser;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Start every iteration empty so list growth does not carry over between iterations
+        hotUser = switch (structure) {
+            case "append-only" -> new StoreHotUser(new InMemoryDocumentStore());
+            case "synchronized-list" -> new SynchronizedListHotUser();
+            case "copy-on-write" -> new CopyOnWriteHotUser();
+            default -> throw new IllegalArgumentException(structure);
+        };
+    }
+
+    @Benchmark
+    public void append() {
+        hotUser.append(DOCUMENT);
+    }
+
+    @Benchmark
+    @Group("appendAndRead")
+    @GroupThreads(3)
+    public void writer() {
+        hotUser.append(DOCUMENT);
+    }
+
+    @Benchmark
+    @Group("appendAndRead")
+    @GroupThreads(1)
+    public int reader() {
+        List<Document> snapshot = hotUser.snapshot();
+        return snapshot.isEmpty() ? 0 : snapshot.get(snapshot.size() - 1).hashCode();
+    }
+
+    private interface HotUser {
+        void append(Document document);
+
+        List<Document> snapshot();
+    }
+
+    private record StoreHotUser(DocumentStore store) implements HotUser {
+        @Override
+        public void append(Document document) {
+            store.append(HOT_USER, document);
+        }
+
+        @Override
+        public List<Document> snapshot() {
+            return store.findByUserId(HOT_USER);
+        }
+    }
+
+    private static final class SynchronizedListHotUser implements HotUser {
+        private final List<Document> documents = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void append(Document document) {
+            documents.add(document);
+        }
+
+        @Override
+        public List<Document> snapshot() {
+            synchronized (documents) {
+                return new ArrayList<>(documents);
+            }
+        }
+    }
+
+    private static final class CopyOnWriteHotUser implements HotUser {
+        private final List<Document> documents = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void append(Document document) {
+            documents.add(document);
+        }
+
+        @Override
+        public List<Document> snapshot() {
+            return documents;
+        }
+    }
+}
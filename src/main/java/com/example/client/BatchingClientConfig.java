@@ -0,0 +1,82 @@
+package com.example.client;
+
+import com.example.model.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Opt-in client-side batching for the single-ID lookups of user-service and permission-service.
+ *
+ * When feign.client.batching.enabled=true, the UserServiceClient and PermissionServiceClient
+ * injected into application code collect concurrent single-ID lookups over a short window
+ * and send them as one request to the batch endpoints. Callers do not need to change.
+ * Services called in-process (see InProcessClientConfig) are not batched.
+ */
+@Configuration
+@ConditionalOnProperty(name = "feign.client.batching.enabled", havingValue = "true")
+public class BatchingClientConfig {
+
+    @Value("${feign.client.batching.window:2ms}")
+    private Duration window;
+
+    @Value("${feign.client.batching.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${feign.client.batching.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    /**
+     * Configure the batcher for user lookups.
+     *
+     * @param userServiceClient The underlying Feign client
+     * @return Batcher that resolves user IDs through the batch endpoint
+     */
+    @Bean
+    @Conditional(InProcessClientConfig.UserServiceRemote.class)
+    public RequestBatcher<UUID, User> userLookupBatcher(
+            @Qualifier(UserServiceClient.FEIGN_QUALIFIER) UserServiceClient userServiceClient) {
+        return new RequestBatcher<>("user-service", userServiceClient::getUsersByIds,
+                window, maxBatchSize, dispatchThreads);
+    }
+
+    /**
+     * Configure the batcher for permission lookups.
+     *
+     * @param permissionServiceClient The underlying Feign client
+     * @return Batcher that resolves user IDs through the batch endpoint
+     */
+    @Bean
+    @Conditional(InProcessClientConfig.PermissionServiceRemote.class)
+    public RequestBatcher<UUID, List<String>> permissionLookupBatcher(
+            @Qualifier(PermissionServiceClient.FEIGN_QUALIFIER) PermissionServiceClient permissionServiceClient) {
+        return new RequestBatcher<>("permission-service", permissionServiceClient::getPermissionsByUserIds,
+                window, maxBatchSize, dispatchThreads);
+    }
+
+    @Bean
+    @Primary
+    @Conditional(InProcessClientConfig.UserServiceRemote.class)
+    public UserServiceClient batchingUserServiceClient(
+            @Qualifier(UserServiceClient.FEIGN_QUALIFIER) UserServiceClient userServiceClient,
+            RequestBatcher<UUID, User> userLookupBatcher) {
+        return new BatchingUserServiceClient(userServiceClient, userLookupBatcher);
+    }
+
+    @Bean
+    @Primary
+    @Conditional(InProcessClientConfig.PermissionServiceRemote.class)
+    public PermissionServiceClient batchingPermissionServiceClient(
+            @Qualifier(PermissionServiceClient.FEIGN_QUALIFIER) PermissionServiceClient permissionServiceClient,
+            RequestBatcher<UUID, List<String>> permissionLookupBatcher) {
+        return new BatchingPermissionServiceClient(permissionServiceClient, permissionLookupBatcher);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.client;
+
+import feign.Request;
+import feign.RetryableException;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+final class BatchingClients {
+
+    private BatchingClients() {
+    }
+
+    /**
+     * Describe the single-key request a batched lookup stands in for, for the failures it reports.
+     */
+    static Request request(String path) {
+        return Request.create(Request.HttpMethod.GET, path, Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    /**
+     * Wait for a batched lookup and rethrow its failure the way a direct Feign call would.
+     *
+     * The wait ends at the caller's {@link RequestDeadline} and when the caller is interrupted,
+     * e.g. cancelled by DocumentController. Both are reported as the RetryableException that Feign
+     * raises when the same happens to a direct call, and an interrupted caller stays interrupted.
+     *
+     * @param future The lookup's future
+     * @param request The single-key request the lookup stands in for
+     */
+    static <V> V join(CompletableFuture<V> future, Request request) {
+        long remaining = RequestDeadline.remainingNanos();
+        try {
+            return remaining == Long.MAX_VALUE ? future.get() : future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw failure(request, new SocketTimeoutException("Deadline passed while waiting for a batched lookup"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure(request, new InterruptedIOException("Interrupted while waiting for a batched lookup"));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Batched lookup failed", e.getCause());
+        }
+    }
+
+    /**
+     * The exception Feign raises for an I/O failure of a request, see FeignException.errorExecuting.
+     */
+    private static RetryableException failure(Request request, Exception cause) {
+        return new RetryableException(-1, String.format("%s executing %s %s", cause.getMessage(),
+                request.httpMethod(), request.url()), request.httpMethod(), cause, (Long) null, request);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.client;
+
+import com.example.dto.PermissionGrant;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * PermissionServiceClient that coalesces concurrent getPermissionsByUserId and hasPermission calls
+ * into batch requests.
+ *
+ * A permission check is answered from the user's permissions fetched in the batch, which is what
+ * permission-service checks itself. All other methods are passed straight to the underlying Feign client.
+ */
+public class BatchingPermissionServiceClient implements PermissionServiceClient {
+    private final PermissionServiceClient delegate;
+    private final RequestBatcher<UUID, List<String>> batcher;
+
+    public BatchingPermissionServiceClient(PermissionServiceClient delegate, RequestBatcher<UUID, List<String>> batcher) {
+        this.delegate = delegate;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public List<String> getPermissionsByUserId(UUID userId) {
+        List<String> permissions = BatchingClients.join(batcher.submit(userId),
+                BatchingClients.request("/api/permissions/user/" + userId));
+        return permissions == null ? List.of() : permissions;
+    }
+
+    @Override
+    public boolean hasPermission(UUID userId, String permission) {
+        return getPermissionsByUserId(userId).contains(permission);
+    }
+
+    @Override
+    public Map<UUID, List<String>> getPermissionsByUserIds(Set<UUID> userIds) {
+        return delegate.getPermissionsByUserIds(userIds);
+    }
+
+    @Override
+    public ResponseEntity<Void> addPermission(UUID userId, String permission) {
+        return delegate.addPermission(userId, permission);
+    }
+
+    @Override
+    public ResponseEntity<Void> addPermissions(List<PermissionGrant> grants) {
+        return delegate.addPermissions(grants);
+    }
+}
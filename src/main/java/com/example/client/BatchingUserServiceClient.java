@@ -0,0 +1,74 @@
+package com.example.client;
+
+import com.example.dto.UserPage;
+import com.example.model.User;
+import feign.FeignException;
+import feign.Request;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * UserServiceClient that coalesces concurrent getUserById calls into batch requests.
+ *
+ * All other methods are passed straight to the underlying Feign client. An ID missing
+ * from the batch response is reported as FeignException.NotFound, the same as a 404 from
+ * the single-user endpoint.
+ */
+public class BatchingUserServiceClient implements UserServiceClient {
+    private final UserServiceClient delegate;
+    private final RequestBatcher<UUID, User> batcher;
+
+    public BatchingUserServiceClient(UserServiceClient delegate, RequestBatcher<UUID, User> batcher) {
+        this.delegate = delegate;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public User getUserById(UUID id) {
+        Request request = BatchingClients.request("/api/users/" + id);
+        User user = BatchingClients.join(batcher.submit(id), request);
+        if (user == null) {
+            throw new FeignException.NotFound("User not found: " + id, request, null, Map.of());
+        }
+        return user;
+    }
+
+    @Override
+    public Map<UUID, User> getUsersByIds(Set<UUID> ids) {
+        return delegate.getUsersByIds(ids);
+    }
+
+    @Override
+    public UserPage getUserPage(String cursor, Integer limit) {
+        return delegate.getUserPage(cursor, limit);
+    }
+
+    @Override
+    public List<User> searchByUsernamePrefix(String prefix, Integer limit) {
+        return delegate.searchByUsernamePrefix(prefix, limit);
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return delegate.getUserByUsername(username);
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return delegate.getUserByEmail(email);
+    }
+
+    @Override
+    public User createUser(User user) {
+        return delegate.createUser(user);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.client;
+
+import feign.RetryableException;
+import feign.Retryer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign retryer with exponential backoff and full jitter, bounded by time and by a retry budget.
+ *
+ * A failed call is retried only while all of these hold:
+ * - fewer than maxAttempts attempts have been made
+ * - the backoff ends before the caller's {@link RequestDeadline}, and before maxElapsed has passed since the first attempt
+ * - the client's {@link RetryBudget} has a token left
+ *
+ * A Retry-After sent by the server replaces the computed backoff.
+ */
+@Slf4j
+public class BudgetedRetryer implements Retryer {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long maxElapsedNanos;
+    private final RetryBudget budget;
+    private final long startNanos;
+    private int attempt = 1;
+
+    public BudgetedRetryer(int maxAttempts, Duration initialBackoff, Duration maxBackoff, Duration maxElapsed,
+                           RetryBudget budget) {
+        this(maxAttempts, initialBackoff.toNanos(), maxBackoff.toNanos(), maxElapsed.toNanos(), budget);
+    }
+
+    private BudgetedRetryer(int maxAttempts, long initialBackoffNanos, long maxBackoffNanos, long maxElapsedNanos,
+                            RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.maxElapsedNanos = maxElapsedNanos;
+        this.budget = budget;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (attempt++ >= maxAttempts) {
+            throw e;
+        }
+        long backoff = backoffNanos(e);
+        long remaining = Math.min(maxElapsedNanos - (System.nanoTime() - startNanos), RequestDeadline.remainingNanos());
+        if (backoff >= remaining) {
+            log.debug("Not retrying {} {}: backoff of {} ms exceeds the remaining {} ms", e.method(),
+                    e.request().url(), TimeUnit.NANOSECONDS.toMillis(backoff), TimeUnit.NANOSECONDS.toMillis(remaining));
+            throw e;
+        }
+        if (!budget.tryAcquire()) {
+            log.debug("Not retrying {} {}: retry budget exhausted", e.method(), e.request().url());
+            throw e;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private long backoffNanos(RetryableException e) {
+        if (e.retryAfter() != null) {
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(e.retryAfter() - System.currentTimeMillis()));
+        }
+        // Full jitter: a random backoff up to the exponential bound spreads out retries of concurrent callers
+        long bound = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 2, 30));
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    @Override
+    public Retryer clone() {
+        // Feign clones the retryer for every call; the budget is shared by all calls of the client
+        return new BudgetedRetryer(maxAttempts, initialBackoffNanos, maxBackoffNanos, maxElapsedNanos, budget);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feign client that caches the responses of {@link ConditionalGet} methods and revalidates them.
+ *
+ * A 200 response with an ETag is read into memory and kept per URL and Accept header. The next call
+ * of the same URL sends the ETag as If-None-Match; on 304 Not Modified the kept response is returned
+ * as a 200 again, so the caller cannot tell the difference, and only the headers crossed the network.
+ * Any other response replaces or drops the kept one.
+ *
+ * Outcomes are counted in feign.client.response.cache, tagged with the client name and
+ * result=not_modified (answered from the cache), modified (cached response replaced) or miss.
+ * Calls of other methods go straight to the delegate.
+ */
+public class ConditionalCachingClient implements Client, Closeable {
+
+    // Per entry, on top of the body
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Client delegate;
+    private final Cache<String, CachedResponse> responses;
+    private final Counter notModified;
+    private final Counter modified;
+    private final Counter miss;
+
+    /**
+     * @param clientName Name of the Feign client, used to tag the metrics
+     * @param delegate Transport that sends the requests
+     * @param maxSizeBytes Largest total size of the kept response bodies
+     * @param meterRegistry Registry of the outcome counters
+     */
+    public ConditionalCachingClient(String clientName, Client delegate, long maxSizeBytes, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .<String, CachedResponse>weigher((key, response) -> ENTRY_OVERHEAD + key.length() + response.body().length)
+                .build();
+        this.notModified = counter(meterRegistry, clientName, "not_modified");
+        this.modified = counter(meterRegistry, clientName, "modified");
+        this.miss = counter(meterRegistry, clientName, "miss");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String clientName, String result) {
+        return Counter.builder("feign.client.response.cache")
+                .description("Calls of conditional GET methods by whether the cached response could be used")
+                .tag("client.name", clientName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!isConditionalGet(request)) {
+            return delegate.execute(request, options);
+        }
+        String key = request.url() + " " + firstHeader(request.headers(), HttpHeaders.ACCEPT);
+        CachedResponse cached = responses.getIfPresent(key);
+        Response response = delegate.execute(cached == null ? request : withIfNoneMatch(request, cached.eTag()), options);
+
+        if (response.status() == 304 && cached != null) {
+            response.close();
+            notModified.increment();
+            return cached.toResponse(request);
+        }
+        (cached == null ? miss : modified).increment();
+        String eTag = firstHeader(response.headers(), HttpHeaders.ETAG);
+        if (response.status() != 200 || eTag == null || response.body() == null) {
+            responses.invalidate(key);
+            return response;
+        }
+        byte[] body;
+        try (InputStream in = response.body().asInputStream()) {
+            body = Util.toByteArray(in);
+        } finally {
+            response.close();
+        }
+        CachedResponse fresh = new CachedResponse(eTag, response.reason(), response.headers(), body);
+        responses.put(key, fresh);
+        return fresh.toResponse(request);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static boolean isConditionalGet(Request request) {
+        if (request.httpMethod() != Request.HttpMethod.GET || request.requestTemplate() == null) {
+            return false;
+        }
+        MethodMetadata metadata = request.requestTemplate().methodMetadata();
+        return metadata != null && metadata.method() != null && metadata.method().isAnnotationPresent(ConditionalGet.class);
+    }
+
+    private static Request withIfNoneMatch(Request request, String eTag) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(HttpHeaders.IF_NONE_MATCH, List.of(eTag));
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(), request.charset(),
+                request.requestTemplate());
+    }
+
+    private static String firstHeader(Map<String, Collection<String>> headers, String name) {
+        Collection<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.iterator().next();
+    }
+
+    private record CachedResponse(String eTag, String reason, Map<String, Collection<String>> headers, byte[] body) {
+
+        Response toResponse(Request request) {
+            return Response.builder()
+                    .status(200)
+                    .reason(reason)
+                    .request(request)
+                    .headers(headers)
+                    .body(body)
+                    .build();
+        }
+    }
+}
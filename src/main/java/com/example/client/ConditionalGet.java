@@ -0,0 +1,18 @@
+package com.example.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Feign GET method whose responses carry an ETag: the last response per URL is kept, and
+ * repeated calls send its ETag in If-None-Match, so an unchanged result costs a 304 without a body.
+ * See {@link ConditionalCachingClient}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+}
@@ -1,12 +1,16 @@
 package com.example.client;
 
 import com.example.dto.Document;
+import com.example.dto.DocumentPage;
+import com.example.dto.PermissionChangedEvent;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,9 +21,29 @@ import java.util.UUID;
         configuration = FeignClientConfig.class
 )
 public interface DocumentServiceClient {
+    /**
+     * Get all documents of a user. Repeated calls revalidate the last response with its ETag, so
+     * polling a list that has not changed transfers no documents.
+     */
+    @ConditionalGet
     @GetMapping("/api/documents/user/{userId}")
     List<Document> getDocumentsByUserId(@PathVariable("userId") UUID userId);
 
+    @GetMapping("/api/documents/user/{userId}/page")
+    DocumentPage getDocumentPage(@PathVariable("userId") UUID userId,
+                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                 @RequestParam(value = "limit", required = false) Integer limit);
+
+    /**
+     * Stream a user's documents as newline-delimited JSON, one document per line.
+     * The caller reads the body incrementally and must close the response.
+     */
+    @GetMapping(value = "/api/documents/user/{userId}/stream", produces = "application/x-ndjson")
+    Response streamDocumentsByUserId(@PathVariable("userId") UUID userId);
+
     @PostMapping("/api/documents/user/{userId}")
     ResponseEntity<Void> addDocument(@PathVariable("userId") UUID userId, @RequestBody Document document);
+
+    @PostMapping("/api/permission-cache/invalidations")
+    ResponseEntity<Void> invalidatePermissions(@RequestBody PermissionChangedEvent event);
 }
@@ -0,0 +1,46 @@
+package com.example.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+/**
+ * Body logging of the Feign {@link SingleLineLogger} at Logger.Level.FULL.
+ *
+ * Bodies are logged for a sample of calls, decided per client and per response status, and only
+ * the first maxBodySize bytes are kept. Clients without an entry in clients use the default rates.
+ *
+ * @param maxBodySize Largest part of a request or response body that is logged
+ * @param errorSampleRate Fraction of responses with status 400 or above whose body is logged
+ * @param successSampleRate Fraction of other responses whose body is logged
+ * @param clients Rates per Feign client name, e.g. document-service
+ */
+@ConfigurationProperties("feign.client.logging")
+public record FeignBodyLoggingProperties(
+        @DefaultValue("1KB") DataSize maxBodySize,
+        @DefaultValue("1.0") double errorSampleRate,
+        @DefaultValue("0.01") double successSampleRate,
+        Map<String, ClientSampling> clients) {
+
+    /**
+     * @param errorSampleRate Overrides the default error sample rate when set
+     * @param successSampleRate Overrides the default success sample rate when set
+     */
+    public record ClientSampling(Double errorSampleRate, Double successSampleRate) {
+    }
+
+    /**
+     * @return Fraction of responses with the given status whose body is logged for the client
+     */
+    public double sampleRate(String clientName, int status) {
+        ClientSampling sampling = clients == null ? null : clients.get(clientName);
+        boolean error = status >= 400;
+        Double rate = sampling == null ? null : error ? sampling.errorSampleRate() : sampling.successSampleRate();
+        if (rate != null) {
+            return rate;
+        }
+        return error ? errorSampleRate : successSampleRate;
+    }
+}
@@ -5,8 +5,12 @@ import feign.Logger;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.Retryer;
+import feign.micrometer.MicrometerObservationCapability;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 import java.util.concurrent.TimeUnit;
 
@@ -15,11 +19,15 @@ import java.util.concurrent.TimeUnit;
  *
  * This configuration sets up common settings for all Feign clients including:
  * - Connection and read timeouts
- * - Retry logic
+ * - Retry logic with a retry budget per client
  * - Logging level
  * - Request ID propagation
+ * - Metrics of every call (FeignClientObservationConvention)
+ * - A pooled HTTP transport per client (FeignTransportConfig)
+ * - The wire format of request and response bodies (WireFormat)
  */
 @Configuration
+@Import(FeignTransportConfig.class)
 public class FeignClientConfig {
 
     /**
@@ -38,15 +46,28 @@ public class FeignClientConfig {
         );
     }
 
+    /**
+     * Configure the budget of extra requests (retries and hedges) of one client.
+     *
+     * @param retryProperties Retry settings
+     * @return Token bucket shared by the client's retries and hedges
+     */
+    @Bean
+    public RetryBudget retryBudget(FeignRetryProperties retryProperties) {
+        return new RetryBudget(retryProperties.budget().capacity(), retryProperties.budget().refillPerSecond());
+    }
+
     /**
      * Configure retry logic for failed requests.
-     * 
-     * @return Retryer with custom retry settings
+     *
+     * @param retryProperties Retry settings
+     * @param retryBudget Budget of the client's retries
+     * @return Retryer with jittered exponential backoff, bounded by the caller's deadline and the retry budget
      */
     @Bean
-    public Retryer retryer() {
-        // Retry up to 3 times with 1 second interval between retries
-        return new Retryer.Default(1000, 1000, 3);
+    public Retryer retryer(FeignRetryProperties retryProperties, RetryBudget retryBudget) {
+        return new BudgetedRetryer(retryProperties.maxAttempts(), retryProperties.initialBackoff(),
+                retryProperties.maxBackoff(), retryProperties.maxElapsed(), retryBudget);
     }
 
     /**
@@ -66,11 +87,49 @@ public class FeignClientConfig {
      * This logger outputs all request/response information in a single log line
      * to work better with structured JSON logging.
      *
+     * @param clientName Name of the Feign client whose context this configuration is part of
+     * @param bodyLoggingProperties Size cap and sample rates of logged bodies
      * @return Custom single-line logger
      */
     @Bean
-    public Logger feignLogger() {
-        return new SingleLineLogger();
+    public Logger feignLogger(@Value("${spring.cloud.openfeign.client.name:default}") String clientName,
+                              FeignBodyLoggingProperties bodyLoggingProperties) {
+        return new SingleLineLogger(clientName, bodyLoggingProperties);
+    }
+
+    /**
+     * Configure metrics of Feign calls: every call is recorded in http.client.requests, with the
+     * number of calls in flight in http.client.requests.active.
+     *
+     * @param observationRegistry Registry that turns observations into metrics
+     * @return Capability that observes every call of the client, tagged by client and method
+     */
+    @Bean
+    public MicrometerObservationCapability micrometerObservationCapability(ObservationRegistry observationRegistry) {
+        return new MicrometerObservationCapability(observationRegistry, new FeignClientObservationConvention());
+    }
+
+    /**
+     * Configure the encoding of request bodies and the preferred encoding of responses.
+     *
+     * @param wireFormat smile or json
+     * @return Capability that sets the Content-Type of object bodies and the Accept header
+     */
+    @Bean
+    public WireFormatCapability wireFormatCapability(@Value("${feign.client.wire-format:smile}") String wireFormat) {
+        return new WireFormatCapability(WireFormat.mediaType(wireFormat));
+    }
+
+    /**
+     * Configure request interceptor to add the Accept header of the wire format, unless the method
+     * declares what it produces.
+     *
+     * @param wireFormatCapability Wire format of the client
+     * @return RequestInterceptor that adds the Accept header to Feign requests without one
+     */
+    @Bean
+    public RequestInterceptor wireFormatAcceptInterceptor(WireFormatCapability wireFormatCapability) {
+        return wireFormatCapability.acceptInterceptor();
     }
 
     /**
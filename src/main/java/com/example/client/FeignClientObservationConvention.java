@@ -0,0 +1,35 @@
+package com.example.client;
+
+import feign.Request;
+import feign.RequestTemplate;
+import feign.micrometer.DefaultFeignObservationConvention;
+import feign.micrometer.FeignContext;
+import io.micrometer.common.KeyValues;
+
+/**
+ * Tags of the http.client.requests metrics recorded for Feign calls.
+ *
+ * Adds to Feign's default tags (http.method, http.url template, http.status_code):
+ * - client.name: the Feign client, e.g. user-service
+ * - feign.method: the client method, e.g. UserServiceClient#getUserById(UUID)
+ * so latency and errors can be broken down per downstream service and per method.
+ */
+public class FeignClientObservationConvention extends DefaultFeignObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(FeignContext context) {
+        KeyValues keyValues = super.getLowCardinalityKeyValues(context);
+        Request request = context.getCarrier();
+        RequestTemplate template = request == null ? null : request.requestTemplate();
+        if (template == null) {
+            return keyValues;
+        }
+        if (template.feignTarget() != null) {
+            keyValues = keyValues.and("client.name", template.feignTarget().name());
+        }
+        if (template.methodMetadata() != null) {
+            keyValues = keyValues.and("feign.method", template.methodMetadata().configKey());
+        }
+        return keyValues;
+    }
+}
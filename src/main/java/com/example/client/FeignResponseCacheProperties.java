@@ -0,0 +1,19 @@
+package com.example.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Response cache of the {@link ConditionalGet} methods of the Feign clients. Every client has a
+ * cache of its own.
+ *
+ * @param enabled Whether responses of conditional GET methods are cached and revalidated with If-None-Match
+ * @param maxSize Largest total size of the cached response bodies of one client; beyond it, the
+ *                responses least likely to be requested again are evicted
+ */
+@ConfigurationProperties("feign.client.response-cache")
+public record FeignResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("4MB") DataSize maxSize) {
+}
@@ -0,0 +1,50 @@
+package com.example.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Retries and hedged requests of the Feign clients. Every client has a retry budget of its own.
+ *
+ * @param maxAttempts Largest number of attempts of one call, including the first
+ * @param initialBackoff Upper bound of the jittered backoff before the first retry; doubles with every retry
+ * @param maxBackoff Upper bound of any backoff
+ * @param maxElapsed Retries stop once this much time has passed since the first attempt, or earlier at the caller's deadline
+ * @param budget Token bucket shared by the retries and hedges of one client
+ * @param hedging Hedged requests for methods annotated with {@link Hedged}
+ */
+@ConfigurationProperties("feign.client.retry")
+public record FeignRetryProperties(
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("100ms") Duration initialBackoff,
+        @DefaultValue("1s") Duration maxBackoff,
+        @DefaultValue("5s") Duration maxElapsed,
+        @DefaultValue Budget budget,
+        @DefaultValue Hedging hedging) {
+
+    /**
+     * @param capacity Largest burst of retries and hedges
+     * @param refillPerSecond Sustained retries and hedges per second
+     */
+    public record Budget(
+            @DefaultValue("20") int capacity,
+            @DefaultValue("5") double refillPerSecond) {
+    }
+
+    /**
+     * @param enabled Whether slow calls of hedged methods get a second request
+     * @param percentile Latency percentile of recent calls after which a call is hedged
+     * @param minDelay Shortest wait before a hedge is sent
+     * @param minSamples Calls of a method observed before it is hedged
+     * @param maxConcurrency Largest number of attempts of hedged methods in flight per client
+     */
+    public record Hedging(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("0.95") double percentile,
+            @DefaultValue("5ms") Duration minDelay,
+            @DefaultValue("100") int minSamples,
+            @DefaultValue("64") int maxConcurrency) {
+    }
+}
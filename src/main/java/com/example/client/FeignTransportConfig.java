@@ -0,0 +1,153 @@
+package com.example.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP transport of a Feign client, configured with feign.client.transport (see {@link FeignTransportProperties}).
+ *
+ * Imported by FeignClientConfig and only active in the child context that Spring Cloud OpenFeign
+ * creates for each client, so every client has a connection pool of its own. The hc5 pool is
+ * exposed as httpcomponents.httpclient.pool.* metrics tagged with the client name.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("spring.cloud.openfeign.client.name")
+public class FeignTransportConfig {
+
+    /**
+     * Configure the transport of one Feign client.
+     *
+     * @param clientName Name of the Feign client whose context this configuration is part of
+     * @param properties Transport settings
+     * @param options Connect timeout applied to new connections
+     * @param meterRegistry Registry of the pool metrics, if metrics are enabled
+     * @param retryProperties Hedging settings
+     * @param retryBudget Budget shared by the client's retries and hedges
+     * @param circuitBreakerRegistry Registry of the client's circuit breaker, configured under resilience4j.circuitbreaker
+     * @param bulkheadRegistry Registry of the client's bulkhead, configured under resilience4j.bulkhead
+     * @param responseCacheProperties Response cache settings
+     * @return Feign client transport guarded by a bulkhead and a circuit breaker named after the client,
+     *         hedging slow calls of {@link Hedged} methods and caching responses of {@link ConditionalGet}
+     *         methods if enabled
+     */
+    @Bean
+    public Client feignClient(@Value("${spring.cloud.openfeign.client.name}") String clientName,
+                              FeignTransportProperties properties,
+                              Request.Options options,
+                              ObjectProvider<MeterRegistry> meterRegistry,
+                              FeignRetryProperties retryProperties,
+                              RetryBudget retryBudget,
+                              CircuitBreakerRegistry circuitBreakerRegistry,
+                              BulkheadRegistry bulkheadRegistry,
+                              FeignResponseCacheProperties responseCacheProperties) {
+        // Hedges pass through the bulkhead and circuit breaker like any other attempt
+        Client transport = new ResilientClient(
+                transport(clientName, properties.forClient(clientName), options, meterRegistry),
+                circuitBreakerRegistry.circuitBreaker(clientName),
+                bulkheadRegistry.bulkhead(clientName));
+        FeignRetryProperties.Hedging hedging = retryProperties.hedging();
+        if (hedging.enabled()) {
+            transport = new HedgingClient(clientName, transport, retryBudget, hedging.percentile(), hedging.minDelay(),
+                    hedging.minSamples(), hedging.maxConcurrency());
+        }
+        if (!responseCacheProperties.enabled()) {
+            return transport;
+        }
+        // A revalidated call is one request, whether or not it was hedged
+        return new ConditionalCachingClient(clientName, transport, responseCacheProperties.maxSize().toBytes(),
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    private static Client transport(String clientName, FeignTransportProperties transport, Request.Options options,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        log.info("Feign client {} uses the {} transport", clientName, transport.type());
+        return switch (transport.type()) {
+            case "hc5" -> pooledClient(clientName, transport, options, meterRegistry);
+            case "http2" -> new ClosingClient(new Http2Client(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(options.connectTimeoutMillis()))
+                    .followRedirects(options.isFollowRedirects() ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER)
+                    .build()), null);
+            default -> throw new IllegalArgumentException(
+                    "Unknown Feign transport [" + transport.type() + "] for client " + clientName + ", expected hc5 or http2");
+        };
+    }
+
+    private static Client pooledClient(String clientName, FeignTransportProperties transport, Request.Options options,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(transport.maxConnections())
+                .setMaxConnPerRoute(transport.maxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(options.connectTimeoutMillis()))
+                        .setTimeToLive(TimeValue.of(transport.timeToLive()))
+                        .setValidateAfterInactivity(TimeValue.of(transport.validateAfterInactivity()))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(transport.idleTimeout()))
+                // Retries are left to the Feign Retryer
+                .disableAutomaticRetries()
+                // Content compression stays on: requests accept gzip, and compressed responses are
+                // decompressed before Feign decodes them
+                .build();
+        meterRegistry.ifAvailable(registry ->
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, clientName).bindTo(registry));
+        return new ClosingClient(new ApacheHttp5Client(httpClient), httpClient);
+    }
+
+    /**
+     * Feign client that releases its HTTP client, and with it the connection pool, when the
+     * Feign client context is closed.
+     */
+    static final class ClosingClient implements Client, Closeable {
+        private final Client delegate;
+        private final Closeable resource;
+
+        ClosingClient(Client delegate, Closeable resource) {
+            this.delegate = delegate;
+            this.resource = resource;
+        }
+
+        @Override
+        public Response execute(Request request, Request.Options options) throws IOException {
+            return delegate.execute(request, options);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HTTP transport of the Feign clients. Every client gets its own transport and connection pool.
+ *
+ * Clients without an entry in clients use the default settings.
+ *
+ * @param type hc5: pooled Apache HttpClient 5 over HTTP/1.1 keep-alive connections;
+ *             http2: JDK HttpClient that multiplexes requests over HTTP/2 where the server supports it
+ * @param maxConnections Largest number of pooled connections of one client (hc5)
+ * @param maxConnectionsPerRoute Largest number of pooled connections to one host of one client (hc5)
+ * @param idleTimeout Pooled connections idle for longer are closed (hc5)
+ * @param timeToLive Pooled connections are not reused after this age (hc5)
+ * @param validateAfterInactivity Pooled connections idle for longer are checked before they are reused (hc5)
+ * @param clients Settings per Feign client name, e.g. document-service
+ */
+@ConfigurationProperties("feign.client.transport")
+public record FeignTransportProperties(
+        @DefaultValue("hc5") String type,
+        @DefaultValue("200") int maxConnections,
+        @DefaultValue("50") int maxConnectionsPerRoute,
+        @DefaultValue("30s") Duration idleTimeout,
+        @DefaultValue("5m") Duration timeToLive,
+        @DefaultValue("2s") Duration validateAfterInactivity,
+        Map<String, ClientTransport> clients) {
+
+    /**
+     * Overrides of the default settings for one client; unset values fall back to the defaults.
+     */
+    public record ClientTransport(String type, Integer maxConnections, Integer maxConnectionsPerRoute,
+                                  Duration idleTimeout, Duration timeToLive, Duration validateAfterInactivity) {
+    }
+
+    /**
+     * @return Settings of the given client, with its overrides applied
+     */
+    public FeignTransportProperties forClient(String clientName) {
+        ClientTransport client = clients == null ? null : clients.get(clientName);
+        if (client == null) {
+            return this;
+        }
+        return new FeignTransportProperties(
+                client.type() != null ? client.type() : type,
+                client.maxConnections() != null ? client.maxConnections() : maxConnections,
+                client.maxConnectionsPerRoute() != null ? client.maxConnectionsPerRoute() : maxConnectionsPerRoute,
+                client.idleTimeout() != null ? client.idleTimeout() : idleTimeout,
+                client.timeToLive() != null ? client.timeToLive() : timeToLive,
+                client.validateAfterInactivity() != null ? client.validateAfterInactivity() : validateAfterInactivity,
+                clients);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.client;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an idempotent Feign GET method whose slow calls may be hedged: when enabled, a second,
+ * identical request is sent once the call takes longer than the method's usual latency, and the
+ * first response wins. See {@link HedgingClient}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedged {
+}
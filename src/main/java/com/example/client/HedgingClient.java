@@ -0,0 +1,240 @@
+package com.example.client;
+
+import com.example.config.ContextTaskDecorator;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feign client that hedges slow calls of {@link Hedged} GET methods.
+ *
+ * The client keeps a window of recent latencies per hedged method. Once the window is full enough,
+ * a call that takes longer than the configured percentile of that window (but at least minDelay)
+ * gets a second, identical request. The first successful response is returned and the other one is
+ * closed when it arrives. A hedge takes a token from the client's {@link RetryBudget} and is not
+ * sent when the caller's {@link RequestDeadline} would pass first, so hedging cannot double the
+ * load on a dependency that is slow for everyone.
+ *
+ * Attempts run on the client's own threads with the caller's MDC, deadline and current span
+ * (see {@link ContextTaskDecorator}). Calls of other methods go straight to the delegate on the
+ * calling thread.
+ */
+@Slf4j
+public class HedgingClient implements Client, Closeable {
+
+    private final Client delegate;
+    private final RetryBudget budget;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final ExecutorService executor;
+    private final Executor contextExecutor;
+    private final ConcurrentHashMap<Method, Optional<LatencyWindow>> windows = new ConcurrentHashMap<>();
+
+    /**
+     * @param clientName Name of the Feign client, used for thread names
+     * @param delegate Transport that sends the requests
+     * @param budget Budget shared with the client's retries
+     * @param percentile Latency percentile after which a call is hedged, e.g. 0.95
+     * @param minDelay Shortest wait before a hedge is sent
+     * @param minSamples Calls of a method observed before it is hedged
+     * @param maxConcurrency Largest number of attempts of hedged methods in flight
+     */
+    public HedgingClient(String clientName, Client delegate, RetryBudget budget, double percentile, Duration minDelay,
+                         int minSamples, int maxConcurrency) {
+        this.delegate = delegate;
+        this.budget = budget;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxConcurrency, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, clientName + "-hedging-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Decorated on the calling thread, so each attempt captures the caller's context
+        ContextTaskDecorator taskDecorator = new ContextTaskDecorator();
+        this.contextExecutor = task -> executor.execute(taskDecorator.decorate(task));
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        LatencyWindow window = window(request);
+        long delay = window == null ? Long.MAX_VALUE : window.hedgeDelayNanos();
+        if (delay == Long.MAX_VALUE) {
+            return timed(window, request, options);
+        }
+
+        CompletableFuture<Response> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(() -> attempt(window, request, options), contextExecutor);
+        } catch (RejectedExecutionException e) {
+            return timed(window, request, options);
+        }
+
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            return await(primary, delay);
+        } catch (TimeoutException e) {
+            // The primary attempt is slow; decide whether a second attempt is worth sending
+        }
+
+        int attempts = 1;
+        if (delay < RequestDeadline.remainingNanos() && budget.tryAcquire()) {
+            try {
+                CompletableFuture<Response> hedge = CompletableFuture.supplyAsync(() -> attempt(null, request, options), contextExecutor);
+                race(hedge, winner, failures, 2);
+                attempts = 2;
+                log.debug("Hedged {} {} after {} ms", request.httpMethod(), request.url(), TimeUnit.NANOSECONDS.toMillis(delay));
+            } catch (RejectedExecutionException e) {
+                log.debug("Not hedging {} {}: no thread available", request.httpMethod(), request.url());
+            }
+        }
+        race(primary, winner, failures, attempts);
+        try {
+            return await(winner, Long.MAX_VALUE);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            // Responses that arrive after the caller has given up are closed by race()
+            winner.cancel(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private LatencyWindow window(Request request) {
+        if (request.httpMethod() != Request.HttpMethod.GET || request.requestTemplate() == null) {
+            return null;
+        }
+        MethodMetadata metadata = request.requestTemplate().methodMetadata();
+        if (metadata == null || metadata.method() == null) {
+            return null;
+        }
+        return windows.computeIfAbsent(metadata.method(), method -> method.isAnnotationPresent(Hedged.class)
+                ? Optional.of(new LatencyWindow(percentile, minDelayNanos, minSamples))
+                : Optional.empty()).orElse(null);
+    }
+
+    private Response timed(LatencyWindow window, Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        Response response = delegate.execute(request, options);
+        if (window != null) {
+            window.record(System.nanoTime() - start);
+        }
+        return response;
+    }
+
+    private Response attempt(LatencyWindow window, Request request, Request.Options options) {
+        try {
+            return timed(window, request, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Completes the winner with the first successful attempt, or with the failure of the last one.
+     */
+    private static void race(CompletableFuture<Response> attempt, CompletableFuture<Response> winner,
+                             AtomicInteger failures, int attempts) {
+        attempt.whenComplete((response, failure) -> {
+            if (failure == null) {
+                if (!winner.complete(response)) {
+                    response.close();
+                }
+            } else if (failures.incrementAndGet() >= attempts) {
+                winner.completeExceptionally(failure);
+            }
+        });
+    }
+
+    private static Response await(CompletableFuture<Response> future, long timeoutNanos)
+            throws IOException, TimeoutException {
+        try {
+            return timeoutNanos == Long.MAX_VALUE ? future.get() : future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Latencies of the most recent calls of one method, and the hedge delay derived from them.
+     */
+    static final class LatencyWindow {
+        private static final int SIZE = 256;
+        private static final int RECOMPUTE_EVERY = 32;
+
+        private final double percentile;
+        private final long minDelayNanos;
+        private final int minSamples;
+        private final long[] samples = new long[SIZE];
+        private long count;
+        private volatile long hedgeDelayNanos = Long.MAX_VALUE;
+
+        LatencyWindow(double percentile, long minDelayNanos, int minSamples) {
+            this.percentile = percentile;
+            this.minDelayNanos = minDelayNanos;
+            this.minSamples = Math.min(minSamples, SIZE);
+        }
+
+        synchronized void record(long latencyNanos) {
+            samples[(int) (count % SIZE)] = latencyNanos;
+            count++;
+            if (count >= minSamples && count % RECOMPUTE_EVERY == 0) {
+                int size = (int) Math.min(count, SIZE);
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                long value = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+                hedgeDelayNanos = Math.max(minDelayNanos, value);
+            }
+        }
+
+        /**
+         * @return How long to wait for a call before hedging it, or Long.MAX_VALUE while too few calls were observed
+         */
+        long hedgeDelayNanos() {
+            return hedgeDelayNanos;
+        }
+    }
+}
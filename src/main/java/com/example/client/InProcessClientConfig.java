@@ -0,0 +1,101 @@
+package com.example.client;
+
+import com.example.controller.PermissionController;
+import com.example.controller.UserController;
+import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * In-process calls of services that run in the same JVM.
+ *
+ * When feign.client.in-process.enabled=true and the controller of a service is a bean of this context,
+ * i.e. its profile is active, the UserServiceClient or PermissionServiceClient injected into
+ * application code calls that controller directly instead of going through the Feign client and
+ * loopback HTTP. Callers do not need to change. Clients of services that run elsewhere are unaffected,
+ * and so is the Feign proxy injected with its FEIGN_QUALIFIER.
+ *
+ * An in-process client replaces the batching client of the same service (see BatchingClientConfig).
+ */
+@Configuration
+public class InProcessClientConfig {
+
+    @Bean
+    @Primary
+    @Conditional(UserServiceInProcess.class)
+    public UserServiceClient inProcessUserServiceClient(UserController userController) {
+        return new InProcessUserServiceClient(userController);
+    }
+
+    @Bean
+    @Primary
+    @Conditional(PermissionServiceInProcess.class)
+    public PermissionServiceClient inProcessPermissionServiceClient(PermissionController permissionController) {
+        return new InProcessPermissionServiceClient(permissionController);
+    }
+
+    /**
+     * In-process calls are enabled and UserController is a bean of this context.
+     */
+    static class UserServiceInProcess extends AllNestedConditions {
+        UserServiceInProcess() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = "feign.client.in-process.enabled", havingValue = "true")
+        static class Enabled {
+        }
+
+        @ConditionalOnBean(UserController.class)
+        static class Colocated {
+        }
+    }
+
+    /**
+     * UserServiceClient goes through the Feign client.
+     */
+    static class UserServiceRemote extends NoneNestedConditions {
+        UserServiceRemote() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @Conditional(UserServiceInProcess.class)
+        static class InProcess {
+        }
+    }
+
+    /**
+     * In-process calls are enabled and PermissionController is a bean of this context.
+     */
+    static class PermissionServiceInProcess extends AllNestedConditions {
+        PermissionServiceInProcess() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = "feign.client.in-process.enabled", havingValue = "true")
+        static class Enabled {
+        }
+
+        @ConditionalOnBean(PermissionController.class)
+        static class Colocated {
+        }
+    }
+
+    /**
+     * PermissionServiceClient goes through the Feign client.
+     */
+    static class PermissionServiceRemote extends NoneNestedConditions {
+        PermissionServiceRemote() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @Conditional(PermissionServiceInProcess.class)
+        static class InProcess {
+        }
+    }
+}
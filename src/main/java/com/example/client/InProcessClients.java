@@ -0,0 +1,94 @@
+package com.example.client;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Calls of a co-located controller with the error semantics of the Feign client they replace.
+ *
+ * A status outside 2xx, whether returned in a ResponseEntity or thrown as a ResponseStatusException or
+ * an exception annotated with @ResponseStatus, is thrown as the FeignException of that status, e.g.
+ * FeignException.NotFound for 404. Any other exception is thrown as FeignException.InternalServerError,
+ * the 500 that Spring MVC would have answered with.
+ */
+@Slf4j
+final class InProcessClients {
+
+    private InProcessClients() {
+    }
+
+    /**
+     * Call a controller method that returns a ResponseEntity.
+     *
+     * @param methodKey Feign method key of the client method, e.g. UserServiceClient#getUserById(UUID)
+     * @param method HTTP method of the endpoint
+     * @param path Path of the endpoint, used in error messages
+     * @param handler Call of the controller method
+     * @return The entity, if its status is 2xx
+     */
+    static <T> ResponseEntity<T> exchange(String methodKey, Request.HttpMethod method, String path,
+                                          Supplier<ResponseEntity<T>> handler) {
+        ResponseEntity<T> entity;
+        try {
+            entity = handler.get();
+        } catch (RuntimeException e) {
+            int status = status(e);
+            if (status >= 500) {
+                log.warn("In-process call {} failed with {}", methodKey, status, e);
+            }
+            throw error(methodKey, method, path, status, e.getMessage());
+        }
+        if (!entity.getStatusCode().is2xxSuccessful()) {
+            throw error(methodKey, method, path, entity.getStatusCode().value(), null);
+        }
+        return entity;
+    }
+
+    /**
+     * Call a controller method that returns a ResponseEntity, and return its body.
+     */
+    static <T> T body(String methodKey, Request.HttpMethod method, String path, Supplier<ResponseEntity<T>> handler) {
+        return exchange(methodKey, method, path, handler).getBody();
+    }
+
+    /**
+     * Call a controller method that returns its body.
+     */
+    static <T> T value(String methodKey, Request.HttpMethod method, String path, Supplier<T> handler) {
+        return body(methodKey, method, path, () -> ResponseEntity.ok(handler.get()));
+    }
+
+    private static int status(RuntimeException e) {
+        if (e instanceof ErrorResponse errorResponse) {
+            return errorResponse.getStatusCode().value();
+        }
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return responseStatus != null ? responseStatus.code().value() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private static FeignException error(String methodKey, Request.HttpMethod method, String path, int status,
+                                        String message) {
+        Request request = Request.create(method, path, Map.of(), null, StandardCharsets.UTF_8, null);
+        HttpStatus httpStatus = HttpStatus.resolve(status);
+        Response.Builder response = Response.builder()
+                .status(status)
+                .reason(httpStatus != null ? httpStatus.getReasonPhrase() : null)
+                .request(request)
+                .headers(Map.of());
+        if (message != null) {
+            response.body(message, StandardCharsets.UTF_8);
+        }
+        return FeignException.errorStatus(methodKey, response.build());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.client;
+
+import com.example.controller.PermissionController;
+import com.example.dto.PermissionGrant;
+import feign.Request.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * PermissionServiceClient that calls the PermissionController of the same application context.
+ *
+ * Bodies are passed as objects, without serialization, and the controller runs on the caller's
+ * thread. Errors are thrown as the FeignException of the status the endpoint would have answered
+ * with (see {@link InProcessClients}).
+ */
+public class InProcessPermissionServiceClient implements PermissionServiceClient {
+    private final PermissionController permissionController;
+
+    public InProcessPermissionServiceClient(PermissionController permissionController) {
+        this.permissionController = permissionController;
+    }
+
+    @Override
+    public List<String> getPermissionsByUserId(UUID userId) {
+        return InProcessClients.body("PermissionServiceClient#getPermissionsByUserId(UUID)", HttpMethod.GET,
+                "/api/permissions/user/" + userId, () -> permissionController.getPermissionsByUserId(userId));
+    }
+
+    @Override
+    public boolean hasPermission(UUID userId, String permission) {
+        return InProcessClients.body("PermissionServiceClient#hasPermission(UUID,String)", HttpMethod.GET,
+                "/api/permissions/user/" + userId + "/has",
+                () -> permissionController.hasPermission(userId, permission));
+    }
+
+    @Override
+    public Map<UUID, List<String>> getPermissionsByUserIds(Set<UUID> userIds) {
+        return InProcessClients.body("PermissionServiceClient#getPermissionsByUserIds(Set)", HttpMethod.POST,
+                "/api/permissions/batch", () -> permissionController.getPermissionsByUserIds(userIds));
+    }
+
+    @Override
+    public ResponseEntity<Void> addPermission(UUID userId, String permission) {
+        return InProcessClients.exchange("PermissionServiceClient#addPermission(UUID,String)", HttpMethod.POST,
+                "/api/permissions/user/" + userId, () -> permissionController.addPermission(userId, permission));
+    }
+
+    @Override
+    public ResponseEntity<Void> addPermissions(List<PermissionGrant> grants) {
+        return InProcessClients.exchange("PermissionServiceClient#addPermissions(List)", HttpMethod.POST,
+                "/api/permissions/grants", () -> permissionController.addPermissions(grants));
+    }
+}
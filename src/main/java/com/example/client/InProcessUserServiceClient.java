@@ -0,0 +1,76 @@
+package com.example.client;
+
+import com.example.controller.UserController;
+import com.example.dto.UserPage;
+import com.example.model.User;
+import feign.Request.HttpMethod;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * UserServiceClient that calls the UserController of the same application context.
+ *
+ * Bodies are passed as objects, without serialization, and the controller runs on the caller's
+ * thread, so its log lines carry the caller's requestId. Errors are thrown as the FeignException
+ * of the status the endpoint would have answered with (see {@link InProcessClients}).
+ */
+public class InProcessUserServiceClient implements UserServiceClient {
+    private final UserController userController;
+
+    public InProcessUserServiceClient(UserController userController) {
+        this.userController = userController;
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        // A copy, like a decoded response, instead of a live view of the service's users
+        return List.copyOf(InProcessClients.body("UserServiceClient#getAllUsers()", HttpMethod.GET,
+                "/api/users", userController::getAllUsers));
+    }
+
+    @Override
+    public User getUserById(UUID id) {
+        return InProcessClients.body("UserServiceClient#getUserById(UUID)", HttpMethod.GET,
+                "/api/users/" + id, () -> userController.getUserById(id));
+    }
+
+    @Override
+    public Map<UUID, User> getUsersByIds(Set<UUID> ids) {
+        return InProcessClients.body("UserServiceClient#getUsersByIds(Set)", HttpMethod.POST,
+                "/api/users/batch", () -> userController.getUsersByIds(ids));
+    }
+
+    @Override
+    public UserPage getUserPage(String cursor, Integer limit) {
+        return InProcessClients.value("UserServiceClient#getUserPage(String,Integer)", HttpMethod.GET,
+                "/api/users/page", () -> userController.getUserPage(cursor, limit));
+    }
+
+    @Override
+    public List<User> searchByUsernamePrefix(String prefix, Integer limit) {
+        return InProcessClients.value("UserServiceClient#searchByUsernamePrefix(String,Integer)", HttpMethod.GET,
+                "/api/users/search", () -> userController.searchByUsernamePrefix(prefix, limit));
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return InProcessClients.body("UserServiceClient#getUserByUsername(String)", HttpMethod.GET,
+                "/api/users/by-username/" + username, () -> userController.getUserByUsername(username));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return InProcessClients.body("UserServiceClient#getUserByEmail(String)", HttpMethod.GET,
+                "/api/users/by-email", () -> userController.getUserByEmail(email));
+    }
+
+    @Override
+    public User createUser(User user) {
+        return InProcessClients.body("UserServiceClient#createUser(User)", HttpMethod.POST,
+                "/api/users", () -> userController.createUser(user));
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.client;
 
+import com.example.dto.PermissionGrant;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -16,23 +20,51 @@ import java.util.UUID;
  * This client communicates with the permission-service microservice.
  * When running in Docker, use the service name 'permission-service' as the URL.
  * When running locally, use 'localhost:8083'.
+ *
+ * The Feign proxy is not registered as primary so it can be decorated, e.g. by
+ * {@link BatchingPermissionServiceClient}. Use {@link #FEIGN_QUALIFIER} to inject the proxy itself.
  */
 @FeignClient(
     name = "permission-service",
     url = "${feign.client.permission-service.url:http://permission-service:8080}",
-    configuration = FeignClientConfig.class
+    configuration = FeignClientConfig.class,
+    qualifiers = PermissionServiceClient.FEIGN_QUALIFIER,
+    primary = false
 )
 public interface PermissionServiceClient {
 
+    String FEIGN_QUALIFIER = "permissionServiceFeignClient";
+
     /**
      * Get permissions for a specific user from the permission service.
      *
      * @param userId The user ID
      * @return List of permissions for the user
      */
+    @Hedged
     @GetMapping("/api/permissions/user/{userId}")
     List<String> getPermissionsByUserId(@PathVariable("userId") UUID userId);
 
+    /**
+     * Check whether a user has a permission without downloading all of the user's permissions.
+     *
+     * @param userId The user ID
+     * @param permission The permission to check
+     * @return true if the user has the permission
+     */
+    @Hedged
+    @GetMapping("/api/permissions/user/{userId}/has")
+    boolean hasPermission(@PathVariable("userId") UUID userId, @RequestParam("permission") String permission);
+
+    /**
+     * Get permissions for several users with a single request.
+     *
+     * @param userIds The user IDs
+     * @return Permissions keyed by user ID; users without permissions map to an empty list
+     */
+    @PostMapping("/api/permissions/batch")
+    Map<UUID, List<String>> getPermissionsByUserIds(@RequestBody Set<UUID> userIds);
+
     /**
      * Add a permission for a specific user in the permission service.
      *
@@ -42,5 +74,14 @@ public interface PermissionServiceClient {
      */
     @PostMapping("/api/permissions/user/{userId}")
     ResponseEntity<Void> addPermission(@PathVariable("userId") UUID userId, @RequestBody String permission);
-}
 
+    /**
+     * Apply several grants with a single request. A grant whose grantId was applied before is skipped,
+     * so a batch can be sent again after a failure.
+     *
+     * @param grants Up to 1000 grants
+     * @return Response entity
+     */
+    @PostMapping("/api/permissions/grants")
+    ResponseEntity<Void> addPermissions(@RequestBody List<PermissionGrant> grants);
+}
@@ -0,0 +1,129 @@
+package com.example.client;
+
+import com.example.exception.DownstreamUnavailableException;
+import com.example.interceptor.RequestIdWebFilter;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.support.WebClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Non-blocking clients of the reactive document read path, active when document-service runs as a
+ * reactive web application.
+ *
+ * Each client has a WebClient over a Reactor Netty connection pool of its own, sized with the
+ * client's feign.client.transport settings; waiting for a response holds a pooled connection but
+ * no thread. Like the Feign clients, the clients
+ * - use the same connect (5s) and response (10s) timeouts
+ * - forward the requestId as the X-Request-ID header, taken from the Reactor context
+ * - accept responses in the feign.client.wire-format first (see {@link WireFormat})
+ * - report to the circuit breaker named after the client, counting I/O errors and 5xx responses as failures
+ *
+ * There is no bulkhead: it bounds the threads a slow service can hold, and these calls hold none.
+ * Calls beyond the pool size wait for a connection until the response timeout.
+ */
+@Configuration
+@Profile("document-service")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveClientConfig implements DisposableBean {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final WebClient.Builder webClientBuilder;
+    private final FeignTransportProperties transportProperties;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final String accept;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public ReactiveClientConfig(WebClient.Builder webClientBuilder, FeignTransportProperties transportProperties,
+                                CircuitBreakerRegistry circuitBreakerRegistry,
+                                @Value("${feign.client.wire-format:smile}") String wireFormat) {
+        this.webClientBuilder = webClientBuilder;
+        this.transportProperties = transportProperties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.accept = WireFormat.accept(WireFormat.mediaType(wireFormat));
+    }
+
+    @Bean
+    public ReactiveUserServiceClient reactiveUserServiceClient(
+            @Value("${feign.client.user-service.url:http://user-service:8080}") String url) {
+        return HttpServiceProxyFactory.builderFor(WebClientAdapter.create(webClient("user-service", url)))
+                .build()
+                .createClient(ReactiveUserServiceClient.class);
+    }
+
+    @Bean
+    public ReactivePermissionServiceClient reactivePermissionServiceClient(
+            @Value("${feign.client.permission-service.url:http://permission-service:8080}") String url) {
+        return HttpServiceProxyFactory.builderFor(WebClientAdapter.create(webClient("permission-service", url)))
+                .build()
+                .createClient(ReactivePermissionServiceClient.class);
+    }
+
+    private WebClient webClient(String clientName, String url) {
+        FeignTransportProperties transport = transportProperties.forClient(clientName);
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(clientName)
+                .maxConnections(transport.maxConnections())
+                .pendingAcquireTimeout(RESPONSE_TIMEOUT)
+                .maxIdleTime(transport.idleTimeout())
+                .maxLifeTime(transport.timeToLive())
+                .evictInBackground(transport.idleTimeout())
+                .build();
+        connectionProviders.add(connectionProvider);
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) CONNECT_TIMEOUT.toMillis())
+                .responseTimeout(RESPONSE_TIMEOUT);
+        return webClientBuilder.clone()
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, accept)
+                .filter(requestIdFilter())
+                .filter(circuitBreakerFilter(circuitBreakerRegistry.circuitBreaker(clientName)))
+                .build();
+    }
+
+    private static ExchangeFilterFunction requestIdFilter() {
+        return (request, next) -> Mono.deferContextual(context -> next.exchange(
+                context.<String>getOrEmpty(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY)
+                        .map(requestId -> ClientRequest.from(request)
+                                .header(RequestIdWebFilter.REQUEST_ID_HEADER, requestId)
+                                .build())
+                        .orElse(request)));
+    }
+
+    private static ExchangeFilterFunction circuitBreakerFilter(CircuitBreaker circuitBreaker) {
+        return (request, next) -> next.exchange(request)
+                // A 5xx response fails the call, as it would once the client reads the response
+                .flatMap(response -> response.statusCode().is5xxServerError() ? response.createError() : Mono.just(response))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, e -> new DownstreamUnavailableException(
+                        circuitBreaker.getName() + " is unavailable: circuit breaker is " + circuitBreaker.getState(), e));
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.client;
+
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.service.annotation.GetExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking client for Permission Service, used by the reactive document read path.
+ *
+ * Mirrors the lookups of {@link PermissionServiceClient} that the read path needs, over WebClient
+ * (see {@link ReactiveClientConfig}).
+ */
+public interface ReactivePermissionServiceClient {
+
+    /**
+     * Check whether a user has a permission without downloading all of the user's permissions.
+     *
+     * @param userId The user ID
+     * @param permission The permission to check
+     * @return true if the user has the permission
+     */
+    @GetExchange("/api/permissions/user/{userId}/has")
+    Mono<Boolean> hasPermission(@PathVariable("userId") UUID userId, @RequestParam("permission") String permission);
+}
@@ -0,0 +1,27 @@
+package com.example.client;
+
+import com.example.model.User;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.service.annotation.GetExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking client for User Service, used by the reactive document read path.
+ *
+ * Mirrors the lookups of {@link UserServiceClient} that the read path needs, over WebClient
+ * (see {@link ReactiveClientConfig}). If a user is not found (404), the Mono fails with
+ * WebClientResponseException.NotFound.
+ */
+public interface ReactiveUserServiceClient {
+
+    /**
+     * Get a specific user by ID from the user service.
+     *
+     * @param id The user ID
+     * @return The user with the specified ID
+     */
+    @GetExchange("/api/users/{id}")
+    Mono<User> getUserById(@PathVariable("id") UUID id);
+}
@@ -0,0 +1,179 @@
+package com.example.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent single-key lookups over a short window and resolves them with one batch call.
+ *
+ * The first key submitted after a flush opens a window; when the window closes, or when
+ * the batch reaches its maximum size, all pending keys are sent in a single batch call and
+ * every caller's future is completed from the returned map. Concurrent lookups of the same
+ * key share one future. Keys missing from the batch result complete with null.
+ *
+ * Batch calls run on the batcher's own threads, so they do not carry the MDC of any single
+ * caller. A batch call runs within the latest {@link RequestDeadline} of its callers, and
+ * without one if any caller has none, so it is never cut short for a caller still waiting.
+ * Lookups still pending when the batcher is closed, and lookups submitted after that, fail
+ * with RejectedExecutionException.
+ *
+ * @param <K> Key type, e.g. a user ID
+ * @param <V> Value type returned for each key
+ */
+@Slf4j
+public class RequestBatcher<K, V> implements AutoCloseable {
+    private final String name;
+    private final Function<Set<K>, Map<K, V>> batchCall;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+    // Latest deadline of the pending lookups, or empty if one of them has none
+    private OptionalLong pendingDeadline = OptionalLong.empty();
+    private long generation;
+    private boolean closed;
+
+    public RequestBatcher(String name, Function<Set<K>, Map<K, V>> batchCall,
+                          Duration window, int maxBatchSize, int dispatchThreads) {
+        this.name = name;
+        this.batchCall = batchCall;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-batch-timer"));
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, threadFactory(name + "-batch"));
+    }
+
+    /**
+     * Queue a key for the next batch.
+     *
+     * @param key The key to look up
+     * @return Future completed with the value for the key, or null if the batch result has none
+     */
+    public CompletableFuture<V> submit(K key) {
+        Batch<K, V> full = null;
+        CompletableFuture<V> future;
+        OptionalLong deadline = RequestDeadline.current();
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Batcher " + name + " is closed"));
+            }
+            pendingDeadline = pending.isEmpty() ? deadline : later(pendingDeadline, deadline);
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                long windowGeneration = generation;
+                scheduler.schedule(() -> flush(windowGeneration), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Stop batching. Batches already sent complete; pending lookups fail.
+     */
+    @Override
+    public void close() {
+        Batch<K, V> remaining;
+        synchronized (lock) {
+            closed = true;
+            remaining = takePending();
+        }
+        scheduler.shutdownNow();
+        dispatcher.shutdown();
+        remaining.fail(new RejectedExecutionException("Batcher " + name + " is closed"));
+    }
+
+    private void flush(long windowGeneration) {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            // The window's batch was already sent because it reached the maximum size
+            if (windowGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * @return The later of two deadlines, where no deadline is later than any
+     */
+    private static OptionalLong later(OptionalLong deadline, OptionalLong other) {
+        if (deadline.isEmpty() || other.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        return other.getAsLong() - deadline.getAsLong() > 0 ? other : deadline;
+    }
+
+    private Batch<K, V> takePending() {
+        Batch<K, V> batch = new Batch<>(pending, pendingDeadline);
+        pending = new HashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    log.debug("[{}] Sending batch of {} keys", name, batch.futures().size());
+                    Map<K, V> result = batch.deadline().isPresent()
+                            ? RequestDeadline.callWithin(batch.deadline().getAsLong(),
+                                    () -> batchCall.apply(batch.futures().keySet()))
+                            : batchCall.apply(batch.futures().keySet());
+                    batch.futures().forEach((key, future) -> future.complete(result == null ? null : result.get(key)));
+                } catch (Throwable t) {
+                    batch.fail(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Dispatcher was shut down
+            batch.fail(e);
+        }
+    }
+
+    /**
+     * Lookups sent in one batch call, and the deadline the call runs within.
+     */
+    private record Batch<K, V>(Map<K, CompletableFuture<V>> futures, OptionalLong deadline) {
+
+        void fail(Throwable failure) {
+            futures.values().forEach(future -> future.completeExceptionally(failure));
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.client;
+
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+
+/**
+ * Deadline of the work running on the current thread, as a System.nanoTime() value.
+ *
+ * A caller that bounds a piece of work, such as DocumentController's downstream lookups, runs it
+ * with {@link #callWithin(long, Callable)}. Feign retries and hedges made inside that work then
+ * stop once the deadline is near instead of outliving the caller.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Run a task with the given deadline, restoring the previous deadline afterwards.
+     *
+     * @param deadlineNanos Deadline as a System.nanoTime() value
+     * @param task The task
+     * @return The task's result
+     */
+    public static <T> T callWithin(long deadlineNanos, Callable<T> task) throws Exception {
+        Long previous = DEADLINE.get();
+        // A nested deadline never extends the one it runs in
+        DEADLINE.set(previous == null || deadlineNanos - previous < 0 ? deadlineNanos : previous);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Run a task with the given deadline, restoring the previous deadline afterwards.
+     *
+     * @param deadlineNanos Deadline as a System.nanoTime() value
+     * @param task The task
+     */
+    public static void runWithin(long deadlineNanos, Runnable task) {
+        try {
+            callWithin(deadlineNanos, () -> {
+                task.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // A Runnable cannot throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return Deadline of the current thread as a System.nanoTime() value, if it has one
+     */
+    public static OptionalLong current() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? OptionalLong.empty() : OptionalLong.of(deadline);
+    }
+
+    /**
+     * @return Nanoseconds left until the current deadline (negative once it has passed),
+     *         or Long.MAX_VALUE if the current thread has no deadline
+     */
+    public static long remainingNanos() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+}
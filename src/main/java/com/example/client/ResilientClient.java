@@ -0,0 +1,80 @@
+package com.example.client;
+
+import com.example.exception.DownstreamUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Feign client that guards one downstream service with a bulkhead and a circuit breaker.
+ *
+ * The bulkhead caps the calls in flight to the service, so a slow service can only hold that many
+ * of the caller's threads. The circuit breaker records every call: I/O errors and 5xx responses
+ * count as failures, and calls slower than its slow-call threshold as slow. Once the failure or
+ * slow-call rate trips it, calls fail fast until it lets a few trial calls through again.
+ *
+ * A rejected call throws {@link DownstreamUnavailableException}, which is not retried by Feign and
+ * maps to 503 Service Unavailable.
+ */
+public class ResilientClient implements Client, Closeable {
+
+    private final Client delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientClient(Client delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (CallNotPermittedException e) {
+            throw new DownstreamUnavailableException(circuitBreaker.getName() + " is unavailable: circuit breaker is "
+                    + circuitBreaker.getState(), e);
+        }
+        try {
+            bulkhead.acquirePermission();
+        } catch (BulkheadFullException e) {
+            // The call was never made, so it must not count for or against the circuit breaker
+            circuitBreaker.releasePermission();
+            throw new DownstreamUnavailableException(circuitBreaker.getName() + " is unavailable: too many calls in flight", e);
+        }
+
+        long start = circuitBreaker.getCurrentTimestamp();
+        try {
+            Response response = delegate.execute(request, options);
+            long duration = circuitBreaker.getCurrentTimestamp() - start;
+            if (response.status() >= 500) {
+                circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(),
+                        new IOException(request.httpMethod() + " " + request.url() + " returned " + response.status()));
+            } else {
+                circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), e);
+            throw e;
+        } finally {
+            // Released once the response headers arrive; reading the body is up to the caller
+            bulkhead.onComplete();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
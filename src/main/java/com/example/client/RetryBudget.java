@@ -0,0 +1,44 @@
+package com.example.client;
+
+import java.time.Duration;
+
+/**
+ * Token bucket that limits the extra requests a Feign client sends on top of its callers' calls,
+ * i.e. retries and hedged requests.
+ *
+ * The bucket holds at most capacity tokens and refills at a fixed rate; every extra request takes
+ * one token. While a dependency is failing the bucket drains, so the client stops adding load
+ * instead of multiplying it.
+ */
+public class RetryBudget {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity Largest number of extra requests that can be sent in a burst
+     * @param refillPerSecond Sustained number of extra requests per second
+     */
+    public RetryBudget(int capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / Duration.ofSeconds(1).toNanos();
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * @return true if a token was taken and the extra request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
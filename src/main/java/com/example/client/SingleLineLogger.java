@@ -3,29 +3,64 @@ package com.example.client;
 import feign.Logger;
 import feign.Request;
 import feign.Response;
-import feign.Util;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Custom Feign logger that outputs all request/response information in a single log line.
  * This is compatible with structured JSON logging and prevents multi-line log entries.
+ *
+ * At Logger.Level.FULL only the first bytes of a body are logged, and response bodies only for a
+ * sample of calls (see {@link FeignBodyLoggingProperties}). A sampled response body is not buffered:
+ * it is passed through to the decoder while its first bytes are recorded, and the response is
+ * logged once the body has been read or closed.
+ *
+ * Bodies in a binary encoding, e.g. Smile (see {@link WireFormat}), are logged as their content type
+ * and size only.
  */
 @Slf4j
 public class SingleLineLogger extends Logger {
 
+    private static final List<MediaType> BINARY_TYPES = List.of(WireFormat.SMILE,
+            new MediaType("application", "cbor"), MediaType.APPLICATION_OCTET_STREAM);
+
+    private final String clientName;
+    private final FeignBodyLoggingProperties properties;
+
+    /**
+     * @param clientName Name of the Feign client, used to look up its sample rates
+     * @param properties Body logging settings
+     */
+    public SingleLineLogger(String clientName, FeignBodyLoggingProperties properties) {
+        this.clientName = clientName;
+        this.properties = properties;
+    }
+
     @Override
     protected void log(String configKey, String format, Object... args) {
-        // Use SLF4J for logging to integrate with structured logging
-        log.debug(String.format(methodTag(configKey) + format, args));
+        // Use SLF4J for logging to integrate with structured logging; only format when DEBUG is enabled
+        if (log.isDebugEnabled()) {
+            log.debug(String.format(methodTag(configKey) + format, args));
+        }
     }
 
     @Override
     protected void logRequest(String configKey, Level logLevel, Request request) {
-        if (logLevel.ordinal() >= Level.BASIC.ordinal()) {
+        if (logLevel.ordinal() >= Level.BASIC.ordinal() && log.isInfoEnabled()) {
             StringBuilder builder = new StringBuilder();
             builder.append("Request: ")
                    .append(request.httpMethod())
@@ -33,20 +68,18 @@ public class SingleLineLogger extends Logger {
                    .append(request.url());
 
             if (logLevel.ordinal() >= Level.HEADERS.ordinal()) {
-                builder.append(" | Headers: ");
-                for (Map.Entry<String, Collection<String>> entry : request.headers().entrySet()) {
-                    builder.append(entry.getKey())
-                           .append("=")
-                           .append(String.join(",", entry.getValue()))
-                           .append("; ");
-                }
+                appendHeaders(builder, request.headers());
             }
 
             if (logLevel.ordinal() >= Level.FULL.ordinal() && request.body() != null) {
-                String bodyText = request.charset() != null
-                        ? new String(request.body(), request.charset())
-                        : new String(request.body());
-                builder.append(" | Body: ").append(bodyText.replace("\n", " ").replace("\r", ""));
+                byte[] body = request.body();
+                String binaryType = binaryContentType(request.headers());
+                if (binaryType != null) {
+                    appendBinaryBody(builder, binaryType, body.length);
+                } else {
+                    appendBody(builder, body, Math.min(body.length, maxBodyBytes()), body.length,
+                            request.charset() != null ? request.charset() : StandardCharsets.UTF_8);
+                }
             }
 
             log.info("[{}] {}", configKey, builder.toString());
@@ -56,7 +89,7 @@ public class SingleLineLogger extends Logger {
     @Override
     protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response,
                                                long elapsedTime) throws IOException {
-        if (logLevel.ordinal() >= Level.BASIC.ordinal()) {
+        if (logLevel.ordinal() >= Level.BASIC.ordinal() && log.isInfoEnabled()) {
             StringBuilder builder = new StringBuilder();
             builder.append("Response: ")
                    .append(response.status())
@@ -65,23 +98,15 @@ public class SingleLineLogger extends Logger {
                    .append("ms)");
 
             if (logLevel.ordinal() >= Level.HEADERS.ordinal()) {
-                builder.append(" | Headers: ");
-                for (Map.Entry<String, Collection<String>> entry : response.headers().entrySet()) {
-                    builder.append(entry.getKey())
-                           .append("=")
-                           .append(String.join(",", entry.getValue()))
-                           .append("; ");
-                }
+                appendHeaders(builder, response.headers());
             }
 
-            if (logLevel.ordinal() >= Level.FULL.ordinal() && response.body() != null) {
-                byte[] bodyData = Util.toByteArray(response.body().asInputStream());
-                if (bodyData.length > 0) {
-                    String bodyText = Util.decodeOrDefault(bodyData, Util.UTF_8, "Binary data");
-                    builder.append(" | Body: ").append(bodyText.replace("\n", " ").replace("\r", ""));
-                }
-                // FIXME autocloseable
-                response = response.toBuilder().body(bodyData).build();
+            if (logLevel.ordinal() >= Level.FULL.ordinal() && response.body() != null && sampled(response.status())) {
+                // Logged by the body once the caller has consumed it
+                return response.toBuilder()
+                        .body(new CapturingBody(response.body(), configKey, builder, maxBodyBytes(),
+                                binaryContentType(response.headers())))
+                        .build();
             }
 
             log.info("[{}] {}", configKey, builder.toString());
@@ -89,5 +114,182 @@ public class SingleLineLogger extends Logger {
 
         return response;
     }
-}
 
+    private boolean sampled(int status) {
+        double rate = properties.sampleRate(clientName, status);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private int maxBodyBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, properties.maxBodySize().toBytes());
+    }
+
+    private static void appendHeaders(StringBuilder builder, Map<String, Collection<String>> headers) {
+        builder.append(" | Headers: ");
+        for (Map.Entry<String, Collection<String>> entry : headers.entrySet()) {
+            builder.append(entry.getKey())
+                   .append("=")
+                   .append(String.join(",", entry.getValue()))
+                   .append("; ");
+        }
+    }
+
+    /**
+     * @return The Content-Type of the headers if it is a binary encoding, otherwise null
+     */
+    private static String binaryContentType(Map<String, Collection<String>> headers) {
+        Collection<String> values = headers.get(HttpHeaders.CONTENT_TYPE);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        String contentType = values.iterator().next();
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return BINARY_TYPES.stream().anyMatch(mediaType::isCompatibleWith) ? contentType : null;
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    private static void appendBinaryBody(StringBuilder builder, String contentType, long length) {
+        if (length > 0) {
+            builder.append(" | Body: <").append(length).append(" bytes of ").append(contentType).append(">");
+        }
+    }
+
+    private static void appendBody(StringBuilder builder, byte[] captured, int capturedLength, long totalLength,
+                                   Charset charset) {
+        if (totalLength == 0) {
+            return;
+        }
+        String bodyText = new String(captured, 0, capturedLength, charset);
+        builder.append(" | Body: ").append(bodyText.replace("\n", " ").replace("\r", ""));
+        if (totalLength > capturedLength) {
+            builder.append("... (").append(capturedLength).append(" of ").append(totalLength).append(" bytes)");
+        }
+    }
+
+    /**
+     * Response body that records the first bytes read through it and logs the response line when
+     * it is exhausted or closed.
+     */
+    private static final class CapturingBody implements Response.Body {
+        private final Response.Body body;
+        private final String configKey;
+        private final StringBuilder line;
+        private final String binaryType;
+        private final byte[] captured;
+        private int capturedLength;
+        private long totalLength;
+        private boolean logged;
+        private InputStream stream;
+
+        /**
+         * @param binaryType Content type of a binary body, whose bytes are counted but not recorded; null for text
+         */
+        CapturingBody(Response.Body body, String configKey, StringBuilder line, int maxBodyBytes, String binaryType) {
+            this.body = body;
+            this.configKey = configKey;
+            this.line = line;
+            this.binaryType = binaryType;
+            Integer length = body.length();
+            int capturedSize = length != null && length >= 0 ? Math.min(length, maxBodyBytes) : maxBodyBytes;
+            this.captured = new byte[binaryType != null ? 0 : capturedSize];
+        }
+
+        @Override
+        public Integer length() {
+            return body.length();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            // Bytes pass through once and are not kept
+            return false;
+        }
+
+        @Override
+        public synchronized InputStream asInputStream() throws IOException {
+            if (stream == null) {
+                stream = new TeeInputStream(body.asInputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public Reader asReader(Charset charset) throws IOException {
+            return new InputStreamReader(asInputStream(), charset);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                body.close();
+            } finally {
+                logOnce();
+            }
+        }
+
+        private synchronized void record(byte[] buffer, int offset, int length) {
+            int copied = Math.min(length, captured.length - capturedLength);
+            if (copied > 0) {
+                System.arraycopy(buffer, offset, captured, capturedLength, copied);
+                capturedLength += copied;
+            }
+            totalLength += length;
+        }
+
+        private synchronized void record(int b) {
+            if (capturedLength < captured.length) {
+                captured[capturedLength++] = (byte) b;
+            }
+            totalLength++;
+        }
+
+        private synchronized void logOnce() {
+            if (logged) {
+                return;
+            }
+            logged = true;
+            if (binaryType != null) {
+                appendBinaryBody(line, binaryType, totalLength);
+            } else {
+                appendBody(line, captured, capturedLength, totalLength, StandardCharsets.UTF_8);
+            }
+            log.info("[{}] {}", configKey, line.toString());
+        }
+
+        private final class TeeInputStream extends FilterInputStream {
+            TeeInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b < 0) {
+                    logOnce();
+                } else {
+                    record(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read < 0) {
+                    logOnce();
+                } else {
+                    record(buffer, offset, read);
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                CapturingBody.this.close();
+            }
+        }
+    }
+}
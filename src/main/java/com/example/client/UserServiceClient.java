@@ -1,13 +1,18 @@
 package com.example.client;
 
+import com.example.dto.UserPage;
 import com.example.model.User;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -19,16 +24,24 @@ import java.util.UUID;
  *
  * Note: This client returns objects directly instead of ResponseEntity.
  * If a user is not found (404), a FeignException will be thrown.
+ *
+ * The Feign proxy is not registered as primary so it can be decorated, e.g. by
+ * {@link BatchingUserServiceClient}. Use {@link #FEIGN_QUALIFIER} to inject the proxy itself.
  */
 @FeignClient(
     name = "user-service",
     url = "${feign.client.user-service.url:http://user-service:8080}",
-    configuration = FeignClientConfig.class
+    configuration = FeignClientConfig.class,
+    qualifiers = UserServiceClient.FEIGN_QUALIFIER,
+    primary = false
 )
 public interface UserServiceClient {
 
+    String FEIGN_QUALIFIER = "userServiceFeignClient";
+
     /**
      * Get all users from the user service.
+     * Returns every user in one response; use {@link #getUserPage} to list users.
      *
      * @return Collection of all users
      */
@@ -42,9 +55,52 @@ public interface UserServiceClient {
      * @return The user with the specified ID
      * @throws feign.FeignException.NotFound if user is not found (404)
      */
+    @Hedged
     @GetMapping("/api/users/{id}")
     User getUserById(@PathVariable("id") UUID id);
 
+    /**
+     * Get several users by ID with a single request.
+     *
+     * @param ids The user IDs
+     * @return Users keyed by ID; IDs of unknown users are absent from the map
+     */
+    @PostMapping("/api/users/batch")
+    Map<UUID, User> getUsersByIds(@RequestBody Set<UUID> ids);
+
+    /**
+     * Get a page of users in username order.
+     *
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param limit Largest number of users, or null for the service's default
+     * @return The users, and the cursor of the next page (null on the last page)
+     */
+    @GetMapping("/api/users/page")
+    UserPage getUserPage(@RequestParam(value = "cursor", required = false) String cursor,
+                         @RequestParam(value = "limit", required = false) Integer limit);
+
+    /**
+     * Get the users whose username starts with a prefix (case-insensitive), in username order.
+     */
+    @GetMapping("/api/users/search")
+    List<User> searchByUsernamePrefix(@RequestParam("prefix") String prefix,
+                                      @RequestParam(value = "limit", required = false) Integer limit);
+
+    /**
+     * @throws feign.FeignException.NotFound if no user has the username (case-insensitive)
+     */
+    @GetMapping("/api/users/by-username/{username}")
+    User getUserByUsername(@PathVariable("username") String username);
+
+    /**
+     * @throws feign.FeignException.NotFound if no user has the email (case-insensitive)
+     */
+    @GetMapping("/api/users/by-email")
+    User getUserByEmail(@RequestParam("email") String email);
+
+    /**
+     * @throws feign.FeignException.Conflict if another user has the same username or email
+     */
     @PostMapping("/api/users")
     User createUser(@RequestBody User user);
 }
@@ -0,0 +1,45 @@
+package com.example.client;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings of the bodies sent between the services, chosen with feign.client.wire-format.
+ *
+ * smile: Smile, the binary form of the Jackson data model, for request bodies; responses are
+ * requested as Smile with JSON as fallback. UUIDs take 16 bytes instead of a 36-character string,
+ * and repeated property names are written once per body.
+ * json: JSON, as sent by external callers.
+ *
+ * Either way, the clients read whichever of the two a response is encoded in.
+ */
+public final class WireFormat {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private WireFormat() {
+    }
+
+    /**
+     * @param wireFormat smile or json
+     * @return Content type of request bodies in the format
+     */
+    public static MediaType mediaType(String wireFormat) {
+        return switch (wireFormat) {
+            case "smile" -> SMILE;
+            case "json" -> MediaType.APPLICATION_JSON;
+            default -> throw new IllegalStateException(
+                    "Unknown wire format [" + wireFormat + "], expected smile or json");
+        };
+    }
+
+    /**
+     * @param mediaType Content type of request bodies
+     * @return Accept header preferring responses of the same type, then JSON, then anything else
+     */
+    public static String accept(MediaType mediaType) {
+        if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)) {
+            return "application/json, */*;q=0.8";
+        }
+        return mediaType + ", application/json;q=0.9, */*;q=0.8";
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.client;
+
+import feign.Capability;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * Sends the bodies of a Feign client in the configured {@link WireFormat}.
+ *
+ * Object bodies get the format's Content-Type before they are encoded, so that Spring's encoder
+ * picks the matching message converter; text and byte bodies are left as they are. Smile bodies are
+ * marked as binary, so that the HTTP client sends their bytes as they are instead of as text. Requests
+ * without an Accept header, i.e. those of methods without produces, accept the format first.
+ * Responses are decoded by their Content-Type, with the same converters.
+ */
+public class WireFormatCapability implements Capability {
+
+    private final MediaType mediaType;
+    private final boolean binary;
+    private final String accept;
+
+    public WireFormatCapability(MediaType mediaType) {
+        this.mediaType = mediaType;
+        this.binary = WireFormat.SMILE.equalsTypeAndSubtype(mediaType);
+        this.accept = WireFormat.accept(mediaType);
+    }
+
+    @Override
+    public Encoder enrich(Encoder encoder) {
+        return (object, bodyType, template) -> {
+            boolean objectBody = object != null && !(object instanceof CharSequence) && !(object instanceof byte[])
+                    && !template.headers().containsKey(HttpHeaders.CONTENT_TYPE);
+            if (objectBody) {
+                template.header(HttpHeaders.CONTENT_TYPE, mediaType.toString());
+            }
+            encoder.encode(object, bodyType, template);
+            if (objectBody && binary) {
+                // With a charset, the client would decode the bytes to text and encode them again
+                template.body(template.body(), null);
+            }
+        };
+    }
+
+    /**
+     * @return Interceptor that adds the Accept header of the format
+     */
+    public RequestInterceptor acceptInterceptor() {
+        return template -> {
+            if (!template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                template.header(HttpHeaders.ACCEPT, accept);
+            }
+        };
+    }
+}
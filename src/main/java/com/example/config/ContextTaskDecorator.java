@@ -0,0 +1,62 @@
+package com.example.config;
+
+import com.example.client.RequestDeadline;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Task decorator that carries the request context of the submitting thread into the thread that
+ * runs the task, whether that is a pooled platform thread or a new virtual thread:
+ * - the MDC (Mapped Diagnostic Context), which holds requestId
+ * - the {@link RequestDeadline}
+ * - the current observation, and with it the current span
+ *
+ * This keeps requestId in the logs of work that is handed off to an executor, lets
+ * FeignRequestIdInterceptor forward the X-Request-ID header from worker threads, bounds
+ * Feign retries on worker threads by the caller's deadline, and makes Feign calls on worker
+ * threads child spans of the request that submitted them. appId needs no propagation; it is a
+ * static field of every log line.
+ */
+public class ContextTaskDecorator implements TaskDecorator {
+
+    private static final ContextSnapshotFactory OBSERVATION_SNAPSHOTS = ContextSnapshotFactory.builder()
+            .captureKeyPredicate(ObservationThreadLocalAccessor.KEY::equals)
+            .build();
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        // Capture the context on the submitting thread
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        OptionalLong deadline = RequestDeadline.current();
+        ContextSnapshot observation = OBSERVATION_SNAPSHOTS.captureAll();
+
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null) {
+                MDC.setContextMap(context);
+            } else {
+                MDC.clear();
+            }
+            try (ContextSnapshot.Scope scope = observation.setThreadLocals()) {
+                if (deadline.isPresent()) {
+                    RequestDeadline.runWithin(deadline.getAsLong(), runnable);
+                } else {
+                    runnable.run();
+                }
+            } finally {
+                // Restore the worker thread's own context so nothing leaks into the next task
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
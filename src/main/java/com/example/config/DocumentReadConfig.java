@@ -0,0 +1,39 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Configuration for the document read path.
+ *
+ * The document read path looks up the user and their permissions concurrently.
+ * Both lookups run on a bounded executor so a slow downstream service cannot
+ * create an unbounded number of threads. With virtual threads enabled each lookup
+ * gets a virtual thread, and the Feign clients' bulkheads bound the lookups instead.
+ */
+@Configuration
+@Profile("document-service")
+public class DocumentReadConfig {
+
+    /**
+     * Configure the executor used to fan out downstream lookups on the document read path.
+     *
+     * @param coreSize Number of threads kept alive
+     * @param maxSize Maximum number of threads
+     * @param queueCapacity Number of lookups that may wait for a free thread
+     * @param environment Environment deciding between platform and virtual threads
+     * @return Executor that propagates the request context into worker threads; bounded unless virtual threads are enabled
+     */
+    @Bean
+    public AsyncTaskExecutor documentReadExecutor(
+            @Value("${document-service.read.executor.core-size:8}") int coreSize,
+            @Value("${document-service.read.executor.max-size:32}") int maxSize,
+            @Value("${document-service.read.executor.queue-capacity:200}") int queueCapacity,
+            Environment environment) {
+        return TaskExecutors.create(environment, "document-read-", coreSize, maxSize, queueCapacity);
+    }
+}
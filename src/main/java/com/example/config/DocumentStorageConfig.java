@@ -0,0 +1,77 @@
+package com.example.config;
+
+import com.example.storage.DocumentStore;
+import com.example.storage.InMemoryDocumentStore;
+import com.example.storage.LogDocumentStore;
+import com.example.storage.OffHeapDocumentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the storage engine behind DocumentService.
+ *
+ * The engine is selected with document-service.storage.engine:
+ * - memory: documents are kept on the heap and lost on restart (used when the property is not set)
+ * - off-heap: documents are kept in direct memory, large content compressed, and lost on restart
+ * - log: documents are persisted in an append-only segment log (set in application-document-service.yml)
+ */
+@Configuration
+@Profile("document-service")
+public class DocumentStorageConfig {
+
+    /**
+     * Configure the in-memory document store.
+     *
+     * @return Document store backed by the heap
+     */
+    @Bean
+    @ConditionalOnProperty(name = "document-service.storage.engine", havingValue = "memory", matchIfMissing = true)
+    public DocumentStore inMemoryDocumentStore() {
+        return new InMemoryDocumentStore();
+    }
+
+    /**
+     * Configure the off-heap document store.
+     *
+     * @param slabSize Size of each off-heap slab
+     * @param compressionThreshold Content of at least this size is compressed; 0 disables compression
+     * @return Document store backed by direct memory
+     */
+    @Bean
+    @ConditionalOnProperty(name = "document-service.storage.engine", havingValue = "off-heap")
+    public DocumentStore offHeapDocumentStore(
+            @Value("${document-service.storage.slab-size:16MB}") DataSize slabSize,
+            @Value("${document-service.storage.compression-threshold:1KB}") DataSize compressionThreshold) {
+        return new OffHeapDocumentStore(Math.toIntExact(slabSize.toBytes()), Math.toIntExact(compressionThreshold.toBytes()));
+    }
+
+    /**
+     * Configure the durable segment log document store.
+     *
+     * @param path Directory holding the segment and hint files
+     * @param maxSegmentSize Size at which the active segment is sealed and a new one is started
+     * @param compactionMinSegments Minimum number of small adjacent segments merged by one compaction
+     * @param syncInterval How often written data is flushed to disk
+     * @param compactionInterval How often compaction looks for segments to merge
+     * @return Document store backed by the segment log
+     * @throws IOException if the log cannot be opened or recovered
+     */
+    @Bean
+    @ConditionalOnProperty(name = "document-service.storage.engine", havingValue = "log")
+    public DocumentStore logDocumentStore(
+            @Value("${document-service.storage.path:data/documents}") Path path,
+            @Value("${document-service.storage.max-segment-size:64MB}") DataSize maxSegmentSize,
+            @Value("${document-service.storage.compaction-min-segments:4}") int compactionMinSegments,
+            @Value("${document-service.storage.sync-interval:1s}") Duration syncInterval,
+            @Value("${document-service.storage.compaction-interval:5m}") Duration compactionInterval) throws IOException {
+        return new LogDocumentStore(path, maxSegmentSize.toBytes(), compactionMinSegments, syncInterval, compactionInterval);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Configuration for publishing permission changes from permission-service.
+ */
+@Configuration
+@Profile("permission-service")
+public class PermissionChangeConfig {
+
+    /**
+     * Configure the executor that sends permission change notifications.
+     * Notifications are sent off the request thread so granting a permission
+     * does not wait for document-service.
+     *
+     * @param environment Environment deciding between platform and virtual threads
+     * @return Executor of two platform threads with a bounded queue, or of a virtual thread per notification
+     *         when virtual threads are enabled; either way it propagates the request context into its threads
+     */
+    @Bean
+    public TaskExecutor permissionChangeExecutor(Environment environment) {
+        return TaskExecutors.create(environment, "permission-change-", 2, 2, 1000);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.config;
+
+import com.example.persistence.PersistenceProperties;
+import com.example.persistence.StatePersistence;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Persistence of the state of user-service and permission-service, enabled with persistence.enabled.
+ */
+@Configuration
+@Profile({"user-service", "permission-service"})
+public class PersistenceConfig {
+
+    /**
+     * Configure the persistence of service state. Closing it writes the final snapshots, after the
+     * services using it are gone.
+     *
+     * @return Persistence in persistence.path, or in-memory state when persistence is disabled
+     */
+    @Bean
+    public StatePersistence statePersistence(PersistenceProperties properties) {
+        return properties.enabled()
+                ? new StatePersistence(properties.path(), properties.snapshotInterval(), properties.snapshotOnShutdown())
+                : StatePersistence.inMemory();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.config;
+
+import com.example.interceptor.RequestIdWebFilter;
+import io.micrometer.context.ContextRegistry;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebFlux configuration, active when the application runs as a reactive web application
+ * (spring.main.web-application-type=reactive).
+ *
+ * - Serves requests with Reactor Netty, whose few event-loop threads handle all connections.
+ *   Tomcat is on the classpath for the servlet stack and would otherwise be picked.
+ * - Bridges the requestId from the Reactor context to the MDC. With
+ *   spring.reactor.context-propagation=auto, Reactor sets the MDC entry from the context of the
+ *   subscriber whenever an operator runs, and removes it again afterwards.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+    public ReactiveWebConfig() {
+        // Registering the same key again replaces the previous accessor
+        ContextRegistry.getInstance().registerThreadLocalAccessor(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY,
+                () -> MDC.get(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY),
+                requestId -> MDC.put(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY, requestId),
+                () -> MDC.remove(RequestIdWebFilter.REQUEST_ID_CONTEXT_KEY));
+    }
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
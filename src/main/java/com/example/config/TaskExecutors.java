@@ -0,0 +1,50 @@
+package com.example.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Builds the internal task executors of the services.
+ *
+ * By default tasks run on a bounded pool of platform threads. With virtual threads enabled
+ * (spring.threads.virtual.enabled=true, which needs a Java 21 runtime) every task gets a virtual
+ * thread of its own, so tasks blocked in Feign calls no longer hold one of a fixed number of
+ * threads; the Feign clients' bulkheads bound the calls to each downstream service instead.
+ *
+ * Either way tasks run with the submitting thread's context (see {@link ContextTaskDecorator}).
+ */
+final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @param environment Environment deciding between platform and virtual threads
+     * @param threadNamePrefix Prefix of the thread names
+     * @param coreSize Number of platform threads kept alive
+     * @param maxSize Maximum number of platform threads
+     * @param queueCapacity Number of tasks that may wait for a free platform thread
+     * @return Executor that propagates the request context into its threads
+     */
+    static AsyncTaskExecutor create(Environment environment, String threadNamePrefix, int coreSize, int maxSize,
+                                    int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(new ContextTaskDecorator());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(new ContextTaskDecorator());
+        // Not initialized here: callers return the executor as a bean, and the container initializes it
+        // and shuts it down. Calling initialize() here as well would start a second pool and leak the first.
+        return executor;
+    }
+}
@@ -1,20 +1,44 @@
 package com.example.config;
 
 import com.example.interceptor.RequestIdInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Web MVC Configuration to register custom interceptors.
+ * See ReactiveWebConfig for the reactive stack.
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebConfig implements WebMvcConfigurer {
 
     private final RequestIdInterceptor requestIdInterceptor;
+    private final Environment environment;
 
-    public WebConfig(RequestIdInterceptor requestIdInterceptor) {
+    public WebConfig(RequestIdInterceptor requestIdInterceptor, Environment environment) {
         this.requestIdInterceptor = requestIdInterceptor;
+        this.environment = environment;
+    }
+
+    /**
+     * Configure the executor for asynchronous request processing, e.g. streaming responses.
+     *
+     * @return Executor that propagates the request context into worker threads; bounded unless virtual threads are enabled
+     */
+    @Bean
+    public AsyncTaskExecutor mvcAsyncExecutor() {
+        return TaskExecutors.create(environment, "mvc-async-", 8, 32, 100);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Smile bodies next to JSON, for the calls between the services (see com.example.client.WireFormat).
+ *
+ * Controllers of both stacks read Smile request bodies and write Smile when a request accepts
+ * application/x-jackson-smile. Smile takes the place of Spring's default Smile converter and codecs,
+ * which come after JSON, so JSON stays the answer to Accept: *&#47;* and to requests without Accept.
+ * The Feign clients decode with the same converters, WebClients with the same codecs.
+ *
+ * The Smile ObjectMapper comes from the builder of the JSON one, so both have the same modules,
+ * serializers and spring.jackson settings.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    /**
+     * Configure the Smile converter of Spring MVC and of the Feign encoders and decoders.
+     *
+     * @param builder Builder of the application's ObjectMappers
+     * @return Converter replacing the default Smile converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(builder));
+    }
+
+    /**
+     * Configure the Smile codecs of WebFlux and of WebClient.
+     *
+     * @param builder Builder of the application's ObjectMappers
+     * @return Customizer replacing the default Smile codecs
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = smileObjectMapper(builder);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(objectMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(objectMapper));
+        };
+    }
+
+    /**
+     * Build a Smile ObjectMapper. Repeated short strings, e.g. permission names, are written once per
+     * body and referenced afterwards, as property names are.
+     *
+     * @param builder Builder of a JSON ObjectMapper, used up by this call
+     * @return ObjectMapper with the builder's settings that reads and writes Smile
+     */
+    public static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build())
+                .build();
+    }
+}
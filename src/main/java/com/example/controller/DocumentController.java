@@ -1,48 +1,151 @@
 package com.example.controller;
 
-import com.example.client.PermissionServiceClient;
+import com.example.client.RequestDeadline;
 import com.example.client.UserServiceClient;
 import com.example.dto.Document;
+import com.example.dto.DocumentPage;
 import com.example.exception.InsufficientPrivilegesException;
 import com.example.model.User;
 import com.example.service.DocumentService;
+import com.example.service.PermissionCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Document endpoints on the servlet stack: downstream lookups block worker threads of the
+ * document read executor. See {@link ReactiveDocumentController} for the non-blocking variant.
+ */
 @RestController
 @RequestMapping("/api/documents")
 @Profile("document-service")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DocumentController {
     private final DocumentService documentService;
     private final UserServiceClient userServiceClient;
-    private final PermissionServiceClient permissionServiceClient;
+    private final PermissionCache permissionCache;
+    private final AsyncTaskExecutor documentReadExecutor;
+    private final Duration readDeadline;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter documentWriter;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
+    private static final int STREAM_FLUSH_INTERVAL = 64;
+    private static final String DOCUMENT_READ_PERMISSION = "document-read";
 
-    public DocumentController(DocumentService documentService, UserServiceClient userServiceClient, PermissionServiceClient permissionServiceClient) {
+    public DocumentController(DocumentService documentService, UserServiceClient userServiceClient, PermissionCache permissionCache,
+                              @Qualifier("documentReadExecutor") AsyncTaskExecutor documentReadExecutor,
+                              @Value("${document-service.read.deadline:5s}") Duration readDeadline,
+                              ObjectMapper objectMapper,
+                              @Value("${document-service.read.default-page-size:50}") int defaultPageSize,
+                              @Value("${document-service.read.max-page-size:500}") int maxPageSize) {
         this.documentService = documentService;
         this.userServiceClient = userServiceClient;
-        this.permissionServiceClient = permissionServiceClient;
+        this.permissionCache = permissionCache;
+        this.documentReadExecutor = documentReadExecutor;
+        this.readDeadline = readDeadline;
+        this.objectMapper = objectMapper;
+        this.documentWriter = objectMapper.writerFor(Document.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
+    /**
+     * The response carries an ETag of the user's document version. A request whose If-None-Match
+     * holds it gets 304 Not Modified, without the documents being read or serialized. The ETag is
+     * weak: one version is sent as JSON or Smile, compressed or not, and servers do not compress
+     * responses with a strong ETag.
+     */
     @GetMapping("/user/{userId}")
-    public List<Document> getDocumentsByUserId(@PathVariable UUID userId) {
+    public ResponseEntity<List<Document>> getDocumentsByUserId(@PathVariable UUID userId, WebRequest request) {
         log.info("Fetching documents for user: {}", userId);
-        User user = userServiceClient.getUserById(userId);
-        log.info("User found: {} {}. Checking permissions", userId, user.username());
-        List<String> permissions = permissionServiceClient.getPermissionsByUserId(userId);
-        if (permissions == null || !permissions.contains("document-read")) {
-            log.info("User has no permission to fetch documents");
-            throw new InsufficientPrivilegesException("User has no permission to fetch documents");
+        checkReadAccess(userId);
+
+        String eTag = "W/\"" + documentService.getVersion(userId) + '"';
+        if (request.checkNotModified(eTag)) {
+            log.info("Documents of user {} not modified", userId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
         }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(documentService.getDocumentsByUserId(userId));
+    }
+
+    @GetMapping("/user/{userId}/page")
+    public DocumentPage getDocumentPage(@PathVariable UUID userId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
+        int fromIndex = PageCursor.decode(cursor);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        log.info("Fetching page of {} documents for user {} from position {}", pageSize, userId, fromIndex);
+        checkReadAccess(userId);
 
-        return documentService.getDocumentsByUserId(userId);
+        // Fetch one extra document to find out whether there is a next page
+        List<Document> documents = documentService.getDocumentPage(userId, fromIndex, pageSize + 1);
+        if (documents.size() > pageSize) {
+            return new DocumentPage(documents.subList(0, pageSize), PageCursor.encode(fromIndex + pageSize));
+        }
+        return new DocumentPage(documents, null);
+    }
+
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDocumentsByUserId(@PathVariable UUID userId) {
+        log.info("Streaming documents for user: {}", userId);
+        checkReadAccess(userId);
+
+        // Write one document per line as it is read, so memory use does not grow with the number of documents
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                documentService.forEachDocument(userId, document -> {
+                    try {
+                        documentWriter.writeValue(generator, document);
+                        generator.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.info("Streamed {} documents for user {}", written[0], userId);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping("/user/{userId}")
@@ -50,5 +153,57 @@ public class DocumentController {
         documentService.addDocument(userId, document);
         return ResponseEntity.ok().build();
     }
-}
 
+    private void checkReadAccess(UUID userId) {
+        long deadline = System.nanoTime() + readDeadline.toNanos();
+
+        // Look up the user and their permissions at the same time, both bounded by one deadline
+        // Feign retries and hedges inside the lookups stop at the same deadline
+        Future<User> userLookup = submit(() -> RequestDeadline.callWithin(deadline,
+                () -> userServiceClient.getUserById(userId)));
+        Future<Boolean> permissionLookup = submit(() -> RequestDeadline.callWithin(deadline,
+                () -> permissionCache.hasPermission(userId, DOCUMENT_READ_PERMISSION)));
+        try {
+            User user = await(userLookup, deadline);
+            log.info("User found: {} {}. Checking permissions", userId, user.username());
+            if (!await(permissionLookup, deadline)) {
+                log.info("User has no permission to fetch documents");
+                throw new InsufficientPrivilegesException("User has no permission to fetch documents");
+            }
+        } finally {
+            // Cancel whatever is still pending, e.g. when the other lookup failed or the deadline passed
+            userLookup.cancel(true);
+            permissionLookup.cancel(true);
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> lookup) {
+        try {
+            return documentReadExecutor.submit(lookup);
+        } catch (TaskRejectedException e) {
+            log.warn("Document read executor is saturated, rejecting request");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent document reads", e);
+        }
+    }
+
+    private <T> T await(Future<T> lookup, long deadline) {
+        try {
+            return lookup.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Downstream lookups did not complete within {}", readDeadline);
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Downstream lookups timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for downstream lookups", e);
+        } catch (ExecutionException e) {
+            // Rethrow the lookup's own failure, e.g. FeignException.NotFound for an unknown user
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Downstream lookup failed", e.getCause());
+        }
+    }
+}
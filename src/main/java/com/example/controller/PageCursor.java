@@ -0,0 +1,56 @@
+package com.example.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursors of paged listings, Base64-encoded so clients do not build cursors themselves:
+ * - document pages: the position of the first document of the next page
+ * - user pages: the username of the last user of the previous page
+ */
+final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    static String encode(int position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Integer.toString(position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String encodeKey(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The key of the cursor, or null for the first page
+     */
+    static String decodeKey(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    static int decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int position = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (position < 0) {
+                throw new NumberFormatException("Negative position");
+            }
+            return position;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+}
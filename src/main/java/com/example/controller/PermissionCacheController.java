@@ -0,0 +1,24 @@
+package com.example.controller;
+
+import com.example.dto.PermissionChangedEvent;
+import com.example.service.PermissionCache;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/permission-cache")
+@Profile("document-service")
+public class PermissionCacheController {
+    private final PermissionCache permissionCache;
+
+    public PermissionCacheController(PermissionCache permissionCache) {
+        this.permissionCache = permissionCache;
+    }
+
+    @PostMapping("/invalidations")
+    public ResponseEntity<Void> invalidate(@RequestBody PermissionChangedEvent event) {
+        permissionCache.invalidate(event);
+        return ResponseEntity.ok().build();
+    }
+}
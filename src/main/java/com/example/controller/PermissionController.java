@@ -1,17 +1,22 @@
 package com.example.controller;
 
+import com.example.dto.PermissionGrant;
 import com.example.service.PermissionService;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/permissions")
 @Profile("permission-service")
 public class PermissionController {
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final PermissionService permissionService;
 
     public PermissionController(PermissionService permissionService) {
@@ -24,10 +29,31 @@ public class PermissionController {
         return ResponseEntity.ok(permissions);
     }
 
+    @GetMapping("/user/{userId}/has")
+    public ResponseEntity<Boolean> hasPermission(@PathVariable UUID userId, @RequestParam String permission) {
+        return ResponseEntity.ok(permissionService.hasPermission(userId, permission));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Map<UUID, List<String>>> getPermissionsByUserIds(@RequestBody Set<UUID> userIds) {
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(permissionService.getPermissionsByUserIds(userIds));
+    }
+
     @PostMapping("/user/{userId}")
     public ResponseEntity<Void> addPermission(@PathVariable UUID userId, @RequestBody String permission) {
         permissionService.addPermission(userId, permission);
         return ResponseEntity.ok().build();
     }
-}
 
+    @PostMapping("/grants")
+    public ResponseEntity<Void> addPermissions(@RequestBody List<PermissionGrant> grants) {
+        if (grants.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        permissionService.addPermissions(grants);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.controller;
+
+import com.example.client.ReactivePermissionServiceClient;
+import com.example.client.ReactiveUserServiceClient;
+import com.example.dto.Document;
+import com.example.dto.DocumentPage;
+import com.example.exception.InsufficientPrivilegesException;
+import com.example.service.DocumentService;
+import com.example.service.PermissionCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Document endpoints on the reactive stack, active when document-service runs with
+ * spring.main.web-application-type=reactive. Same API as {@link DocumentController}.
+ *
+ * The user and permission lookups are non-blocking calls made at the same time and bounded by one
+ * deadline, so a request waiting on a slow downstream service holds no thread; the event loop
+ * serves other requests meanwhile. Reads and writes of the document store may touch the disk and
+ * run on the bounded elastic scheduler instead of the event loop.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/documents")
+@Profile("document-service")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDocumentController {
+    private final DocumentService documentService;
+    private final ReactiveUserServiceClient userServiceClient;
+    private final ReactivePermissionServiceClient permissionServiceClient;
+    private final PermissionCache permissionCache;
+    private final Duration readDeadline;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    private static final int STREAM_PAGE_SIZE = 64;
+    private static final String DOCUMENT_READ_PERMISSION = "document-read";
+
+    public ReactiveDocumentController(DocumentService documentService,
+                                      ReactiveUserServiceClient userServiceClient,
+                                      ReactivePermissionServiceClient permissionServiceClient,
+                                      PermissionCache permissionCache,
+                                      @Value("${document-service.read.deadline:5s}") Duration readDeadline,
+                                      @Value("${document-service.read.default-page-size:50}") int defaultPageSize,
+                                      @Value("${document-service.read.max-page-size:500}") int maxPageSize) {
+        this.documentService = documentService;
+        this.userServiceClient = userServiceClient;
+        this.permissionServiceClient = permissionServiceClient;
+        this.permissionCache = permissionCache;
+        this.readDeadline = readDeadline;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * The response carries an ETag of the user's document version. A request whose If-None-Match
+     * holds it gets 304 Not Modified, without the documents being read or serialized. The ETag is
+     * weak: one version is sent as JSON or Smile, compressed or not, and servers do not compress
+     * responses with a strong ETag.
+     */
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<List<Document>>> getDocumentsByUserId(@PathVariable UUID userId,
+                                                                     ServerWebExchange exchange) {
+        log.info("Fetching documents for user: {}", userId);
+        return checkReadAccess(userId)
+                .then(Mono.defer(() -> {
+                    String eTag = "W/\"" + documentService.getVersion(userId) + '"';
+                    if (exchange.checkNotModified(eTag)) {
+                        log.info("Documents of user {} not modified", userId);
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(eTag)
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .<List<Document>>build());
+                    }
+                    return fromStore(() -> ResponseEntity.ok()
+                            .eTag(eTag)
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(documentService.getDocumentsByUserId(userId)));
+                }));
+    }
+
+    @GetMapping("/user/{userId}/page")
+    public Mono<DocumentPage> getDocumentPage(@PathVariable UUID userId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit) {
+        int fromIndex = PageCursor.decode(cursor);
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        log.info("Fetching page of {} documents for user {} from position {}", pageSize, userId, fromIndex);
+
+        // Fetch one extra document to find out whether there is a next page
+        return checkReadAccess(userId)
+                .then(fromStore(() -> documentService.getDocumentPage(userId, fromIndex, pageSize + 1)))
+                .map(documents -> documents.size() > pageSize
+                        ? new DocumentPage(documents.subList(0, pageSize), PageCursor.encode(fromIndex + pageSize))
+                        : new DocumentPage(documents, null));
+    }
+
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Document> streamDocumentsByUserId(@PathVariable UUID userId) {
+        log.info("Streaming documents for user: {}", userId);
+
+        // Read the next page only once the client has taken the previous one, so memory use does
+        // not grow with the number of documents
+        return checkReadAccess(userId)
+                .thenMany(readPage(userId, 0)
+                        .expand(page -> page.documents().size() < STREAM_PAGE_SIZE
+                                ? Mono.empty()
+                                : readPage(userId, page.fromIndex() + STREAM_PAGE_SIZE)))
+                .concatMapIterable(StreamPage::documents);
+    }
+
+    @PostMapping("/user/{userId}")
+    public Mono<ResponseEntity<Void>> addDocument(@PathVariable UUID userId, @RequestBody Document document) {
+        return fromStore(() -> {
+            documentService.addDocument(userId, document);
+            return ResponseEntity.ok().<Void>build();
+        });
+    }
+
+    private Mono<Void> checkReadAccess(UUID userId) {
+        // Look up the user and their permissions at the same time, both bounded by one deadline;
+        // when either fails or the deadline passes, the other call is cancelled
+        return Mono.zip(userServiceClient.getUserById(userId),
+                        Mono.defer(() -> permissionCache.hasPermission(userId, DOCUMENT_READ_PERMISSION,
+                                permissionServiceClient::hasPermission)))
+                // A lookup that completes without a value (e.g. an empty response body) leaves nothing to
+                // check; deny instead of letting the empty result skip the check
+                .switchIfEmpty(Mono.error(() -> {
+                    log.info("User or permission lookup returned nothing; denying access to documents");
+                    return new InsufficientPrivilegesException("User has no permission to fetch documents");
+                }))
+                .timeout(readDeadline)
+                .onErrorMap(TimeoutException.class, e -> {
+                    log.warn("Downstream lookups did not complete within {}", readDeadline);
+                    return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Downstream lookups timed out", e);
+                })
+                .flatMap(lookups -> {
+                    log.info("User found: {} {}. Checking permissions", userId, lookups.getT1().username());
+                    if (!lookups.getT2()) {
+                        log.info("User has no permission to fetch documents");
+                        return Mono.error(new InsufficientPrivilegesException("User has no permission to fetch documents"));
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<StreamPage> readPage(UUID userId, int fromIndex) {
+        return fromStore(() -> new StreamPage(fromIndex, documentService.getDocumentPage(userId, fromIndex, STREAM_PAGE_SIZE)));
+    }
+
+    private static <T> Mono<T> fromStore(Callable<T> access) {
+        return Mono.fromCallable(access).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private record StreamPage(int fromIndex, List<Document> documents) {
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.controller;
 
+import com.example.dto.UserPage;
 import com.example.model.User;
 import com.example.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -16,11 +21,18 @@ import java.util.UUID;
 @Profile("user-service")
 public class UserController {
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_BATCH_SIZE = 1000;
 
     private final UserService userService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          @Value("${user-service.default-page-size:50}") int defaultPageSize,
+                          @Value("${user-service.max-page-size:500}") int maxPageSize) {
         this.userService = userService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping
@@ -31,6 +43,41 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/page")
+    public UserPage getUserPage(@RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) Integer limit) {
+        String afterUsername = PageCursor.decodeKey(cursor);
+        int pageSize = pageSize(limit);
+        log.info("Fetching page of {} users after {}", pageSize, afterUsername);
+
+        // Fetch one extra user to find out whether there is a next page
+        List<User> users = userService.getUserPage(afterUsername, pageSize + 1);
+        if (users.size() > pageSize) {
+            List<User> page = users.subList(0, pageSize);
+            return new UserPage(page, PageCursor.encodeKey(page.get(pageSize - 1).username()));
+        }
+        return new UserPage(users, null);
+    }
+
+    @GetMapping("/search")
+    public List<User> searchByUsernamePrefix(@RequestParam String prefix,
+                                             @RequestParam(required = false) Integer limit) {
+        log.info("Searching users by username prefix: {}", prefix);
+        return userService.searchByUsernamePrefix(prefix, pageSize(limit));
+    }
+
+    @GetMapping("/by-username/{username}")
+    public ResponseEntity<User> getUserByUsername(@PathVariable String username) {
+        log.info("Fetching user by username: {}", username);
+        return ResponseEntity.of(userService.getUserByUsername(username));
+    }
+
+    @GetMapping("/by-email")
+    public ResponseEntity<User> getUserByEmail(@RequestParam String email) {
+        log.info("Fetching user by email");
+        return ResponseEntity.of(userService.getUserByEmail(email));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable UUID id) {
         log.info("Fetching user by id: {}", id);
@@ -45,10 +92,30 @@ public class UserController {
                 });
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Map<UUID, User>> getUsersByIds(@RequestBody Set<UUID> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            log.warn("Rejecting batch of {} user ids, limit is {}", ids.size(), MAX_BATCH_SIZE);
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Fetching {} users by id", ids.size());
+        Map<UUID, User> users = userService.getUsersByIds(ids);
+        log.info("Found {} of {} users", users.size(), ids.size());
+        return ResponseEntity.ok(users);
+    }
+
     @PostMapping
-    public User createUser(@RequestBody User user) {
+    public ResponseEntity<User> createUser(@RequestBody User user) {
+        if (user.username() == null || user.username().isBlank() || user.email() == null || user.email().isBlank()) {
+            log.warn("Rejecting user without username or email");
+            return ResponseEntity.badRequest().build();
+        }
         log.info("Creating user: {}", user.username());
-        return userService.createUser(user);
+        return ResponseEntity.ok(userService.createUser(user));
+    }
+
+    private int pageSize(Integer limit) {
+        return limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
     }
 
 }
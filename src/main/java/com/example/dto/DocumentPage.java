@@ -0,0 +1,8 @@
+package com.example.dto;
+
+import java.util.List;
+
+public record DocumentPage(
+    List<Document> documents,
+    String nextCursor) {
+}
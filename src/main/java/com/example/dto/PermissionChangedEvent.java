@@ -0,0 +1,10 @@
+package com.example.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record PermissionChangedEvent(
+    UUID userId,
+    String permission,
+    Instant changedAt) {
+}
@@ -0,0 +1,13 @@
+package com.example.dto;
+
+import java.util.UUID;
+
+/**
+ * A permission granted to a user. The grantId is the idempotency key: permission-service applies a
+ * grant at most once, however often it is delivered.
+ */
+public record PermissionGrant(
+    UUID grantId,
+    UUID userId,
+    String permission) {
+}
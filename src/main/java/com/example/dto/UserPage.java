@@ -0,0 +1,10 @@
+package com.example.dto;
+
+import com.example.model.User;
+
+import java.util.List;
+
+public record UserPage(
+    List<User> users,
+    String nextCursor) {
+}
@@ -9,7 +9,8 @@ import org.slf4j.MDC;
  *
  * This interceptor reads the requestId from the MDC (Mapped Diagnostic Context) and
  * adds it as a header to all outgoing Feign client requests. This enables request
- * tracing across microservices.
+ * tracing across microservices. The W3C traceparent header of the call's span is added
+ * separately, by the Feign observation.
  */
 public class FeignRequestIdInterceptor implements RequestInterceptor {
 
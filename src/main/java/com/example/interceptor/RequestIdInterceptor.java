@@ -3,29 +3,22 @@ package com.example.interceptor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.MDC;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import java.util.UUID;
 
 /**
  * HTTP Interceptor that extracts the requestId from the HTTP header
  * and adds it to the MDC (Mapped Diagnostic Context) for logging.
- * Also adds the appId based on the active Spring profile.
+ * The appId is a static field of every log line, configured in logback-spring.xml.
  */
 @Component
-public class RequestIdInterceptor implements HandlerInterceptor {
+public class RequestIdInterceptor implements AsyncHandlerInterceptor {
 
     private static final String REQUEST_ID_HEADER = "X-Request-ID";
     private static final String REQUEST_ID_MDC_KEY = "requestId";
-    private static final String APP_ID_MDC_KEY = "appId";
-
-    private final String appId;
-
-    public RequestIdInterceptor(@Value("${spring.profiles.active:default}") String activeProfile) {
-        this.appId = activeProfile;
-    }
+    private static final String REQUEST_ID_ATTRIBUTE = RequestIdInterceptor.class.getName() + ".requestId";
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -33,25 +26,30 @@ public class RequestIdInterceptor implements HandlerInterceptor {
         String requestId = request.getHeader(REQUEST_ID_HEADER);
 
         if (requestId == null || requestId.trim().isEmpty()) {
-            requestId = UUID.randomUUID().toString();
+            // Reuse the ID generated by the first dispatch when an async request is dispatched again
+            Object generated = request.getAttribute(REQUEST_ID_ATTRIBUTE);
+            requestId = generated != null ? generated.toString() : UUID.randomUUID().toString();
+            request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
         }
 
         // Add requestId to MDC
         MDC.put(REQUEST_ID_MDC_KEY, requestId);
 
-        // Add appId to MDC
-        MDC.put(APP_ID_MDC_KEY, appId);
-
         // Optionally add requestId to response header for tracing
         response.setHeader(REQUEST_ID_HEADER, requestId);
 
         return true;
     }
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The request continues on another thread (e.g. a streaming response), so release this one
+        MDC.remove(REQUEST_ID_MDC_KEY);
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
         // Clean up MDC after request is complete to prevent memory leaks
-        // Note: We only remove requestId, not appId, as appId should persist across all logs
         MDC.remove(REQUEST_ID_MDC_KEY);
     }
 }
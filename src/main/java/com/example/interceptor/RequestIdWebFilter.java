@@ -0,0 +1,38 @@
+package com.example.interceptor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * WebFlux counterpart of {@link RequestIdInterceptor}.
+ *
+ * A reactive request hops between event-loop threads, so the requestId is not kept in the MDC of
+ * one thread but in the Reactor context of the request. ReactiveWebConfig registers the context
+ * key with the MDC, so log lines written while the request is processed still carry the requestId,
+ * and the reactive clients forward it as the X-Request-ID header.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class RequestIdWebFilter implements WebFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-ID";
+    /** Key of the requestId in both the Reactor context and the MDC */
+    public static final String REQUEST_ID_CONTEXT_KEY = "requestId";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // Get requestId from header, or generate a new one if not present
+        String header = exchange.getRequest().getHeaders().getFirst(REQUEST_ID_HEADER);
+        String requestId = header == null || header.trim().isEmpty() ? UUID.randomUUID().toString() : header;
+
+        exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, requestId);
+
+        return chain.filter(exchange).contextWrite(context -> context.put(REQUEST_ID_CONTEXT_KEY, requestId));
+    }
+}
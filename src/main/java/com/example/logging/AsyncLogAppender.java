@@ -0,0 +1,67 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.util.Duration;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import net.logstash.logback.appender.RingBufferFullException;
+import net.logstash.logback.appender.listener.AppenderListener;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous appender that hands log events to a bounded ring buffer. A single worker thread
+ * encodes them and writes them to the attached appenders, so the logging thread never waits for
+ * the encoder or stdout.
+ *
+ * When the ring buffer is full, the overflow policy decides what happens to a new event:
+ * - drop: the event is discarded and counted (default)
+ * - block: the logging thread waits for free space, so no event is lost
+ *
+ * The queue depth and dropped events are exposed as metrics by {@link AsyncLogAppenderMetrics}.
+ */
+public class AsyncLogAppender extends LoggingEventAsyncDisruptorAppender {
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public AsyncLogAppender() {
+        addListener(new AppenderListener<>() {
+            @Override
+            public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+                if (reason instanceof RingBufferFullException) {
+                    droppedEvents.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * @param overflowPolicy drop or block
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        switch (overflowPolicy.trim().toLowerCase(Locale.ROOT)) {
+            case "drop" -> setAppendTimeout(Duration.buildByMilliseconds(0));
+            // A negative timeout makes the appender wait until the ring buffer has space
+            case "block" -> setAppendTimeout(Duration.buildByMilliseconds(-1));
+            default -> addError("Unknown overflow policy [" + overflowPolicy + "], expected drop or block");
+        }
+    }
+
+    /**
+     * @return Number of events waiting in the ring buffer
+     */
+    public long getQueueDepth() {
+        if (!isStarted()) {
+            return 0;
+        }
+        return getRingBufferSize() - getDisruptor().getRingBuffer().remainingCapacity();
+    }
+
+    /**
+     * @return Number of events dropped because the ring buffer was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Registers the ring buffer metrics of every {@link AsyncLogAppender} attached to a logger:
+ * - logging.async.queue.depth: events waiting to be written
+ * - logging.async.queue.capacity: ring buffer size
+ * - logging.async.dropped: events dropped because the ring buffer was full
+ */
+@Component
+public class AsyncLogAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AsyncLogAppender appender : findAppenders()) {
+            Gauge.builder("logging.async.queue.depth", appender, AsyncLogAppender::getQueueDepth)
+                    .tag("appender", appender.getName())
+                    .description("Log events waiting to be written")
+                    .register(registry);
+            Gauge.builder("logging.async.queue.capacity", appender, AsyncLogAppender::getRingBufferSize)
+                    .tag("appender", appender.getName())
+                    .description("Size of the log event ring buffer")
+                    .register(registry);
+            FunctionCounter.builder("logging.async.dropped", appender, AsyncLogAppender::getDroppedEvents)
+                    .tag("appender", appender.getName())
+                    .description("Log events dropped because the ring buffer was full")
+                    .register(registry);
+        }
+    }
+
+    private static Set<AsyncLogAppender> findAppenders() {
+        Set<AsyncLogAppender> appenders = new LinkedHashSet<>();
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return appenders;
+        }
+        for (Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> iterator = logger.iteratorForAppenders();
+            while (iterator.hasNext()) {
+                if (iterator.next() instanceof AsyncLogAppender appender) {
+                    appenders.add(appender);
+                }
+            }
+        }
+        return appenders;
+    }
+}
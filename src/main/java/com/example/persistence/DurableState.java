@@ -0,0 +1,257 @@
+package com.example.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshots and write-ahead log of one {@link PersistentState}, in a directory of its own.
+ *
+ * A snapshot is named after the first log segment it does not cover. Taking one rolls the log to a
+ * new segment S, then writes the state out while it keeps changing. Changes are applied in memory
+ * before they are journaled, so everything in the segments before S is in the snapshot and they are
+ * deleted; changes made while the snapshot is written are in segment S, and some also in the snapshot.
+ *
+ * Recovery maps the newest valid snapshot and applies its records, then replays the log from its segment.
+ *
+ * Snapshot layout:
+ * <pre>
+ * header: int magic, int first log segment not covered
+ * record: int length, record
+ * trailer: long record count, int CRC32 of everything before it
+ * </pre>
+ */
+@Slf4j
+final class DurableState implements Journal, Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int SNAPSHOT_HEADER_SIZE = 8;
+    private static final int SNAPSHOT_TRAILER_SIZE = 12;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final String name;
+    private final Path directory;
+    private final PersistentState state;
+    private final WriteAheadLog wal;
+    private final Object snapshotLock = new Object();
+    private volatile boolean changedSinceSnapshot;
+
+    DurableState(String name, Path directory, PersistentState state) throws IOException {
+        this.name = name;
+        this.directory = directory;
+        this.state = state;
+        Files.createDirectories(directory);
+
+        long started = System.nanoTime();
+        try (DirectoryStream<Path> unfinished = Files.newDirectoryStream(directory, "*" + TMP_SUFFIX)) {
+            for (Path tmp : unfinished) {
+                Files.delete(tmp);
+            }
+        }
+        Snapshot snapshot = loadNewestSnapshot();
+        int fromSegment = snapshot == null ? 0 : snapshot.firstSegment;
+        long[] replayed = new long[1];
+        int nextSegment = WriteAheadLog.replay(directory, fromSegment, record -> {
+            state.apply(record);
+            replayed[0]++;
+        });
+        this.wal = new WriteAheadLog(directory, nextSegment, name);
+        log.info("Recovered {} from {} snapshot records and {} log records in {} ms", name,
+                snapshot == null ? 0 : snapshot.records, replayed[0],
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        changedSinceSnapshot = replayed[0] > 0;
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAsync(ByteBuffer record) {
+        changedSinceSnapshot = true;
+        return wal.append(record);
+    }
+
+    /**
+     * Write a snapshot if the state changed since the last one, and delete what it replaces.
+     */
+    void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            if (!changedSinceSnapshot) {
+                return;
+            }
+            changedSinceSnapshot = false;
+            long started = System.nanoTime();
+            int firstSegment = wal.roll();
+            Path target = snapshotPath(firstSegment);
+            Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+            long records;
+            try (SnapshotWriter writer = new SnapshotWriter(tmp, firstSegment)) {
+                state.writeSnapshot(writer);
+                records = writer.finish();
+            } catch (IOException | RuntimeException e) {
+                changedSinceSnapshot = true;
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // What the snapshot replaces is only deleted once the rename survives a crash
+            WriteAheadLog.syncDirectory(directory);
+
+            for (Path older : list(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX).headMap(firstSegment).values()) {
+                Files.delete(older);
+            }
+            wal.deleteSegmentsBefore(firstSegment);
+            log.info("Wrote snapshot of {} with {} records in {} ms", name, records,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * Stop journaling, after a final snapshot if requested.
+     */
+    void close(boolean snapshot) throws IOException {
+        try {
+            if (snapshot) {
+                snapshot();
+            }
+        } finally {
+            wal.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(false);
+    }
+
+    private Snapshot loadNewestSnapshot() throws IOException {
+        for (var entry : list(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX).descendingMap().entrySet()) {
+            try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshots larger than 2 GB cannot be memory-mapped: " + entry.getValue());
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (!isValid(buffer)) {
+                    log.warn("Ignoring invalid snapshot {}", entry.getValue());
+                    continue;
+                }
+                long records = buffer.getLong(buffer.capacity() - SNAPSHOT_TRAILER_SIZE);
+                int offset = SNAPSHOT_HEADER_SIZE;
+                for (long i = 0; i < records; i++) {
+                    int length = buffer.getInt(offset);
+                    state.apply(buffer.slice(offset + 4, length));
+                    offset += 4 + length;
+                }
+                return new Snapshot(buffer.getInt(4), records);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isValid(MappedByteBuffer buffer) {
+        int size = buffer.capacity();
+        if (size < SNAPSHOT_HEADER_SIZE + SNAPSHOT_TRAILER_SIZE || buffer.getInt(0) != SNAPSHOT_MAGIC) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, size - 4));
+        return (int) crc.getValue() == buffer.getInt(size - 4);
+    }
+
+    private Path snapshotPath(int firstSegment) {
+        return directory.resolve(String.format("%s%010d%s", SNAPSHOT_PREFIX, firstSegment, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * Files matching the glob, by the number in their name.
+     */
+    private static TreeMap<Integer, Path> list(Path directory, String glob) throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                String digits = path.getFileName().toString().replaceAll("\\D", "");
+                files.put(digits.isEmpty() ? -1 : Integer.parseInt(digits), path);
+            }
+        }
+        return files;
+    }
+
+    private record Snapshot(int firstSegment, long records) {
+    }
+
+    /**
+     * Writes records through a direct buffer, computing the checksum on the way.
+     */
+    private static final class SnapshotWriter implements PersistentState.RecordSink, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private long records;
+
+        SnapshotWriter(Path path, int firstSegment) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(firstSegment);
+        }
+
+        @Override
+        public void add(ByteBuffer record) throws IOException {
+            int length = record.remaining();
+            if (buffer.remaining() < 4 + length) {
+                flush();
+            }
+            buffer.putInt(length);
+            if (length <= buffer.remaining()) {
+                buffer.put(record.duplicate());
+            } else {
+                // Larger than the buffer
+                flush();
+                crc.update(record.duplicate());
+                write(record.duplicate());
+            }
+            records++;
+        }
+
+        long finish() throws IOException {
+            if (buffer.remaining() < SNAPSHOT_TRAILER_SIZE) {
+                flush();
+            }
+            buffer.putLong(records);
+            flush();
+            write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+            channel.force(true);
+            return records;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.persistence;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Write-ahead log of one {@link PersistentState}, as returned by {@link StatePersistence#open}.
+ *
+ * Records appended by concurrent callers are written and flushed to disk together (group commit), so
+ * durability costs one fsync per batch instead of one per change.
+ */
+public interface Journal {
+
+    /**
+     * A journal that keeps nothing, for state that is not persisted.
+     */
+    Journal NONE = record -> CompletableFuture.completedFuture(null);
+
+    /**
+     * Append a record.
+     *
+     * @return Completes once the record is on disk
+     */
+    CompletableFuture<Void> appendAsync(ByteBuffer record);
+
+    /**
+     * Append a record and wait until it is on disk.
+     *
+     * @throws UncheckedIOException if the record could not be written
+     */
+    default void append(ByteBuffer record) {
+        await(appendAsync(record));
+    }
+
+    /**
+     * Append several records and wait until all of them are on disk; they are usually committed together.
+     *
+     * @throws UncheckedIOException if a record could not be written
+     */
+    default void appendAll(List<ByteBuffer> records) {
+        await(CompletableFuture.allOf(records.stream().map(this::appendAsync).toArray(CompletableFuture[]::new)));
+    }
+
+    private static void await(CompletableFuture<Void> appended) {
+        try {
+            appended.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Persistence of the users of user-service and the permissions of permission-service, see {@link StatePersistence}.
+ *
+ * @param enabled Whether state is kept on disk; otherwise it is lost on restart
+ * @param path Root directory; each state gets a directory of its own in it
+ * @param snapshotInterval How often a changed state is written to a new snapshot, bounding the log replayed on startup
+ * @param snapshotOnShutdown Whether a snapshot is written on shutdown, so that the next startup replays no log
+ */
+@ConfigurationProperties("persistence")
+public record PersistenceProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/state") Path path,
+        @DefaultValue("5m") Duration snapshotInterval,
+        @DefaultValue("true") boolean snapshotOnShutdown) {
+}
@@ -0,0 +1,31 @@
+package com.example.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * In-memory state kept durable by {@link StatePersistence}: its changes are written to a {@link Journal}
+ * and it can be written out whole as a snapshot.
+ *
+ * Both the journal and the snapshot are sequences of records in a format of the state's choosing. A
+ * snapshot is taken while the state keeps changing, so on recovery a change can be applied both from
+ * the snapshot and from the log: applying a record must be idempotent.
+ */
+public interface PersistentState {
+
+    /**
+     * Apply a record read back from a snapshot or from the journal, without journaling it again.
+     *
+     * @param record The record, positioned at its first byte; valid only during the call
+     */
+    void apply(ByteBuffer record);
+
+    /**
+     * Write records that rebuild the whole current state when applied to an empty state.
+     */
+    void writeSnapshot(RecordSink sink) throws IOException;
+
+    interface RecordSink {
+        void add(ByteBuffer record) throws IOException;
+    }
+}
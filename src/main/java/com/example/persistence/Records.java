@@ -0,0 +1,47 @@
+package com.example.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Encoding of the journal and snapshot records of the services: a UUID followed by strings, each an
+ * int length (-1 for null) and UTF-8 bytes.
+ */
+public final class Records {
+
+    private Records() {
+    }
+
+    public static ByteBuffer encode(UUID id, String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int size = 16;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            size += 4 + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        for (byte[] field : encoded) {
+            buffer.putInt(field == null ? -1 : field.length);
+            if (field != null) {
+                buffer.put(field);
+            }
+        }
+        return buffer.flip();
+    }
+
+    public static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-memory state of the services on disk: every change goes to a group-committed write-ahead
+ * log, and the whole state is written to a snapshot periodically and on shutdown, after which the log
+ * it covers is deleted. On startup the state is rebuilt from the newest snapshot, read through a
+ * memory mapping, and the log written after it.
+ *
+ * Each state has a directory of its own under the root directory, named after the state.
+ */
+@Slf4j
+public class StatePersistence implements Closeable {
+    private final Path directory;
+    private final boolean snapshotOnClose;
+    private final ScheduledExecutorService snapshots;
+    private final List<DurableState> states = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param directory Root directory of the states
+     * @param snapshotInterval How often states changed since their last snapshot get a new one
+     * @param snapshotOnClose Whether {@link #close()} snapshots every changed state, so the next startup replays no log
+     */
+    public StatePersistence(Path directory, Duration snapshotInterval, boolean snapshotOnClose) {
+        this.directory = directory;
+        this.snapshotOnClose = snapshotOnClose;
+        this.snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "state-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private StatePersistence() {
+        this.directory = null;
+        this.snapshotOnClose = false;
+        this.snapshots = null;
+    }
+
+    /**
+     * @return Persistence that keeps nothing: states start empty and their journals discard every record
+     */
+    public static StatePersistence inMemory() {
+        return new StatePersistence();
+    }
+
+    /**
+     * Rebuild a state from its snapshot and log, and start journaling its changes.
+     *
+     * @param name Name of the state, and of its directory
+     * @param state Empty state to rebuild
+     * @return Journal for the changes of the state
+     * @throws UncheckedIOException if the state cannot be read or its log cannot be opened
+     */
+    public Journal open(String name, PersistentState state) {
+        if (directory == null) {
+            return Journal.NONE;
+        }
+        try {
+            DurableState durable = new DurableState(name, directory.resolve(name), state);
+            states.add(durable);
+            return durable;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open persistent state " + name + " in " + directory, e);
+        }
+    }
+
+    /**
+     * Snapshot every state changed since its last snapshot.
+     */
+    public void snapshot() throws IOException {
+        for (DurableState state : states) {
+            state.snapshot();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.warn("State snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshots == null) {
+            return;
+        }
+        snapshots.shutdownNow();
+        IOException failure = null;
+        for (DurableState state : states) {
+            try {
+                state.close(snapshotOnClose);
+            } catch (IOException e) {
+                log.warn("Failed to close persistent state: {}", e.getMessage());
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records in numbered segment files, written with group commit.
+ *
+ * Appending only queues the record. A single committer thread takes every record queued so far, writes
+ * them with one gathering write and flushes the segment once, then completes the appends; records
+ * queued meanwhile form the next batch. Under load, batches grow and fsyncs per record shrink.
+ *
+ * {@link #roll()} starts a new segment, so that segments before it can be deleted once a snapshot
+ * covers them.
+ *
+ * A batch that fails to commit may have been written in part. Its bytes are cut off again, or the log
+ * moves on to a new segment if that fails too, before the next batch is written: replay stops at the
+ * first torn record of a segment and would drop every record after it.
+ *
+ * Segment layout:
+ * <pre>
+ * header: int magic
+ * record: int payload length, int CRC32 of payload, payload
+ * </pre>
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+    private static final int SEGMENT_MAGIC = 0x57414C31;
+    private static final int SEGMENT_HEADER_SIZE = 4;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path directory;
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition queued = queueLock.newCondition();
+    // Held by the committer while it writes a batch, and by roll
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private final Thread committer;
+    private List<Append> queue = new ArrayList<>();
+    private boolean closed;
+    private FileChannel channel;
+    private int segment;
+    private long segmentSize;
+
+    /**
+     * Open the log, writing to a new segment.
+     *
+     * @param segment ID of the new segment; must be above the IDs of the existing segments
+     */
+    WriteAheadLog(Path directory, int segment, String name) throws IOException {
+        this.directory = directory;
+        openSegment(segment);
+        this.committer = new Thread(this::commitLoop, name + "-wal");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    CompletableFuture<Void> append(ByteBuffer payload) {
+        int length = payload.remaining();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(length).putInt((int) crc.getValue()).flip();
+        Append append = new Append(header, payload.duplicate(), new CompletableFuture<>());
+        queueLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log in " + directory + " is closed");
+            }
+            queue.add(append);
+            queued.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        return append.done;
+    }
+
+    /**
+     * Start a new segment. Records appended after this call returns go to the new segment or a later one.
+     *
+     * @return ID of the new segment
+     */
+    int roll() throws IOException {
+        segmentLock.lock();
+        try {
+            closeSegment();
+            openSegment(segment + 1);
+            return segment;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * @return Whether the current segment holds any record
+     */
+    boolean hasRecordsInSegment() {
+        segmentLock.lock();
+        try {
+            return segmentSize > SEGMENT_HEADER_SIZE;
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Delete the segments before the given one.
+     */
+    void deleteSegmentsBefore(int segment) throws IOException {
+        for (Integer id : segments(directory).headMap(segment).keySet()) {
+            Files.deleteIfExists(segmentPath(directory, id));
+        }
+    }
+
+    /**
+     * Commit the records already appended, then stop. An empty current segment is deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        queueLock.lock();
+        try {
+            closed = true;
+            queued.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segmentLock.lock();
+        try {
+            closeSegment();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            List<Append> batch;
+            queueLock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    queued.awaitUninterruptibly();
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+            } finally {
+                queueLock.unlock();
+            }
+            commit(batch);
+        }
+    }
+
+    private void commit(List<Append> batch) {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size() * 2];
+        long bytes = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Append append = batch.get(i);
+            buffers[2 * i] = append.header;
+            buffers[2 * i + 1] = append.payload;
+            bytes += append.header.remaining() + append.payload.remaining();
+        }
+        segmentLock.lock();
+        try {
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(buffers);
+            }
+            channel.force(false);
+            segmentSize += bytes;
+            batch.forEach(append -> append.done.complete(null));
+        } catch (IOException e) {
+            log.error("Failed to commit {} records to the write-ahead log in {}: {}", batch.size(), directory, e.getMessage());
+            discardUncommitted();
+            UncheckedIOException failure = new UncheckedIOException("Failed to write to the write-ahead log", e);
+            batch.forEach(append -> append.done.completeExceptionally(failure));
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * Cut off whatever a failed batch left after the last committed record, or start a new segment if
+     * the current one cannot be cut.
+     */
+    private void discardUncommitted() {
+        try {
+            channel.truncate(segmentSize);
+            channel.position(segmentSize);
+            channel.force(false);
+            return;
+        } catch (IOException e) {
+            log.error("Failed to cut off the failed batch in write-ahead log segment {} in {}, starting a new segment: {}",
+                    segment, directory, e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The segment is given up either way; replay cuts off its torn tail
+        }
+        try {
+            openSegment(segment + 1);
+        } catch (IOException e) {
+            // The closed channel fails the next batch, which tries again
+            log.error("Failed to start write-ahead log segment {} in {}: {}", segment + 1, directory, e.getMessage());
+        }
+    }
+
+    private void openSegment(int id) throws IOException {
+        Path path = segmentPath(directory, id);
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            opened.write(ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(SEGMENT_MAGIC).flip());
+            opened.force(true);
+            // The new file only survives a crash once its directory entry is flushed as well
+            syncDirectory(directory);
+        } catch (IOException e) {
+            opened.close();
+            // Holds no record; deleted so that the segment can be created again
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        this.channel = opened;
+        this.segment = id;
+        this.segmentSize = SEGMENT_HEADER_SIZE;
+    }
+
+    /**
+     * Flush a directory, so that files created, renamed or deleted in it survive a crash. Skipped on
+     * Windows, where a directory cannot be opened to be flushed.
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        channel.force(true);
+        channel.close();
+        if (segmentSize == SEGMENT_HEADER_SIZE) {
+            Files.deleteIfExists(segmentPath(directory, segment));
+        }
+    }
+
+    /**
+     * Apply the records of the segments from the given one on, in order. A torn or corrupt record ends
+     * its segment, e.g. after a crash in the middle of a write; the rest of that segment is cut off.
+     * A segment shorter than its header was being created when the log stopped and holds no record.
+     *
+     * @return ID for the next new segment
+     * @throws IOException if a segment has a header that is not that of a write-ahead log segment
+     */
+    static int replay(Path directory, int fromSegment, Consumer<ByteBuffer> apply) throws IOException {
+        TreeMap<Integer, Path> segments = segments(directory);
+        for (var entry : segments.tailMap(fromSegment).entrySet()) {
+            long records = 0;
+            try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Write-ahead log segment larger than 2 GB: " + entry.getValue());
+                }
+                if (size < SEGMENT_HEADER_SIZE) {
+                    log.warn("Ignoring write-ahead log segment {} without a complete header ({} bytes)", entry.getValue(), size);
+                    continue;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt(0) != SEGMENT_MAGIC) {
+                    // Not a torn write: cutting it off would drop every record in it
+                    throw new IOException("Not a write-ahead log segment, or its header is corrupt: " + entry.getValue());
+                }
+                int offset = SEGMENT_HEADER_SIZE;
+                CRC32 crc = new CRC32();
+                while (offset + RECORD_HEADER_SIZE <= size) {
+                    int length = buffer.getInt(offset);
+                    if (length < 0 || offset + RECORD_HEADER_SIZE + (long) length > size) {
+                        break;
+                    }
+                    ByteBuffer payload = buffer.slice(offset + RECORD_HEADER_SIZE, length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                        break;
+                    }
+                    apply.accept(payload);
+                    records++;
+                    offset += RECORD_HEADER_SIZE + length;
+                }
+                if (offset < size) {
+                    log.warn("Truncating torn tail of write-ahead log segment {} at offset {} ({} bytes)",
+                            entry.getValue(), offset, size - offset);
+                    channel.truncate(offset);
+                    channel.force(true);
+                }
+            }
+            log.debug("Replayed {} records from {}", records, entry.getValue());
+        }
+        return Math.max(fromSegment, segments.isEmpty() ? 0 : segments.lastKey() + 1);
+    }
+
+    private static TreeMap<Integer, Path> segments(Path directory) throws IOException {
+        TreeMap<Integer, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.put(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+            }
+        }
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, int id) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private record Append(ByteBuffer header, ByteBuffer payload, CompletableFuture<Void> done) {
+    }
+}
@@ -1,28 +1,65 @@
 package com.example.service;
 
 import com.example.dto.Document;
+import com.example.storage.DocumentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 @Service
 @Profile("document-service")
 public class DocumentService {
-    private final ConcurrentHashMap<UUID, List<Document>> userDocuments = new ConcurrentHashMap<>();
+    private final DocumentStore documentStore;
+    // Documents added per user since this instance started; users without an entry have had none
+    private final ConcurrentHashMap<UUID, Long> versions = new ConcurrentHashMap<>();
+    // Tells the versions of this instance apart from those of other instances and earlier runs
+    private final String instanceTag = Long.toHexString(ThreadLocalRandom.current().nextLong());
 
-    public DocumentService() {
-        // Initialize with some sample data
-        // Note: In a real application, you'd want to use actual user IDs
+    public DocumentService(DocumentStore documentStore, MeterRegistry meterRegistry) {
+        this.documentStore = documentStore;
+
+        Gauge.builder("documents.stored", documentStore, DocumentStore::documentCount)
+                .description("Documents held by the document store")
+                .register(meterRegistry);
+        Gauge.builder("documents.users", documentStore, DocumentStore::userCount)
+                .description("Users with at least one document")
+                .register(meterRegistry);
     }
 
     public List<Document> getDocumentsByUserId(UUID userId) {
-        return userDocuments.getOrDefault(userId, Collections.emptyList());
+        return documentStore.findByUserId(userId);
+    }
+
+    public List<Document> getDocumentPage(UUID userId, int fromIndex, int limit) {
+        return documentStore.findPageByUserId(userId, fromIndex, limit);
+    }
+
+    public void forEachDocument(UUID userId, Consumer<Document> consumer) {
+        documentStore.forEachByUserId(userId, consumer);
     }
 
     public void addDocument(UUID userId, Document document) {
-        userDocuments.computeIfAbsent(userId, k -> new ArrayList<>()).add(document);
+        documentStore.append(userId, document);
+        // After the append: whoever reads the new version also reads the new document
+        versions.merge(userId, 1L, Long::sum);
     }
-}
 
+    /**
+     * Get the version of a user's documents, which changes whenever a document is added.
+     *
+     * Read the version before the documents it is sent with: a document added in between then
+     * shows up under an older version, and the next comparison with the current version fails.
+     *
+     * @param userId The user ID
+     * @return Version, unique to this instance of the service
+     */
+    public String getVersion(UUID userId) {
+        return instanceTag + "-" + versions.getOrDefault(userId, 0L);
+    }
+}
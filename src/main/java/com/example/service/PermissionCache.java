@@ -0,0 +1,119 @@
+package com.example.service;
+
+import com.example.client.PermissionServiceClient;
+import com.example.dto.PermissionChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded per-user cache of permission decisions made by permission-service.
+ *
+ * Each user's entry holds the answers to the permission checks made so far for that user,
+ * fetched one check at a time with PermissionServiceClient.hasPermission; with client batching
+ * enabled, the checks of concurrent misses are sent to permission-service together. Entries expire after
+ * a TTL and are evicted by size, but permission-service also pushes a {@link PermissionChangedEvent}
+ * whenever a grant changes, so entries are normally dropped long before the TTL.
+ *
+ * Decision hits and misses are counted in "permission.cache.decisions" (result=hit|miss), the
+ * per-user entries are published as "cache.*" metrics with cache=permissions, and the delay between
+ * a change and its invalidation is recorded in the "permission.cache.invalidation.lag" timer.
+ */
+@Slf4j
+@Service
+@Profile("document-service")
+public class PermissionCache {
+    private final PermissionServiceClient permissionServiceClient;
+    private final Cache<UUID, Map<String, Boolean>> decisions;
+    private final Counter decisionHits;
+    private final Counter decisionMisses;
+    private final Timer invalidationLag;
+
+    public PermissionCache(PermissionServiceClient permissionServiceClient,
+                           MeterRegistry meterRegistry,
+                           @Value("${document-service.permission-cache.ttl:60s}") Duration ttl,
+                           @Value("${document-service.permission-cache.max-size:10000}") long maxSize) {
+        this.permissionServiceClient = permissionServiceClient;
+        this.decisions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, decisions, "permissions");
+        this.decisionHits = Counter.builder("permission.cache.decisions")
+                .description("Permission checks answered by the cache or by permission-service")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.decisionMisses = Counter.builder("permission.cache.decisions")
+                .description("Permission checks answered by the cache or by permission-service")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("permission.cache.invalidation.lag")
+                .description("Time between a permission change and the invalidation of the cached entry")
+                .register(meterRegistry);
+    }
+
+    public boolean hasPermission(UUID userId, String permission) {
+        Map<String, Boolean> userDecisions = decisions.get(userId, k -> new ConcurrentHashMap<>());
+        Boolean decision = userDecisions.get(permission);
+        if (decision != null) {
+            decisionHits.increment();
+            return decision;
+        }
+        decisionMisses.increment();
+        // Asked outside the map, so the remote call holds no lock; concurrent misses for the same
+        // decision each ask, and the first answer is kept. If the entry is invalidated while this check
+        // is in flight, the answer lands in the dropped map and is never served
+        boolean answer = permissionServiceClient.hasPermission(userId, permission);
+        Boolean cached = userDecisions.putIfAbsent(permission, answer);
+        return cached != null ? cached : answer;
+    }
+
+    /**
+     * Non-blocking variant of {@link #hasPermission(UUID, String)} for the reactive read path.
+     * Concurrent misses for the same decision each call the lookup; the first answer is cached.
+     *
+     * @param userId The user ID
+     * @param permission The permission to check
+     * @param lookup Asks permission-service for a decision the cache does not have
+     * @return true if the user has the permission
+     */
+    public Mono<Boolean> hasPermission(UUID userId, String permission, BiFunction<UUID, String, Mono<Boolean>> lookup) {
+        Map<String, Boolean> userDecisions = decisions.get(userId, k -> new ConcurrentHashMap<>());
+        Boolean decision = userDecisions.get(permission);
+        if (decision != null) {
+            decisionHits.increment();
+            return Mono.just(decision);
+        }
+        decisionMisses.increment();
+        // As above, an answer to an invalidated entry lands in the dropped map
+        return lookup.apply(userId, permission)
+                .map(answer -> userDecisions.merge(permission, answer, (cached, ignored) -> cached));
+    }
+
+    public void invalidate(PermissionChangedEvent event) {
+        decisions.invalidate(event.userId());
+        if (event.changedAt() != null) {
+            Duration lag = Duration.between(event.changedAt(), Instant.now());
+            if (!lag.isNegative()) {
+                invalidationLag.record(lag);
+            }
+        }
+        log.info("Permission cache invalidated for user {}", event.userId());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.service;
+
+import com.example.client.DocumentServiceClient;
+import com.example.dto.PermissionChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes permission changes to document-service so its permission cache drops stale entries.
+ *
+ * Notifications are sent in the background; a failed notification is only logged, because
+ * the cache TTL in document-service bounds how long a missed invalidation can be served.
+ */
+@Slf4j
+@Component
+@Profile("permission-service")
+public class PermissionChangeNotifier {
+    private final DocumentServiceClient documentServiceClient;
+    private final TaskExecutor permissionChangeExecutor;
+
+    public PermissionChangeNotifier(DocumentServiceClient documentServiceClient,
+                                    @Qualifier("permissionChangeExecutor") TaskExecutor permissionChangeExecutor) {
+        this.documentServiceClient = documentServiceClient;
+        this.permissionChangeExecutor = permissionChangeExecutor;
+    }
+
+    @EventListener
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        try {
+            permissionChangeExecutor.execute(() -> {
+                try {
+                    documentServiceClient.invalidatePermissions(event);
+                } catch (Exception e) {
+                    log.warn("Failed to notify document-service about permission change for user {}: {}",
+                            event.userId(), e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Dropping permission change notification for user {}, notification queue is full", event.userId());
+        }
+    }
+}
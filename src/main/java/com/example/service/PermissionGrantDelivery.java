@@ -0,0 +1,180 @@
+package com.example.service;
+
+import com.example.client.PermissionServiceClient;
+import com.example.dto.PermissionGrant;
+import feign.FeignException;
+import feign.codec.EncodeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the grants of the {@link PermissionGrantOutbox} to permission-service in batches, from a
+ * single background thread.
+ *
+ * Each run sends batches until the outbox is empty, then the next run starts after the interval.
+ * A batch that fails is kept and sent again, unchanged and ahead of newer grants, after a backoff
+ * that doubles with every failure up to maxBackoff. A batch may so reach permission-service more
+ * than once; the grant IDs make the retries idempotent.
+ *
+ * A batch that permission-service rejects as invalid (a 4xx status other than 408 and 429), or that
+ * cannot be encoded, would fail the same way on every retry and hold up every grant behind it. It is
+ * split in halves that are sent on their own instead, so a single bad grant ends up alone; that grant
+ * is dead-lettered: logged and counted in permissions.outbox.dead-lettered, then dropped.
+ *
+ * Delivered and dead-lettered grants are acknowledged to the outbox. Grants not acknowledged when
+ * user-service stops are delivered after the restart if persistence is enabled (see {@link UserService}),
+ * and lost otherwise.
+ */
+@Slf4j
+@Component
+@Profile("user-service")
+public class PermissionGrantDelivery implements DisposableBean {
+    private final PermissionGrantOutbox outbox;
+    private final PermissionServiceClient permissionServiceClient;
+    private final PermissionOutboxProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final Counter delivered;
+    private final Counter failures;
+    private final Counter deadLettered;
+
+    // Batches drained from the outbox but not yet delivered, oldest first; only touched by the scheduler thread
+    private final Deque<List<PermissionGrant>> unsent = new ArrayDeque<>();
+    // Grants in unsent; volatile for the pending gauge
+    private volatile int unsentCount;
+    private Duration backoff;
+
+    public PermissionGrantDelivery(PermissionGrantOutbox outbox, PermissionServiceClient permissionServiceClient,
+                                   PermissionOutboxProperties properties, MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.permissionServiceClient = permissionServiceClient;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "permission-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("permissions.outbox.pending", this, PermissionGrantDelivery::pending)
+                .description("Permission grants not yet delivered to permission-service")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("permissions.outbox.delivered")
+                .description("Permission grants delivered to permission-service")
+                .register(meterRegistry);
+        this.failures = Counter.builder("permissions.outbox.failures")
+                .description("Failed deliveries of a batch of permission grants")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("permissions.outbox.dead-lettered")
+                .description("Permission grants rejected by permission-service and dropped")
+                .register(meterRegistry);
+
+        schedule(properties.interval());
+    }
+
+    private int pending() {
+        return outbox.size() + unsentCount;
+    }
+
+    private void deliver() {
+        Duration delay = properties.interval();
+        try {
+            while (true) {
+                if (unsent.isEmpty()) {
+                    List<PermissionGrant> batch = outbox.drain(properties.batchSize());
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    unsent.add(batch);
+                    unsentCount += batch.size();
+                }
+                List<PermissionGrant> batch = unsent.peekFirst();
+                try {
+                    permissionServiceClient.addPermissions(batch);
+                } catch (RuntimeException e) {
+                    if (!isRejection(e)) {
+                        throw e;
+                    }
+                    reject(e);
+                    continue;
+                }
+                unsent.removeFirst();
+                unsentCount -= batch.size();
+                delivered.increment(batch.size());
+                backoff = null;
+                outbox.acknowledge(batch);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            backoff = backoff == null ? properties.initialBackoff() : min(backoff.multipliedBy(2), properties.maxBackoff());
+            delay = backoff;
+            log.warn("Failed to deliver {} permission grants, retrying in {}: {}", unsentCount, backoff, e.getMessage());
+        } finally {
+            schedule(delay);
+        }
+    }
+
+    /**
+     * Split the rejected oldest batch in halves, sent next and in order, or dead-letter it if it is a single grant.
+     */
+    private void reject(RuntimeException rejection) {
+        List<PermissionGrant> batch = unsent.removeFirst();
+        if (batch.size() > 1) {
+            log.warn("permission-service rejected {} permission grants, sending them in halves: {}", batch.size(),
+                    rejection.getMessage());
+            int half = batch.size() / 2;
+            unsent.addFirst(batch.subList(half, batch.size()));
+            unsent.addFirst(batch.subList(0, half));
+            return;
+        }
+        unsentCount -= batch.size();
+        deadLettered.increment(batch.size());
+        log.error("permission-service rejected permission grant {}, dropping it: {}", batch.get(0), rejection.getMessage());
+        outbox.acknowledge(batch);
+    }
+
+    /**
+     * @return true if sending the same grants again would fail the same way
+     */
+    private static boolean isRejection(RuntimeException e) {
+        if (e instanceof EncodeException) {
+            return true;
+        }
+        return e instanceof FeignException feignException
+                && feignException.status() >= 400 && feignException.status() < 500
+                && feignException.status() != 408 && feignException.status() != 429;
+    }
+
+    private void schedule(Duration delay) {
+        try {
+            scheduler.schedule(this::deliver, delay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        int pending = pending();
+        if (pending > 0) {
+            log.warn("Stopping with {} permission grants not delivered", pending);
+        }
+    }
+}
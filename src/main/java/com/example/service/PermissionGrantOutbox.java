@@ -0,0 +1,70 @@
+package com.example.service;
+
+import com.example.dto.PermissionGrant;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Permission grants of user-service waiting to be sent to permission-service, in the order they were
+ * made. Adding a grant is a lock-free, in-memory write; {@link PermissionGrantDelivery} drains the
+ * outbox in batches in the background and acknowledges the grants it is done with, so the owner of
+ * the grants can stop keeping them for redelivery.
+ */
+@Component
+@Profile("user-service")
+public class PermissionGrantOutbox {
+    private final ConcurrentLinkedQueue<PermissionGrant> pending = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger size = new AtomicInteger();
+    private final List<Consumer<List<PermissionGrant>>> acknowledgementListeners = new CopyOnWriteArrayList<>();
+
+    public void add(PermissionGrant grant) {
+        pending.add(grant);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Remove the oldest grants.
+     *
+     * @param max Largest number of grants removed
+     * @return The removed grants, oldest first; empty when there are none
+     */
+    public List<PermissionGrant> drain(int max) {
+        List<PermissionGrant> grants = new ArrayList<>(Math.min(max, size.get()));
+        PermissionGrant grant;
+        while (grants.size() < max && (grant = pending.poll()) != null) {
+            grants.add(grant);
+            size.decrementAndGet();
+        }
+        return grants;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Mark grants as done with: delivered to permission-service, or given up as undeliverable.
+     *
+     * @param grants Grants that were drained from the outbox
+     */
+    public void acknowledge(List<PermissionGrant> grants) {
+        for (Consumer<List<PermissionGrant>> listener : acknowledgementListeners) {
+            listener.accept(grants);
+        }
+    }
+
+    /**
+     * @param listener Called on the delivering thread with every batch of acknowledged grants
+     */
+    public void onAcknowledged(Consumer<List<PermissionGrant>> listener) {
+        acknowledgementListeners.add(listener);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Delivery of the permission grants of user-service, see {@link PermissionGrantDelivery}.
+ *
+ * @param batchSize Largest number of grants sent in one request; permission-service accepts up to 1000
+ * @param interval Wait between two checks of an empty outbox; grants made meanwhile are sent together
+ * @param initialBackoff Wait before the first retry of a failed batch; doubles with every failure
+ * @param maxBackoff Upper bound of the wait between retries
+ */
+@ConfigurationProperties("user-service.permission-outbox")
+public record PermissionOutboxProperties(
+        @DefaultValue("100") int batchSize,
+        @DefaultValue("20ms") Duration interval,
+        @DefaultValue("100ms") Duration initialBackoff,
+        @DefaultValue("10s") Duration maxBackoff) {
+}
@@ -0,0 +1,68 @@
+package com.example.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns permission names into small integer IDs, so grants can be stored as bits.
+ *
+ * IDs are assigned in the order permissions are first granted and never change.
+ * Lookups are lock-free; assigning a new ID is rare and synchronized.
+ */
+@Component
+@Profile("permission-service")
+public class PermissionRegistry {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+
+    /**
+     * Get the ID of a permission, assigning one if the permission is new.
+     *
+     * @param permission The permission name
+     * @return The permission ID
+     */
+    public int intern(String permission) {
+        Integer id = ids.get(permission);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(permission);
+            if (id == null) {
+                String[] current = names;
+                String[] extended = Arrays.copyOf(current, current.length + 1);
+                extended[current.length] = permission;
+                // Publish the name before the ID so every ID a reader can see has a name
+                names = extended;
+                id = current.length;
+                ids.put(permission, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Get the ID of a permission without assigning one.
+     *
+     * @param permission The permission name
+     * @return The permission ID, or -1 if the permission was never granted
+     */
+    public int idOf(String permission) {
+        Integer id = ids.get(permission);
+        return id == null ? -1 : id;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return Number of distinct permissions granted so far
+     */
+    public int size() {
+        return names.length;
+    }
+}
@@ -1,46 +1,221 @@
 package com.example.service;
 
+import com.example.dto.PermissionChangedEvent;
+import com.example.dto.PermissionGrant;
+import com.example.persistence.Journal;
+import com.example.persistence.PersistentState;
+import com.example.persistence.Records;
+import com.example.persistence.StatePersistence;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Permissions granted to users, held in memory.
+ *
+ * With persistence enabled, every new grant is journaled before it is acknowledged and the grants
+ * survive a restart; the sample grants are only added to an empty store.
+ */
 @Slf4j
 @Service
 @Profile("permission-service")
 public class PermissionService {
-    private final ConcurrentHashMap<UUID, List<String>> userPermissions = new ConcurrentHashMap<>();
+    // Each user's grants are an immutable bitset of interned permission IDs, replaced with compare-and-set
+    private final ConcurrentHashMap<UUID, PermissionSet> userPermissions = new ConcurrentHashMap<>();
+    private final PermissionRegistry permissionRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Journal journal;
+    // IDs of the grants applied recently; a grant delivered again within the hour is skipped
+    private final Cache<UUID, Boolean> appliedGrants = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .maximumSize(100_000)
+            .build();
 
-    public PermissionService() {
-        // Initialize with some sample data
-        UUID sampleUserId1 = UUID.randomUUID();
-        UUID sampleUserId2 = UUID.randomUUID();
+    public PermissionService(PermissionRegistry permissionRegistry, ApplicationEventPublisher eventPublisher,
+                             StatePersistence persistence, MeterRegistry meterRegistry) {
+        this.permissionRegistry = permissionRegistry;
+        this.eventPublisher = eventPublisher;
+        this.journal = persistence.open("permissions", new PermissionState());
 
-        userPermissions.put(sampleUserId1, Arrays.asList(
-                "READ",
-                "WRITE",
-                "DELETE",
-                "ADMIN"
-        ));
+        Gauge.builder("permissions.users", userPermissions, Map::size)
+                .description("Users with at least one permission")
+                .register(meterRegistry);
+        Gauge.builder("permissions.grants", this, PermissionService::grantCount)
+                .description("Permissions granted over all users")
+                .register(meterRegistry);
+        Gauge.builder("permissions.distinct", permissionRegistry, PermissionRegistry::size)
+                .description("Distinct permissions granted so far")
+                .register(meterRegistry);
 
-        userPermissions.put(sampleUserId2, Arrays.asList(
-                "READ",
-                "WRITE"
-        ));
+        if (userPermissions.isEmpty()) {
+            // Initialize with some sample data
+            UUID sampleUserId1 = UUID.randomUUID();
+            UUID sampleUserId2 = UUID.randomUUID();
+
+            for (String permission : Arrays.asList("READ", "WRITE", "DELETE", "ADMIN")) {
+                grantAndJournal(sampleUserId1, permission);
+            }
+
+            for (String permission : Arrays.asList("READ", "WRITE")) {
+                grantAndJournal(sampleUserId2, permission);
+            }
+        }
     }
 
     public List<String> getPermissionsByUserId(UUID userId) {
-        List<String> permissions = userPermissions.getOrDefault(userId, Collections.emptyList());
+        List<String> permissions = userPermissions.getOrDefault(userId, PermissionSet.EMPTY).names(permissionRegistry);
         log.info("Permissions for user {} {}", userId, permissions);
         return permissions;
     }
 
+    public Map<UUID, List<String>> getPermissionsByUserIds(Collection<UUID> userIds) {
+        Map<UUID, List<String>> permissions = new HashMap<>();
+        for (UUID userId : userIds) {
+            permissions.put(userId, userPermissions.getOrDefault(userId, PermissionSet.EMPTY).names(permissionRegistry));
+        }
+        log.info("Permissions for {} users", permissions.size());
+        return permissions;
+    }
+
+    public boolean hasPermission(UUID userId, String permission) {
+        int id = permissionRegistry.idOf(permission);
+        boolean granted = id >= 0 && userPermissions.getOrDefault(userId, PermissionSet.EMPTY).contains(id);
+        log.info("User {} has permission {}: {}", userId, permission, granted);
+        return granted;
+    }
+
     public void addPermission(UUID userId, String permission) {
         log.info("Adding permission {} for user {}", permission, userId);
-        userPermissions.computeIfAbsent(userId, k -> new ArrayList<>()).add(permission);
-        log.info("Permission added for user {}. Permissions: {}", userId, userPermissions.get(userId));
+        if (!grantAndJournal(userId, permission)) {
+            log.info("User {} already has permission {}", userId, permission);
+            return;
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Permission added for user {}. Permissions: {}", userId, getPermissionsByUserId(userId));
+        }
+        eventPublisher.publishEvent(new PermissionChangedEvent(userId, permission, Instant.now()));
+    }
+
+    /**
+     * Apply grants sent by user-service. Each grant is applied at most once, however often its grantId
+     * is delivered within an hour, so a batch can be retried after a failure.
+     *
+     * A grant only counts as applied, and its change is only published, once it is journaled. A batch
+     * that failed to be journaled is journaled and published again when it is retried, including the
+     * grants that the failed attempt already made in memory.
+     */
+    public void addPermissions(List<PermissionGrant> grants) {
+        log.info("Applying {} permission grants", grants.size());
+        List<PermissionGrant> applied = new ArrayList<>();
+        for (PermissionGrant grant : grants) {
+            if (appliedGrants.getIfPresent(grant.grantId()) != null) {
+                log.info("Skipping permission grant {}, already applied", grant.grantId());
+                continue;
+            }
+            grant(grant.userId(), grant.permission());
+            applied.add(grant);
+        }
+        // Journal the batch with one commit rather than one per grant
+        journal.appendAll(applied.stream().map(grant -> Records.encode(grant.userId(), grant.permission())).toList());
+        Instant now = Instant.now();
+        for (PermissionGrant grant : applied) {
+            appliedGrants.put(grant.grantId(), Boolean.TRUE);
+            log.info("Permission {} added for user {}", grant.permission(), grant.userId());
+            eventPublisher.publishEvent(new PermissionChangedEvent(grant.userId(), grant.permission(), now));
+        }
+    }
+
+    private long grantCount() {
+        long count = 0;
+        for (PermissionSet permissions : userPermissions.values()) {
+            count += permissions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Grant in memory, then journal the grant. A grant that cannot be journaled is revoked again, so a
+     * retry adds it, journals it and publishes its change rather than finding the user already has it.
+     *
+     * @return true if the permission was added, false if the user already had it
+     */
+    private boolean grantAndJournal(UUID userId, String permission) {
+        if (!grant(userId, permission)) {
+            return false;
+        }
+        try {
+            journal.append(Records.encode(userId, permission));
+        } catch (RuntimeException e) {
+            revoke(userId, permissionRegistry.idOf(permission));
+            throw e;
+        }
+        return true;
     }
-}
 
+    /**
+     * @return true if the permission was added, false if the user already had it
+     */
+    private boolean grant(UUID userId, String permission) {
+        int id = permissionRegistry.intern(permission);
+        while (true) {
+            PermissionSet current = userPermissions.get(userId);
+            if (current == null) {
+                if (userPermissions.putIfAbsent(userId, PermissionSet.EMPTY.with(id)) == null) {
+                    return true;
+                }
+            } else if (current.contains(id)) {
+                return false;
+            } else if (userPermissions.replace(userId, current, current.with(id))) {
+                return true;
+            }
+        }
+    }
+
+    private void revoke(UUID userId, int id) {
+        while (true) {
+            PermissionSet current = userPermissions.get(userId);
+            if (current == null || !current.contains(id)) {
+                return;
+            }
+            PermissionSet revoked = current.without(id);
+            if (revoked.size() == 0 ? userPermissions.remove(userId, current)
+                    : userPermissions.replace(userId, current, revoked)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The grants as persistent state: one record per user, the user ID followed by permission names.
+     * The log holds one record per grant.
+     */
+    private class PermissionState implements PersistentState {
+
+        @Override
+        public void apply(ByteBuffer record) {
+            UUID userId = Records.getUuid(record);
+            while (record.hasRemaining()) {
+                grant(userId, Records.getString(record));
+            }
+        }
+
+        @Override
+        public void writeSnapshot(RecordSink sink) throws IOException {
+            for (Map.Entry<UUID, PermissionSet> entry : userPermissions.entrySet()) {
+                sink.add(Records.encode(entry.getKey(), entry.getValue().names(permissionRegistry).toArray(String[]::new)));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of permission IDs stored as a bitset.
+ *
+ * Instances are compared by identity, so they can be swapped with compare-and-set.
+ */
+final class PermissionSet {
+    static final PermissionSet EMPTY = new PermissionSet(new long[0]);
+
+    private final long[] words;
+
+    private PermissionSet(long[] words) {
+        this.words = words;
+    }
+
+    boolean contains(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * @return A set that also contains the given ID, or this set if it already does
+     */
+    PermissionSet with(int id) {
+        if (contains(id)) {
+            return this;
+        }
+        long[] extended = Arrays.copyOf(words, Math.max(words.length, (id >>> 6) + 1));
+        extended[id >>> 6] |= 1L << id;
+        return new PermissionSet(extended);
+    }
+
+    /**
+     * @return A set without the given ID, or this set if it does not contain it
+     */
+    PermissionSet without(int id) {
+        if (!contains(id)) {
+            return this;
+        }
+        long[] reduced = words.clone();
+        reduced[id >>> 6] &= ~(1L << id);
+        return new PermissionSet(reduced);
+    }
+
+    int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    List<String> names(PermissionRegistry registry) {
+        List<String> names = new ArrayList<>();
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                names.add(registry.nameOf((word << 6) + bit));
+                bits &= bits - 1;
+            }
+        }
+        return names;
+    }
+}
@@ -1,31 +1,82 @@
 package com.example.service;
 
-import com.example.client.PermissionServiceClient;
+import com.example.dto.PermissionGrant;
+import com.example.exception.DuplicateUserException;
 import com.example.model.User;
+import com.example.persistence.Journal;
+import com.example.persistence.PersistentState;
+import com.example.persistence.Records;
+import com.example.persistence.StatePersistence;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Users of user-service, held in memory.
+ *
+ * Besides the users by ID there are two secondary indexes, both keyed case-insensitively:
+ * - username, a sorted concurrent skip list: unique, and the order of prefix search and of the pages of users
+ * - email, a concurrent hash map: unique
+ * Every lookup and every page costs O(log n) plus the size of the result, whatever the number of users.
+ *
+ * A new user is granted document-read by adding the grant to the {@link PermissionGrantOutbox} right after
+ * the user is stored; creating a user makes no call to permission-service. The grant takes effect once
+ * {@link PermissionGrantDelivery} has sent it, usually within milliseconds.
+ *
+ * With persistence enabled, every new user is journaled before createUser returns and the users survive
+ * a restart; the sample users are only added to an empty store. The grant of a new user is journaled in
+ * the same record as the user, and its acknowledgement by the outbox in a record of its own, so grants
+ * not yet delivered when user-service stops are put back into the outbox on the next start.
+ */
+@Slf4j
 @Service
 @Profile("user-service")
 public class UserService {
     private final ConcurrentHashMap<UUID, User> users = new ConcurrentHashMap<>();
-    private final PermissionServiceClient permissionServiceClient;
+    private final ConcurrentSkipListMap<String, User> usersByUsername = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, User> usersByEmail = new ConcurrentHashMap<>();
+    // Grants of new users not yet acknowledged by the outbox, by grant ID
+    private final ConcurrentHashMap<UUID, PermissionGrant> pendingGrants = new ConcurrentHashMap<>();
+    private final PermissionGrantOutbox permissionGrantOutbox;
+    private final Journal journal;
 
-    public UserService(PermissionServiceClient permissionServiceClient) {
-        // Initialize with some sample data
-        UUID user1Id = UUID.randomUUID();
-        UUID user2Id = UUID.randomUUID();
-        UUID user3Id = UUID.randomUUID();
+    public UserService(PermissionGrantOutbox permissionGrantOutbox, StatePersistence persistence,
+                       MeterRegistry meterRegistry) {
+        this.permissionGrantOutbox = permissionGrantOutbox;
+        this.journal = persistence.open("users", new UserState());
+        if (!pendingGrants.isEmpty()) {
+            log.info("Queueing {} permission grants not delivered before the restart", pendingGrants.size());
+            pendingGrants.values().forEach(permissionGrantOutbox::add);
+        }
+        permissionGrantOutbox.onAcknowledged(this::grantsAcknowledged);
 
-        users.put(user1Id, new User(user1Id, "jdoe", "John", "Doe", "john.doe@example.com"));
-        users.put(user2Id, new User(user2Id, "asmith", "Alice", "Smith", "alice.smith@example.com"));
-        users.put(user3Id, new User(user3Id, "bwilliams", "Bob", "Williams", "bob.williams@example.com"));
-        this.permissionServiceClient = permissionServiceClient;
+        if (users.isEmpty()) {
+            // Initialize with some sample data
+            UUID user1Id = UUID.randomUUID();
+            UUID user2Id = UUID.randomUUID();
+            UUID user3Id = UUID.randomUUID();
+
+            store(new User(user1Id, "jdoe", "John", "Doe", "john.doe@example.com"), null);
+            store(new User(user2Id, "asmith", "Alice", "Smith", "alice.smith@example.com"), null);
+            store(new User(user3Id, "bwilliams", "Bob", "Williams", "bob.williams@example.com"), null);
+        }
+
+        Gauge.builder("users.stored", users, Map::size)
+                .description("Users held by user-service")
+                .register(meterRegistry);
     }
 
+    /**
+     * @return Every user; use {@link #getUserPage} where the number of users is not small
+     */
     public Collection<User> getAllUsers() {
         return users.values();
     }
@@ -34,12 +85,180 @@ public class UserService {
         return Optional.ofNullable(users.get(id));
     }
 
+    public Optional<User> getUserByUsername(String username) {
+        return Optional.ofNullable(usersByUsername.get(key(username)));
+    }
+
+    public Optional<User> getUserByEmail(String email) {
+        return Optional.ofNullable(usersByEmail.get(key(email)));
+    }
+
+    public Map<UUID, User> getUsersByIds(Collection<UUID> ids) {
+        Map<UUID, User> found = new HashMap<>();
+        for (UUID id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                found.put(id, user);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get users in username order.
+     *
+     * @param afterUsername Username of the last user of the previous page, or null for the first page
+     * @param limit Largest number of users returned
+     */
+    public List<User> getUserPage(String afterUsername, int limit) {
+        Map<String, User> following = afterUsername == null
+                ? usersByUsername
+                : usersByUsername.tailMap(key(afterUsername), false);
+        return first(following, limit);
+    }
+
+    /**
+     * Get the users whose username starts with the given prefix (case-insensitive), in username order.
+     *
+     * @param limit Largest number of users returned
+     */
+    public List<User> searchByUsernamePrefix(String prefix, int limit) {
+        String from = key(prefix);
+        // Every key with the prefix sorts before the prefix followed by the largest char
+        return first(usersByUsername.subMap(from, true, from + Character.MAX_VALUE, false), limit);
+    }
+
+    /**
+     * @throws DuplicateUserException if another user has the same username or email
+     * @throws IllegalArgumentException if the user has no username or no email
+     */
     public User createUser(User user) {
         var userWithId = user.toBuilder().id(UUID.randomUUID()).build();
-        System.out.println("Creating user: " + userWithId.username().toUpperCase());
-        users.put(userWithId.id(), userWithId);
-        permissionServiceClient.addPermission(userWithId.id(), "document-read");
+        log.debug("Creating user: {}", userWithId.username());
+        PermissionGrant grant = new PermissionGrant(UUID.randomUUID(), userWithId.id(), "document-read");
+        store(userWithId, grant);
+        permissionGrantOutbox.add(grant);
         return userWithId;
     }
-}
 
+    /**
+     * Claim the user's username and email in the indexes, then add the user and journal it together with
+     * its grant. When a claim fails, the claims made so far are released, so concurrent creations of the
+     * same username or email leave exactly one user. A user that cannot be journaled is removed again.
+     *
+     * @param grant Grant of the new user to journal with it, or null
+     */
+    private void store(User user, PermissionGrant grant) {
+        if (user.username() == null || user.username().isBlank() || user.email() == null || user.email().isBlank()) {
+            throw new IllegalArgumentException("A user needs a username and an email");
+        }
+        String username = key(user.username());
+        String email = key(user.email());
+        if (usersByUsername.putIfAbsent(username, user) != null) {
+            throw new DuplicateUserException("Username " + user.username() + " is taken");
+        }
+        if (usersByEmail.putIfAbsent(email, user) != null) {
+            usersByUsername.remove(username, user);
+            throw new DuplicateUserException("Email " + user.email() + " is taken");
+        }
+        users.put(user.id(), user);
+        if (grant != null) {
+            pendingGrants.put(grant.grantId(), grant);
+        }
+        try {
+            journal.append(encode(user, grant));
+        } catch (RuntimeException e) {
+            if (grant != null) {
+                pendingGrants.remove(grant.grantId());
+            }
+            users.remove(user.id(), user);
+            usersByEmail.remove(email, user);
+            usersByUsername.remove(username, user);
+            throw e;
+        }
+    }
+
+    /**
+     * Forget grants the outbox is done with, and journal that. A grant whose acknowledgement cannot be
+     * journaled is delivered again after a restart, which permission-service ignores.
+     */
+    private void grantsAcknowledged(List<PermissionGrant> grants) {
+        List<ByteBuffer> records = new ArrayList<>(grants.size());
+        for (PermissionGrant grant : grants) {
+            if (pendingGrants.remove(grant.grantId()) != null) {
+                records.add(Records.encode(grant.grantId()));
+            }
+        }
+        try {
+            journal.appendAll(records);
+        } catch (RuntimeException e) {
+            log.warn("Failed to journal the delivery of {} permission grants: {}", records.size(), e.getMessage());
+        }
+    }
+
+    private static ByteBuffer encode(User user, PermissionGrant grant) {
+        if (grant == null) {
+            return Records.encode(user.id(), user.username(), user.firstName(), user.lastName(), user.email());
+        }
+        return Records.encode(user.id(), user.username(), user.firstName(), user.lastName(), user.email(),
+                grant.grantId().toString(), grant.permission());
+    }
+
+    private static List<User> first(Map<String, User> users, int limit) {
+        List<User> page = new ArrayList<>(Math.min(limit, 64));
+        for (User user : users.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The users as persistent state: one record per user, the user ID followed by username, first name,
+     * last name and email, and by grant ID and permission while the user's grant is pending. The log also
+     * holds a record of only the grant ID for every acknowledged grant.
+     */
+    private class UserState implements PersistentState {
+
+        @Override
+        public void apply(ByteBuffer record) {
+            UUID id = Records.getUuid(record);
+            if (!record.hasRemaining()) {
+                pendingGrants.remove(id);
+                return;
+            }
+            User user = new User(id, Records.getString(record), Records.getString(record),
+                    Records.getString(record), Records.getString(record));
+            users.put(user.id(), user);
+            usersByUsername.put(key(user.username()), user);
+            usersByEmail.put(key(user.email()), user);
+            if (record.hasRemaining()) {
+                PermissionGrant grant = new PermissionGrant(UUID.fromString(Records.getString(record)), user.id(),
+                        Records.getString(record));
+                pendingGrants.put(grant.grantId(), grant);
+            }
+        }
+
+        @Override
+        public void writeSnapshot(RecordSink sink) throws IOException {
+            // In username order: on recovery every insert into the skip list lands next to the previous one.
+            // A username is claimed before the user is added, so skip claims of users not (yet) added.
+            Map<UUID, PermissionGrant> grantsByUser = new HashMap<>();
+            for (PermissionGrant grant : pendingGrants.values()) {
+                grantsByUser.put(grant.userId(), grant);
+            }
+            for (User user : usersByUsername.values()) {
+                if (users.get(user.id()) != user) {
+                    continue;
+                }
+                sink.add(encode(user, grantsByUser.get(user.id())));
+            }
+        }
+    }
+}
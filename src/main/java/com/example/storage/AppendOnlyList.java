@@ -0,0 +1,127 @@
+package com.example.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent append-only list stored in fixed-size chunks.
+ *
+ * Writers reserve a slot by incrementing an atomic tail and publish their element into it
+ * with a release write, so concurrent appends never wait for each other and never block
+ * readers; only the writer that starts a new chunk takes a short lock. Readers see the
+ * longest prefix of published slots: an element whose writer has reserved a slot but not
+ * yet filled it hides the elements after it until it is filled.
+ *
+ * {@link #snapshot()} returns a read-only view of that prefix. The view shares the chunks
+ * with the list, so taking it copies nothing, and later appends never change it.
+ *
+ * @param <T> Element type; null elements are not allowed
+ */
+public final class AppendOnlyList<T> {
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    // Next slot to reserve
+    private final AtomicInteger tail = new AtomicInteger();
+    // Every slot below this index is known to be filled
+    private final AtomicInteger published = new AtomicInteger();
+    private volatile Object[][] chunks = new Object[1][];
+
+    public void append(T element) {
+        Objects.requireNonNull(element, "element");
+        int index = tail.getAndIncrement();
+        Object[] chunk = chunk(index >>> CHUNK_SHIFT);
+        SLOT.setRelease(chunk, index & CHUNK_MASK, element);
+    }
+
+    /**
+     * @return Number of elements visible to readers
+     */
+    public int size() {
+        int size = published.get();
+        int reserved = tail.get();
+        Object[][] directory = chunks;
+        while (size < reserved) {
+            int chunkIndex = size >>> CHUNK_SHIFT;
+            if (chunkIndex >= directory.length || directory[chunkIndex] == null) {
+                directory = chunks;
+                if (chunkIndex >= directory.length || directory[chunkIndex] == null) {
+                    break;
+                }
+            }
+            if (SLOT.getAcquire(directory[chunkIndex], size & CHUNK_MASK) == null) {
+                break;
+            }
+            size++;
+        }
+        // Let later readers start scanning from here
+        int current = published.get();
+        while (current < size && !published.compareAndSet(current, size)) {
+            current = published.get();
+        }
+        return size;
+    }
+
+    /**
+     * @return Read-only view of the elements published so far, oldest first
+     */
+    public List<T> snapshot() {
+        int size = size();
+        // Chunks are only ever added, so this directory holds every chunk below size
+        return new Snapshot<>(chunks, size);
+    }
+
+    private Object[] chunk(int chunkIndex) {
+        Object[][] directory = chunks;
+        if (chunkIndex < directory.length) {
+            Object[] chunk = directory[chunkIndex];
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        synchronized (this) {
+            directory = chunks;
+            if (chunkIndex >= directory.length) {
+                directory = Arrays.copyOf(directory, Math.max(directory.length * 2, chunkIndex + 1));
+            }
+            Object[] chunk = directory[chunkIndex];
+            if (chunk == null) {
+                chunk = new Object[CHUNK_SIZE];
+                directory[chunkIndex] = chunk;
+            }
+            // Volatile write publishes the new chunk, also when the directory was not replaced
+            chunks = directory;
+            return chunk;
+        }
+    }
+
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] chunks;
+        private final int size;
+
+        Snapshot(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
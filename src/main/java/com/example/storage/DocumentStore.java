@@ -0,0 +1,59 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine behind DocumentService.
+ *
+ * Documents are kept per user in the order they were added.
+ */
+public interface DocumentStore {
+
+    /**
+     * Store a document for a user.
+     *
+     * @param userId The user ID
+     * @param document The document to store
+     */
+    void append(UUID userId, Document document);
+
+    /**
+     * Get all documents of a user.
+     *
+     * @param userId The user ID
+     * @return Documents in the order they were added, or an empty list
+     */
+    List<Document> findByUserId(UUID userId);
+
+    /**
+     * Get a range of a user's documents.
+     *
+     * @param userId The user ID
+     * @param fromIndex Position of the first document, counted from the oldest
+     * @param limit Maximum number of documents to return
+     * @return Documents in the order they were added; empty past the last document
+     */
+    List<Document> findPageByUserId(UUID userId, int fromIndex, int limit);
+
+    /**
+     * Pass each of a user's documents to a consumer without collecting them in a list.
+     *
+     * @param userId The user ID
+     * @param consumer Receives the documents in the order they were added
+     */
+    void forEachByUserId(UUID userId, Consumer<Document> consumer);
+
+    /**
+     * @return Number of users with at least one document
+     */
+    int userCount();
+
+    /**
+     * @return Number of stored documents
+     */
+    long documentCount();
+}
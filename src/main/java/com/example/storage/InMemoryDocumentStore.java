@@ -0,0 +1,59 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Document store that keeps everything on the heap. Documents are lost on restart.
+ *
+ * Each user's documents are kept in an {@link AppendOnlyList}, so concurrent adds for the same
+ * user never block each other or readers, and readers get stable snapshots without copying.
+ */
+public class InMemoryDocumentStore implements DocumentStore {
+    private final ConcurrentHashMap<UUID, AppendOnlyList<Document>> userDocuments = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(UUID userId, Document document) {
+        userDocuments.computeIfAbsent(userId, k -> new AppendOnlyList<>()).append(document);
+    }
+
+    @Override
+    public List<Document> findByUserId(UUID userId) {
+        AppendOnlyList<Document> documents = userDocuments.get(userId);
+        return documents == null ? Collections.emptyList() : documents.snapshot();
+    }
+
+    @Override
+    public List<Document> findPageByUserId(UUID userId, int fromIndex, int limit) {
+        List<Document> documents = findByUserId(userId);
+        int size = documents.size();
+        if (fromIndex >= size) {
+            return Collections.emptyList();
+        }
+        return documents.subList(fromIndex, (int) Math.min(size, (long) fromIndex + limit));
+    }
+
+    @Override
+    public void forEachByUserId(UUID userId, Consumer<Document> consumer) {
+        findByUserId(userId).forEach(consumer);
+    }
+
+    @Override
+    public int userCount() {
+        return userDocuments.size();
+    }
+
+    @Override
+    public long documentCount() {
+        long count = 0;
+        for (AppendOnlyList<Document> documents : userDocuments.values()) {
+            count += documents.size();
+        }
+        return count;
+    }
+}
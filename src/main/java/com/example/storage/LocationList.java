@@ -0,0 +1,67 @@
+package com.example.storage;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Growable list of record locations for one user, as primitive longs.
+ *
+ * Appends and relocations must be serialized by the caller. Reads are lock-free: the
+ * backing array is published before the size, so a reader that sees a size also sees
+ * every location below it.
+ */
+final class LocationList {
+    private volatile long[] locations = new long[4];
+    private volatile int size;
+
+    void append(long location) {
+        long[] current = locations;
+        int n = size;
+        if (n == current.length) {
+            current = Arrays.copyOf(current, n * 2);
+            locations = current;
+        }
+        current[n] = location;
+        size = n + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The locations appended so far, oldest first
+     */
+    long[] snapshot() {
+        int n = size;
+        return Arrays.copyOf(locations, n);
+    }
+
+    /**
+     * Backing array, for reading without a copy. Only the locations below a size read before this
+     * call are valid, and they change only when the list is relocated.
+     */
+    long[] array() {
+        return locations;
+    }
+
+    /**
+     * @param fromIndex Index of the first location
+     * @param toIndex Index after the last location; cut at the number of locations appended so far
+     * @return The locations in the range, oldest first, copied without copying the rest of the list
+     */
+    long[] range(int fromIndex, int toIndex) {
+        int n = size;
+        long[] current = locations;
+        int to = Math.min(toIndex, n);
+        return fromIndex >= to ? new long[0] : Arrays.copyOfRange(current, fromIndex, to);
+    }
+
+    void relocate(LongUnaryOperator relocation) {
+        long[] current = locations;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            current[i] = relocation.applyAsLong(current[i]);
+        }
+    }
+}
@@ -0,0 +1,736 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Document store that persists documents in an append-only segment log.
+ *
+ * Documents are appended to the active segment file. When it reaches the maximum segment size
+ * it is sealed: flushed, memory-mapped read-only and given a hint file that lists the records
+ * it contains. The hint entries of the active segment are collected as records are appended, so
+ * sealing does not read the segment again. Only record locations are kept on the heap, in a
+ * per-user index; document content is read back through the mapped segments, so the data set is
+ * not bounded by the heap.
+ *
+ * On startup, sealed segments are indexed from their hint files, and only segments without a
+ * valid hint are scanned. A torn record at the end of a segment, e.g. after a crash, is cut off.
+ * Every startup begins a new active segment.
+ *
+ * Documents are never overwritten or deleted, so compaction does not drop live data. It merges
+ * runs of small sealed segments, e.g. left behind by restarts, into one segment so the number of
+ * files and mappings stays bounded. The merged segment keeps the ID of the newest segment it
+ * replaces and records the oldest one in its header, so a crash halfway through compaction is
+ * resolved on the next startup. Segments replaced by compaction stay readable until every read
+ * that started before the index was moved to the merged segment has finished.
+ *
+ * Segment layout:
+ * <pre>
+ * header: int magic, int base segment ID
+ * record: int payload length, int CRC32 of payload,
+ *         payload: long user ID msb, long user ID lsb, byte has document ID,
+ *                  long document ID msb, long document ID lsb, int content length (-1 for null), content UTF-8
+ * </pre>
+ */
+@Slf4j
+public class LogDocumentStore implements DocumentStore, Closeable {
+    private static final int SEGMENT_MAGIC = 0x444F4353;
+    private static final int HINT_MAGIC = 0x48494E54;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_PAYLOAD_SIZE = 16 + 1 + 16 + 4;
+    private static final int HINT_HEADER_SIZE = 16;
+    private static final int HINT_ENTRY_SIZE = 20;
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String HINT_SUFFIX = ".hint";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final int compactionMinSegments;
+    private final ConcurrentHashMap<UUID, LocationList> index = new ConcurrentHashMap<>();
+    // Segments by slot, the runtime handle stored in record locations; slots are never reused
+    private final ConcurrentHashMap<Integer, Segment> segmentsBySlot = new ConcurrentHashMap<>();
+    // Live segments by file ID, guarded by writeLock
+    private final TreeMap<Integer, Segment> segmentsById = new TreeMap<>();
+    // Segments replaced by compaction, kept readable until the reads that may use them have finished
+    private final List<RetiredSegment> retired = new ArrayList<>();
+    // Reads in progress by the epoch they started in; compaction starts a new epoch once it has moved the index
+    private final ConcurrentHashMap<Long, Integer> readsByEpoch = new ConcurrentHashMap<>();
+    private final AtomicLong readEpoch = new AtomicLong();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService maintenance;
+    private volatile Segment active;
+    private volatile boolean dirty;
+
+    public LogDocumentStore(Path directory, long maxSegmentSize, int compactionMinSegments,
+                            Duration syncInterval, Duration compactionInterval) throws IOException {
+        if (maxSegmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segments larger than 2 GB cannot be memory-mapped");
+        }
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionMinSegments = Math.max(2, compactionMinSegments);
+        Files.createDirectories(directory);
+
+        long started = System.nanoTime();
+        int nextId = recover();
+        this.active = createSegment(nextId);
+        log.info("Document log opened in {} with {} segments and {} users in {} ms", directory,
+                segmentsById.size(), index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void append(UUID userId, Document document) {
+        ByteBuffer record = encode(userId, document);
+        writeLock.lock();
+        try {
+            Segment segment = active;
+            if (segment.size + record.remaining() > maxSegmentSize && segment.size > SEGMENT_HEADER_SIZE) {
+                segment = roll();
+            }
+            long offset = segment.size;
+            writeFully(segment.channel, record, offset);
+            segment.size = offset + record.limit();
+            segment.addHintEntry(userId, (int) offset);
+            dirty = true;
+            index.computeIfAbsent(userId, k -> new LocationList()).append(location(segment.slot, offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append document for user " + userId, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Document> findByUserId(UUID userId) {
+        LocationList locations = index.get(userId);
+        if (locations == null) {
+            return Collections.emptyList();
+        }
+        long epoch = beginRead();
+        try {
+            long[] snapshot = locations.snapshot();
+            List<Document> documents = new ArrayList<>(snapshot.length);
+            for (long location : snapshot) {
+                documents.add(read(location));
+            }
+            return documents;
+        } finally {
+            endRead(epoch);
+        }
+    }
+
+    @Override
+    public List<Document> findPageByUserId(UUID userId, int fromIndex, int limit) {
+        LocationList locations = index.get(userId);
+        if (locations == null) {
+            return Collections.emptyList();
+        }
+        long epoch = beginRead();
+        try {
+            long[] page = locations.range(fromIndex, (int) Math.min(Integer.MAX_VALUE, (long) fromIndex + limit));
+            List<Document> documents = new ArrayList<>(page.length);
+            for (long location : page) {
+                documents.add(read(location));
+            }
+            return documents;
+        } finally {
+            endRead(epoch);
+        }
+    }
+
+    @Override
+    public void forEachByUserId(UUID userId, Consumer<Document> consumer) {
+        LocationList locations = index.get(userId);
+        if (locations == null) {
+            return;
+        }
+        // The read lasts as long as the consumer, e.g. while a stream of the documents is written out
+        long epoch = beginRead();
+        try {
+            for (long location : locations.snapshot()) {
+                consumer.accept(read(location));
+            }
+        } finally {
+            endRead(epoch);
+        }
+    }
+
+    @Override
+    public int userCount() {
+        return index.size();
+    }
+
+    @Override
+    public long documentCount() {
+        long count = 0;
+        for (LocationList locations : index.values()) {
+            count += locations.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Let a running sync or compaction finish, so it does not touch closed segments
+        maintenance.shutdown();
+        try {
+            if (!maintenance.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Document log maintenance did not finish within {}, interrupting it", CLOSE_TIMEOUT);
+                maintenance.shutdownNow();
+                maintenance.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            maintenance.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            Segment segment = active;
+            if (segment.size == SEGMENT_HEADER_SIZE) {
+                // Nothing was written since startup
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } else {
+                segment.channel.force(true);
+                segment.channel.close();
+                writeHint(segment, segment.hintEntries.flip());
+            }
+            for (Segment sealed : segmentsBySlot.values()) {
+                if (sealed.channel != null && sealed.channel.isOpen()) {
+                    sealed.channel.close();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Merge the oldest run of small sealed segments into one segment, if there is one.
+     */
+    void compact() throws IOException {
+        List<Segment> run;
+        writeLock.lock();
+        try {
+            run = pickCompactionRun();
+        } finally {
+            writeLock.unlock();
+        }
+
+        releaseRetired();
+        if (run == null) {
+            return;
+        }
+
+        Segment newest = run.get(run.size() - 1);
+        Path tmp = directory.resolve(segmentFileName(newest.id) + TMP_SUFFIX);
+        Map<Long, Long> relocations = new HashMap<>();
+        Set<UUID> affectedUsers = new HashSet<>();
+        List<HintEntry> entries = new ArrayList<>();
+        int slot = nextSlot.getAndIncrement();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(out, segmentHeader(run.get(0).baseId), 0);
+            long position = SEGMENT_HEADER_SIZE;
+            for (Segment segment : run) {
+                MappedByteBuffer source = segment.mapped;
+                int offset = SEGMENT_HEADER_SIZE;
+                while (offset < segment.size) {
+                    int recordSize = RECORD_HEADER_SIZE + source.getInt(offset);
+                    UUID userId = new UUID(source.getLong(offset + 8), source.getLong(offset + 16));
+                    writeFully(out, source.slice(offset, recordSize), position);
+                    relocations.put(location(segment.slot, offset), location(slot, position));
+                    affectedUsers.add(userId);
+                    entries.add(new HintEntry(userId, (int) position));
+                    position += recordSize;
+                    offset += recordSize;
+                }
+            }
+            out.force(true);
+        }
+
+        Path target = segmentPath(newest.id);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Segment merged = openSealed(newest.id, run.get(0).baseId, slot, target);
+        writeHint(merged, hintEntries(entries));
+
+        writeLock.lock();
+        try {
+            segmentsBySlot.put(merged.slot, merged);
+            for (UUID userId : affectedUsers) {
+                LocationList locations = index.get(userId);
+                if (locations != null) {
+                    locations.relocate(location -> relocations.getOrDefault(location, location));
+                }
+            }
+            for (Segment segment : run) {
+                segmentsById.remove(segment.id);
+            }
+            segmentsById.put(merged.id, merged);
+        } finally {
+            writeLock.unlock();
+        }
+        // Reads that start from now on only see locations in the merged segment
+        long retiredInEpoch = readEpoch.getAndIncrement();
+
+        for (Segment segment : run) {
+            if (segment.id != newest.id) {
+                Files.deleteIfExists(segment.path);
+                Files.deleteIfExists(hintPath(segment.id));
+            }
+            // The mapping stays readable after its file is deleted or replaced
+            retired.add(new RetiredSegment(segment, retiredInEpoch));
+        }
+        releaseRetired();
+        log.info("Compacted segments {}..{} into one segment of {} bytes", run.get(0).id, newest.id, merged.size);
+    }
+
+    /**
+     * Drop the segments replaced by compaction that no read in progress can still use: a read that
+     * started in an epoch after a segment was retired only holds locations in the merged segment.
+     */
+    private void releaseRetired() throws IOException {
+        long oldestRead = Long.MAX_VALUE;
+        for (Long epoch : readsByEpoch.keySet()) {
+            oldestRead = Math.min(oldestRead, epoch);
+        }
+        for (Iterator<RetiredSegment> iterator = retired.iterator(); iterator.hasNext(); ) {
+            RetiredSegment retiredSegment = iterator.next();
+            if (retiredSegment.epoch < oldestRead) {
+                Segment segment = retiredSegment.segment;
+                segmentsBySlot.remove(segment.slot);
+                if (segment.channel != null) {
+                    segment.channel.close();
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Register a read, before it takes its snapshot of locations.
+     *
+     * @return The epoch to end the read with
+     */
+    private long beginRead() {
+        long epoch = readEpoch.get();
+        readsByEpoch.merge(epoch, 1, Integer::sum);
+        return epoch;
+    }
+
+    private void endRead(long epoch) {
+        readsByEpoch.computeIfPresent(epoch, (key, reads) -> reads == 1 ? null : reads - 1);
+    }
+
+    private List<Segment> pickCompactionRun() {
+        List<Segment> sealed = new ArrayList<>(segmentsById.values());
+        sealed.remove(active);
+        for (int start = 0; start < sealed.size(); start++) {
+            long total = SEGMENT_HEADER_SIZE;
+            int end = start;
+            while (end < sealed.size() && total + sealed.get(end).size - SEGMENT_HEADER_SIZE <= maxSegmentSize) {
+                total += sealed.get(end).size - SEGMENT_HEADER_SIZE;
+                end++;
+            }
+            if (end - start >= compactionMinSegments) {
+                return new ArrayList<>(sealed.subList(start, end));
+            }
+        }
+        return null;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.warn("Document log compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void sync() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            active.channel.force(false);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to sync document log: {}", e.getMessage());
+        }
+    }
+
+    private Segment roll() throws IOException {
+        Segment sealed = active;
+        sealed.channel.force(true);
+        sealed.mapped = sealed.channel.map(FileChannel.MapMode.READ_ONLY, 0, sealed.size);
+        // Reads go through the mapping from now on; one still using the channel falls back to it
+        sealed.channel.close();
+        writeHint(sealed, sealed.hintEntries.flip());
+        sealed.hintEntries = null;
+        active = createSegment(sealed.id + 1);
+        return active;
+    }
+
+    private Document read(long location) {
+        Segment segment = segmentsBySlot.get((int) (location >>> OFFSET_BITS));
+        int offset = (int) (location & OFFSET_MASK);
+        MappedByteBuffer mapped = segment.mapped;
+        if (mapped != null) {
+            return decode(mapped, offset + RECORD_HEADER_SIZE);
+        }
+        // The active segment is not mapped yet; read the record with a positional read
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            readFully(segment.channel, header, offset);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+            readFully(segment.channel, payload, offset + RECORD_HEADER_SIZE);
+            return decode(payload, 0);
+        } catch (ClosedChannelException e) {
+            // The segment was sealed while this read was in flight
+            mapped = segment.mapped;
+            if (mapped != null) {
+                return decode(mapped, offset + RECORD_HEADER_SIZE);
+            }
+            throw new UncheckedIOException("Failed to read document from segment " + segment.id, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read document from segment " + segment.id, e);
+        }
+    }
+
+    private int recover() throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    // Unfinished compaction or hint
+                    Files.delete(path);
+                } else if (name.startsWith("segment-") && name.endsWith(SEGMENT_SUFFIX)) {
+                    files.put(Integer.parseInt(name.substring("segment-".length(), name.length() - SEGMENT_SUFFIX.length())), path);
+                }
+            }
+        }
+
+        // Drop segments already merged into a newer one by a compaction that crashed before cleanup
+        Map<Integer, Integer> baseIds = new HashMap<>();
+        for (Map.Entry<Integer, Path> file : List.copyOf(files.descendingMap().entrySet())) {
+            if (!files.containsKey(file.getKey())) {
+                continue;
+            }
+            Integer baseId = readBaseId(file.getValue());
+            if (baseId == null) {
+                log.warn("Removing segment without a valid header: {}", file.getValue());
+                Files.delete(file.getValue());
+                Files.deleteIfExists(hintPath(file.getKey()));
+                files.remove(file.getKey());
+                continue;
+            }
+            baseIds.put(file.getKey(), baseId);
+            for (Integer covered : List.copyOf(files.subMap(baseId, true, file.getKey(), false).keySet())) {
+                log.info("Removing segment {} already merged into segment {}", covered, file.getKey());
+                Files.delete(files.remove(covered));
+                Files.deleteIfExists(hintPath(covered));
+            }
+        }
+
+        for (Map.Entry<Integer, Path> file : files.entrySet()) {
+            int id = file.getKey();
+            List<HintEntry> entries = readHint(id, Files.size(file.getValue()));
+            if (entries == null) {
+                entries = scan(file.getValue(), id);
+            }
+            Segment segment = openSealed(id, baseIds.get(id), nextSlot.getAndIncrement(), file.getValue());
+            if (!Files.exists(hintPath(id))) {
+                writeHint(segment, hintEntries(entries));
+            }
+            segmentsBySlot.put(segment.slot, segment);
+            segmentsById.put(id, segment);
+            for (HintEntry entry : entries) {
+                index.computeIfAbsent(entry.userId, k -> new LocationList()).append(location(segment.slot, entry.offset));
+            }
+        }
+        return files.isEmpty() ? 0 : files.lastKey() + 1;
+    }
+
+    private List<HintEntry> scan(Path path, int id) throws IOException {
+        List<HintEntry> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int offset = SEGMENT_HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            while (offset + RECORD_HEADER_SIZE <= size) {
+                int length = buffer.getInt(offset);
+                if (length < MIN_PAYLOAD_SIZE || offset + RECORD_HEADER_SIZE + (long) length > size) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, length));
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    break;
+                }
+                entries.add(new HintEntry(new UUID(buffer.getLong(offset + 8), buffer.getLong(offset + 16)), offset));
+                offset += RECORD_HEADER_SIZE + length;
+            }
+            if (offset < size) {
+                log.warn("Truncating torn tail of segment {} at offset {} ({} bytes)", id, offset, size - offset);
+                channel.truncate(offset);
+                channel.force(true);
+            }
+            return entries;
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Path path = segmentPath(id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        writeFully(channel, segmentHeader(id), 0);
+        Segment segment = new Segment(id, id, nextSlot.getAndIncrement(), path);
+        segment.channel = channel;
+        segment.size = SEGMENT_HEADER_SIZE;
+        segment.hintEntries = ByteBuffer.allocate(1024 * HINT_ENTRY_SIZE);
+        segmentsBySlot.put(segment.slot, segment);
+        segmentsById.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSealed(int id, int baseId, int slot, Path path) throws IOException {
+        Segment segment = new Segment(id, baseId, slot, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment.size = channel.size();
+            segment.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        }
+        return segment;
+    }
+
+    private Integer readBaseId(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            if (channel.size() < SEGMENT_HEADER_SIZE) {
+                return null;
+            }
+            readFully(channel, header, 0);
+            return header.getInt(0) == SEGMENT_MAGIC ? header.getInt(4) : null;
+        }
+    }
+
+    /**
+     * @param entries Encoded hint entries, between position and limit
+     */
+    private void writeHint(Segment segment, ByteBuffer entries) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HINT_HEADER_SIZE)
+                .putInt(HINT_MAGIC).putLong(segment.size).putInt(entries.remaining() / HINT_ENTRY_SIZE)
+                .flip();
+        Path tmp = directory.resolve(segmentFileName(segment.id) + HINT_SUFFIX + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(channel, header, 0);
+            writeFully(channel, entries, HINT_HEADER_SIZE);
+            channel.force(true);
+        }
+        Files.move(tmp, hintPath(segment.id), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<HintEntry> readHint(int id, long segmentSize) throws IOException {
+        Path path = hintPath(id);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HINT_HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int count = buffer.getInt(12);
+            if (buffer.getInt(0) != HINT_MAGIC || buffer.getLong(4) != segmentSize
+                    || size != HINT_HEADER_SIZE + (long) count * HINT_ENTRY_SIZE) {
+                log.warn("Ignoring stale hint file for segment {}", id);
+                return null;
+            }
+            List<HintEntry> entries = new ArrayList<>(count);
+            int position = HINT_HEADER_SIZE;
+            for (int i = 0; i < count; i++, position += HINT_ENTRY_SIZE) {
+                entries.add(new HintEntry(new UUID(buffer.getLong(position), buffer.getLong(position + 8)),
+                        buffer.getInt(position + 16)));
+            }
+            return entries;
+        }
+    }
+
+    private static ByteBuffer hintEntries(List<HintEntry> entries) {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * HINT_ENTRY_SIZE);
+        for (HintEntry entry : entries) {
+            putHintEntry(buffer, entry.userId, entry.offset);
+        }
+        return buffer.flip();
+    }
+
+    private static void putHintEntry(ByteBuffer buffer, UUID userId, int offset) {
+        buffer.putLong(userId.getMostSignificantBits()).putLong(userId.getLeastSignificantBits()).putInt(offset);
+    }
+
+    private static ByteBuffer encode(UUID userId, Document document) {
+        DocumentId documentId = document.id();
+        byte[] content = document.content() == null ? null : document.content().getBytes(StandardCharsets.UTF_8);
+        int payloadLength = MIN_PAYLOAD_SIZE + (content == null ? 0 : content.length);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadLength);
+        buffer.position(RECORD_HEADER_SIZE);
+        buffer.putLong(userId.getMostSignificantBits()).putLong(userId.getLeastSignificantBits());
+        if (documentId != null && documentId.uuid() != null) {
+            buffer.put((byte) 1)
+                    .putLong(documentId.uuid().getMostSignificantBits())
+                    .putLong(documentId.uuid().getLeastSignificantBits());
+        } else {
+            buffer.put((byte) 0).putLong(0).putLong(0);
+        }
+        buffer.putInt(content == null ? -1 : content.length);
+        if (content != null) {
+            buffer.put(content);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, payloadLength);
+        buffer.putInt(0, payloadLength).putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Document decode(ByteBuffer buffer, int payloadOffset) {
+        int position = payloadOffset + 16;
+        DocumentId documentId = buffer.get(position) == 1
+                ? DocumentId.of(new UUID(buffer.getLong(position + 1), buffer.getLong(position + 9)))
+                : null;
+        position += 17;
+        int contentLength = buffer.getInt(position);
+        String content = null;
+        if (contentLength >= 0) {
+            byte[] bytes = new byte[contentLength];
+            buffer.get(position + 4, bytes);
+            content = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Document(documentId, content);
+    }
+
+    private static ByteBuffer segmentHeader(int baseId) {
+        return ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(SEGMENT_MAGIC).putInt(baseId).flip();
+    }
+
+    private static long location(int slot, long offset) {
+        return ((long) slot << OFFSET_BITS) | offset;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(segmentFileName(id));
+    }
+
+    private Path hintPath(int id) {
+        return directory.resolve(segmentFileName(id) + HINT_SUFFIX);
+    }
+
+    private static String segmentFileName(int id) {
+        return String.format("segment-%010d%s", id, SEGMENT_SUFFIX);
+    }
+
+    private static final class Segment {
+        final int id;
+        final int baseId;
+        final int slot;
+        final Path path;
+        // Set for segments created by this process; closed once the segment is sealed and mapped
+        FileChannel channel;
+        volatile MappedByteBuffer mapped;
+        volatile long size;
+        // Hint entries of the active segment, guarded by writeLock
+        ByteBuffer hintEntries;
+
+        Segment(int id, int baseId, int slot, Path path) {
+            this.id = id;
+            this.baseId = baseId;
+            this.slot = slot;
+            this.path = path;
+        }
+
+        void addHintEntry(UUID userId, int offset) {
+            if (hintEntries.remaining() < HINT_ENTRY_SIZE) {
+                hintEntries = ByteBuffer.allocate(hintEntries.capacity() * 2).put(hintEntries.flip());
+            }
+            putHintEntry(hintEntries, userId, offset);
+        }
+    }
+
+    private record HintEntry(UUID userId, int offset) {
+    }
+
+    /**
+     * @param epoch Epoch of the reads that may still hold locations in the segment, and of the reads before
+     */
+    private record RetiredSegment(Segment segment, long epoch) {
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Document store that keeps documents off-heap. Documents are lost on restart.
+ *
+ * Each document is encoded into a {@link SlabArena}, and the heap index only holds one primitive
+ * long handle per document in a per-user {@link LocationList}; appends of one user are serialized by
+ * a short lock on that list, reads take none. Content of at least the compression threshold is
+ * deflated when that makes it smaller. Deflaters and inflaters hold native zlib memory, so a few
+ * are pooled and reused, and all of them are ended when the store is closed.
+ *
+ * Documents are decoded only when a caller reads an element of a returned list, e.g. while the
+ * response is being serialized, so a large list never exists on the heap as a whole.
+ *
+ * Record layout:
+ * <pre>
+ * byte flags (bit 0: has document ID, bit 1: content is null, bit 2: content is deflated),
+ * long document ID msb, long document ID lsb, int content length, int stored length, stored content
+ * </pre>
+ */
+public class OffHeapDocumentStore implements DocumentStore, Closeable {
+    private static final int FLAG_HAS_ID = 1;
+    private static final int FLAG_NULL_CONTENT = 2;
+    private static final int FLAG_DEFLATED = 4;
+    private static final int HEADER_SIZE = 1 + 16 + 4 + 4;
+
+    private static final int CODEC_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private final ConcurrentHashMap<UUID, LocationList> userDocuments = new ConcurrentHashMap<>();
+    private final SlabArena arena;
+    private final int compressionThreshold;
+    private final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
+    private final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
+    private volatile boolean closed;
+
+    /**
+     * @param slabSize Size of each off-heap slab in bytes
+     * @param compressionThreshold Content of at least this many bytes is deflated; 0 disables compression
+     */
+    public OffHeapDocumentStore(int slabSize, int compressionThreshold) {
+        this.arena = new SlabArena(slabSize);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public void append(UUID userId, Document document) {
+        long handle = arena.write(encode(document));
+        LocationList handles = userDocuments.computeIfAbsent(userId, k -> new LocationList());
+        synchronized (handles) {
+            handles.append(handle);
+        }
+    }
+
+    @Override
+    public List<Document> findByUserId(UUID userId) {
+        LocationList handles = userDocuments.get(userId);
+        if (handles == null) {
+            return Collections.emptyList();
+        }
+        // Size first: the array read afterwards holds at least that many handles, and they never change
+        int size = handles.size();
+        return new LazyDocumentList(handles.array(), size);
+    }
+
+    @Override
+    public List<Document> findPageByUserId(UUID userId, int fromIndex, int limit) {
+        List<Document> documents = findByUserId(userId);
+        int size = documents.size();
+        if (fromIndex >= size) {
+            return Collections.emptyList();
+        }
+        return documents.subList(fromIndex, (int) Math.min(size, (long) fromIndex + limit));
+    }
+
+    @Override
+    public void forEachByUserId(UUID userId, Consumer<Document> consumer) {
+        findByUserId(userId).forEach(consumer);
+    }
+
+    @Override
+    public int userCount() {
+        return userDocuments.size();
+    }
+
+    @Override
+    public long documentCount() {
+        long count = 0;
+        for (LocationList documents : userDocuments.values()) {
+            count += documents.size();
+        }
+        return count;
+    }
+
+    /**
+     * End the pooled deflaters and inflaters. Documents stay readable; later calls create and end
+     * their own.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Deflater deflater = deflaters.poll(); deflater != null; deflater = deflaters.poll()) {
+            deflater.end();
+        }
+        for (Inflater inflater = inflaters.poll(); inflater != null; inflater = inflaters.poll()) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return Off-heap bytes used by stored documents
+     */
+    public long offHeapBytes() {
+        return arena.allocatedBytes();
+    }
+
+    private byte[] encode(Document document) {
+        int flags = 0;
+        UUID id = document.id() == null ? null : document.id().uuid();
+        if (id != null) {
+            flags |= FLAG_HAS_ID;
+        }
+        byte[] content = new byte[0];
+        int contentLength = 0;
+        if (document.content() == null) {
+            flags |= FLAG_NULL_CONTENT;
+        } else {
+            content = document.content().getBytes(StandardCharsets.UTF_8);
+            contentLength = content.length;
+            if (compressionThreshold > 0 && content.length >= compressionThreshold) {
+                byte[] deflated = deflate(content);
+                if (deflated.length < content.length) {
+                    content = deflated;
+                    flags |= FLAG_DEFLATED;
+                }
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + content.length);
+        record.put((byte) flags)
+                .putLong(id == null ? 0 : id.getMostSignificantBits())
+                .putLong(id == null ? 0 : id.getLeastSignificantBits())
+                .putInt(contentLength)
+                .putInt(content.length)
+                .put(content);
+        return record.array();
+    }
+
+    private Document decode(long handle) {
+        ByteBuffer slab = arena.slab(handle);
+        int offset = SlabArena.offset(handle);
+        int flags = slab.get(offset);
+        DocumentId id = (flags & FLAG_HAS_ID) != 0
+                ? DocumentId.of(new UUID(slab.getLong(offset + 1), slab.getLong(offset + 9)))
+                : null;
+        if ((flags & FLAG_NULL_CONTENT) != 0) {
+            return new Document(id, null);
+        }
+        int contentLength = slab.getInt(offset + 17);
+        byte[] stored = new byte[slab.getInt(offset + 21)];
+        slab.get(offset + HEADER_SIZE, stored);
+        byte[] content = (flags & FLAG_DEFLATED) != 0 ? inflate(stored, contentLength) : stored;
+        return new Document(id, new String(content, StandardCharsets.UTF_8));
+    }
+
+    private byte[] deflate(byte[] content) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            if (closed || !deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private byte[] inflate(byte[] stored, int contentLength) {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        inflater.setInput(stored);
+        byte[] content = new byte[contentLength];
+        try {
+            int inflated = 0;
+            while (inflated < contentLength) {
+                int read = inflater.inflate(content, inflated, contentLength - inflated);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += read;
+            }
+            if (inflated != contentLength) {
+                throw new IllegalStateException("Corrupt document content: expected " + contentLength + " bytes, got " + inflated);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt document content", e);
+        } finally {
+            inflater.reset();
+            if (closed || !inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Read-only list that decodes each document from the arena when it is accessed.
+     */
+    private final class LazyDocumentList extends AbstractList<Document> implements RandomAccess {
+        private final long[] handles;
+        private final int size;
+
+        LazyDocumentList(long[] handles, int size) {
+            this.handles = handles;
+            this.size = size;
+        }
+
+        @Override
+        public Document get(int index) {
+            Objects.checkIndex(index, size);
+            return decode(handles[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
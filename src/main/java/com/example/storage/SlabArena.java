@@ -0,0 +1,74 @@
+package com.example.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Bump allocator over off-heap slabs.
+ *
+ * Memory is taken from direct buffers of a fixed slab size, so it is not part of the Java heap
+ * and does not add to GC work. Allocations are never freed individually. A record is addressed
+ * by a handle that packs the slab index and the offset within the slab; records larger than a
+ * slab get a slab of their own.
+ *
+ * Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ */
+final class SlabArena {
+    private final int slabSize;
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private int currentSlab = -1;
+    private int position;
+    private long allocatedBytes;
+
+    SlabArena(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Copy a record into the arena.
+     *
+     * @param record The record bytes
+     * @return Handle of the record
+     */
+    long write(byte[] record) {
+        long handle = allocate(record.length);
+        slab(handle).put(offset(handle), record);
+        return handle;
+    }
+
+    ByteBuffer slab(long handle) {
+        return slabs[(int) (handle >>> 32)];
+    }
+
+    static int offset(long handle) {
+        return (int) handle;
+    }
+
+    synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private synchronized long allocate(int size) {
+        if (size > slabSize) {
+            // An oversized record gets a slab of its own; small records keep using the current slab
+            allocatedBytes += size;
+            return (long) addSlab(size) << 32;
+        }
+        if (currentSlab < 0 || position + size > slabSize) {
+            currentSlab = addSlab(slabSize);
+            position = 0;
+        }
+        long handle = ((long) currentSlab << 32) | position;
+        position += size;
+        allocatedBytes += size;
+        return handle;
+    }
+
+    private int addSlab(int capacity) {
+        ByteBuffer[] extended = Arrays.copyOf(slabs, slabs.length + 1);
+        extended[slabs.length] = ByteBuffer.allocateDirect(capacity);
+        // Slabs are only appended, so existing handles stay valid
+        slabs = extended;
+        return extended.length - 1;
+    }
+}
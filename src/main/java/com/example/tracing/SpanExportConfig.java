@@ -0,0 +1,34 @@
+package com.example.tracing;
+
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.ConditionalOnEnabledTracing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Exporters of finished spans. Spring Boot hands every {@link SpanExporter} bean to the OpenTelemetry
+ * tracer, so another exporter (e.g. OTLP to a tracing backend) is added by declaring its bean.
+ * - tracing.export.log: one log line per span (default true)
+ * - tracing.export.file: JSON lines file of all spans (off unless set)
+ */
+@Configuration
+@ConditionalOnEnabledTracing
+public class SpanExportConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.export.log", havingValue = "true", matchIfMissing = true)
+    public SpanExporter logSpanExporter() {
+        return new LogSpanExporter();
+    }
+
+    @Bean
+    @ConditionalOnProperty("tracing.export.file")
+    public SpanExporter fileSpanExporter(@Value("${tracing.export.file}") Path file) throws IOException {
+        return new FileSpanExporter(file);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One finished span, as written by the span exporters.
+ *
+ * @param traceId W3C trace ID (32 hex digits), shared by every span of a request across services
+ * @param spanId W3C span ID (16 hex digits)
+ * @param parentId Span ID of the parent span, null for the first span of a trace
+ * @param name e.g. "http get /api/users/{id}" for a controller request, "get" for a Feign call
+ * @param kind SERVER for controller requests, CLIENT for Feign and WebClient calls
+ * @param startEpochMicros Start time, in microseconds since the epoch
+ * @param durationMicros Time between start and end of the span
+ * @param status OK, or ERROR when the request or call failed
+ * @param attributes Tags of the span, e.g. uri, status, client.name, feign.method
+ */
+public record SpanRecord(String traceId, String spanId, String parentId, String name, String kind,
+                         long startEpochMicros, long durationMicros, String status, Map<String, String> attributes) {
+
+    public static SpanRecord of(SpanData span) {
+        String parentId = span.getParentSpanContext().isValid() ? span.getParentSpanId() : null;
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((AttributeKey<?> key, Object value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return new SpanRecord(
+                span.getTraceId(),
+                span.getSpanId(),
+                parentId,
+                span.getName(),
+                span.getKind().name(),
+                TimeUnit.NANOSECONDS.toMicros(span.getStartEpochNanos()),
+                TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()),
+                span.getStatus().getStatusCode() == StatusCode.ERROR ? "ERROR" : "OK",
+                attributes);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchingPermissionServiceClientTest {
+
+    @Test
+    void shouldAnswerConcurrentPermissionChecksWithOneBatchCall() {
+        // Given: permission-service, which only expects batch lookups
+        UUID reader = UUID.randomUUID();
+        UUID stranger = UUID.randomUUID();
+        List<Set<UUID>> batches = new CopyOnWriteArrayList<>();
+        PermissionServiceClient delegate = (PermissionServiceClient) Proxy.newProxyInstance(
+                PermissionServiceClient.class.getClassLoader(), new Class<?>[]{PermissionServiceClient.class},
+                (proxy, method, args) -> {
+                    assertThat(method.getName()).isEqualTo("getPermissionsByUserIds");
+                    @SuppressWarnings("unchecked")
+                    Set<UUID> userIds = Set.copyOf((Set<UUID>) args[0]);
+                    batches.add(userIds);
+                    Map<UUID, List<String>> permissions = new HashMap<>();
+                    userIds.forEach(userId -> permissions.put(userId,
+                            userId.equals(reader) ? List.of("document-read") : List.of()));
+                    return permissions;
+                });
+
+        try (RequestBatcher<UUID, List<String>> batcher = new RequestBatcher<>("test",
+                delegate::getPermissionsByUserIds, Duration.ofMillis(50), 100, 1)) {
+            BatchingPermissionServiceClient client = new BatchingPermissionServiceClient(delegate, batcher);
+
+            // When: Checking permissions of two users at the same time
+            CompletableFuture<Boolean> readerCheck =
+                    CompletableFuture.supplyAsync(() -> client.hasPermission(reader, "document-read"));
+            CompletableFuture<Boolean> strangerCheck =
+                    CompletableFuture.supplyAsync(() -> client.hasPermission(stranger, "document-read"));
+
+            // Then: Both are answered from one batch request
+            assertThat(readerCheck.join()).isTrue();
+            assertThat(strangerCheck.join()).isFalse();
+            assertThat(batches).containsExactly(Set.of(reader, stranger));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.client;
+
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BudgetedRetryerTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://localhost/api/users",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    @Test
+    void shouldStopRetryingWhenBudgetIsExhausted() {
+        Retryer retryer = new BudgetedRetryer(5, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(5),
+                new RetryBudget(1, 0));
+
+        // Only the first retry of all calls of the client gets a token
+        assertThatCode(() -> retryer.clone().continueOrPropagate(failure())).doesNotThrowAnyException();
+        assertThatThrownBy(() -> retryer.clone().continueOrPropagate(failure())).isInstanceOf(RetryableException.class);
+    }
+
+    @Test
+    void shouldStopRetryingAtMaxAttempts() {
+        Retryer retryer = new BudgetedRetryer(2, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(5),
+                new RetryBudget(10, 0)).clone();
+
+        assertThatCode(() -> retryer.continueOrPropagate(failure())).doesNotThrowAnyException();
+        assertThatThrownBy(() -> retryer.continueOrPropagate(failure())).isInstanceOf(RetryableException.class);
+    }
+
+    @Test
+    void shouldNotRetryPastTheCallersDeadline() {
+        Retryer retryer = new BudgetedRetryer(5, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(5),
+                new RetryBudget(10, 0)).clone();
+
+        assertThatThrownBy(() -> RequestDeadline.callWithin(System.nanoTime() - 1, () -> {
+            retryer.continueOrPropagate(failure());
+            return null;
+        })).isInstanceOf(RetryableException.class);
+    }
+
+    private static RetryableException failure() {
+        return new RetryableException(-1, "Connection refused", Request.HttpMethod.GET, (Long) null, REQUEST);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.client;
+
+import feign.Client;
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalCachingClientTest {
+
+    interface Api {
+        @ConditionalGet
+        @RequestLine("GET /conditional")
+        String conditional();
+
+        @RequestLine("GET /plain")
+        String plain();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedFromCachedResponse() throws Exception {
+        // Given: A server that answers 304 while the client's ETag is current
+        AtomicReference<String> version = new AtomicReference<>("\"v1\"");
+        List<Collection<String>> sentIfNoneMatch = new ArrayList<>();
+        Client delegate = (request, options) -> {
+            Collection<String> ifNoneMatch = request.headers().get("If-None-Match");
+            sentIfNoneMatch.add(ifNoneMatch);
+            if (ifNoneMatch != null && ifNoneMatch.contains(version.get())) {
+                return response(request, 304, version.get(), null);
+            }
+            return response(request, 200, version.get(), "body of " + version.get());
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConditionalCachingClient client = new ConditionalCachingClient("test", delegate, 1 << 20, meterRegistry);
+
+        // When: Calling three times, with a change before the third call
+        String first = body(client.execute(request("conditional"), new Request.Options()));
+        String second = body(client.execute(request("conditional"), new Request.Options()));
+        version.set("\"v2\"");
+        String third = body(client.execute(request("conditional"), new Request.Options()));
+
+        // Then: The unchanged response comes from the cache, the changed one from the server
+        assertThat(first).isEqualTo("body of \"v1\"");
+        assertThat(second).isEqualTo("body of \"v1\"");
+        assertThat(third).isEqualTo("body of \"v2\"");
+        assertThat(sentIfNoneMatch).containsExactly(null, List.of("\"v1\""), List.of("\"v1\""));
+        assertThat(meterRegistry.get("feign.client.response.cache").tag("result", "not_modified").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("feign.client.response.cache").tag("result", "modified").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheMethodsWithoutAnnotation() throws Exception {
+        List<Collection<String>> sentIfNoneMatch = new ArrayList<>();
+        Client delegate = (request, options) -> {
+            sentIfNoneMatch.add(request.headers().get("If-None-Match"));
+            return response(request, 200, "\"v1\"", "plain");
+        };
+        ConditionalCachingClient client = new ConditionalCachingClient("test", delegate, 1 << 20,
+                new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(body(client.execute(request("plain"), new Request.Options()))).isEqualTo("plain");
+        }
+        assertThat(sentIfNoneMatch).containsOnlyNulls();
+    }
+
+    private static Request request(String methodName) {
+        MethodMetadata metadata = new Contract.Default().parseAndValidateMetadata(Api.class).stream()
+                .filter(candidate -> candidate.method().getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        RequestTemplate template = new RequestTemplate()
+                .method(Request.HttpMethod.GET)
+                .target("http://localhost")
+                .uri("/" + methodName)
+                .methodMetadata(metadata);
+        return template.resolve(Map.of()).request();
+    }
+
+    private static Response response(Request request, int status, String eTag, String body) {
+        Response.Builder builder = Response.builder()
+                .status(status)
+                .request(request)
+                .headers(Map.of("ETag", List.of(eTag)));
+        return body == null ? builder.build() : builder.body(body, Util.UTF_8).build();
+    }
+
+    private static String body(Response response) throws Exception {
+        try (response) {
+            return Util.toString(response.body().asReader(Util.UTF_8));
+        }
+    }
+}
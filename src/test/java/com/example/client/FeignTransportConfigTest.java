@@ -0,0 +1,95 @@
+package com.example.client;
+
+import feign.Client;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeignTransportConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ClientContext.class, FeignTransportConfig.class)
+            .withPropertyValues("spring.cloud.openfeign.client.name=document-service",
+                    "feign.client.response-cache.enabled=false");
+
+    @Test
+    void shouldUsePooledHc5ClientWithPoolMetersByDefault() {
+        runner.withPropertyValues("feign.client.transport.max-connections=7")
+                .run(context -> {
+                    // The transport sits behind the bulkhead and circuit breaker
+                    assertThat(context).getBean(Client.class).isInstanceOf(ResilientClient.class)
+                            .extracting("delegate").isInstanceOf(FeignTransportConfig.ClosingClient.class)
+                            .extracting("delegate").isInstanceOf(ApacheHttp5Client.class);
+                    MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+                    assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                            .tag("httpclient", "document-service").gauge().value()).isEqualTo(7);
+                });
+    }
+
+    @Test
+    void shouldUseHttp2ClientOfClientOverride() {
+        runner.withPropertyValues("feign.client.transport.clients.document-service.type=http2")
+                .run(context -> {
+                    assertThat(context).getBean(Client.class)
+                            .extracting("delegate").isInstanceOf(FeignTransportConfig.ClosingClient.class)
+                            .extracting("delegate").isInstanceOf(Http2Client.class);
+                    assertThat(context.getBean(MeterRegistry.class).find("httpcomponents.httpclient.pool.total.max")
+                            .gauge()).isNull();
+                });
+    }
+
+    @Test
+    void shouldFailOnUnknownTransport() {
+        runner.withPropertyValues("feign.client.transport.type=okhttp")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseMessage(
+                                "Unknown Feign transport [okhttp] for client document-service, expected hc5 or http2"));
+    }
+
+    /**
+     * Beans that FeignClientConfig and the application context provide to a Feign client context.
+     */
+    @Configuration
+    @EnableConfigurationProperties({FeignTransportProperties.class, FeignRetryProperties.class,
+            FeignResponseCacheProperties.class})
+    static class ClientContext {
+
+        @Bean
+        Request.Options requestOptions() {
+            return new Request.Options(1, TimeUnit.SECONDS, 1, TimeUnit.SECONDS, true);
+        }
+
+        @Bean
+        RetryBudget retryBudget() {
+            return new RetryBudget(20, 5);
+        }
+
+        @Bean
+        CircuitBreakerRegistry circuitBreakerRegistry() {
+            return CircuitBreakerRegistry.ofDefaults();
+        }
+
+        @Bean
+        BulkheadRegistry bulkheadRegistry() {
+            return BulkheadRegistry.ofDefaults();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.client;
+
+import feign.Client;
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Util;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingClientTest {
+
+    interface Api {
+        @Hedged
+        @RequestLine("GET /hedged")
+        String hedged();
+
+        @RequestLine("GET /plain")
+        String plain();
+    }
+
+    @Test
+    void shouldAnswerSlowCallFromHedgedRequest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger slowCall = new AtomicInteger(-1);
+        Client delegate = (request, options) -> {
+            int call = calls.incrementAndGet();
+            if (call == slowCall.get()) {
+                sleep(2000);
+                return response(request, "slow");
+            }
+            return response(request, "fast");
+        };
+
+        try (HedgingClient client = new HedgingClient("test", delegate, new RetryBudget(10, 0), 0.95,
+                Duration.ofMillis(20), 32, 8)) {
+            Request request = request("hedged");
+            for (int i = 0; i < 32; i++) {
+                client.execute(request, new Request.Options()).close();
+            }
+            slowCall.set(33);
+
+            long start = System.nanoTime();
+            try (Response response = client.execute(request, new Request.Options())) {
+                assertThat(Util.toString(response.body().asReader(Util.UTF_8))).isEqualTo("fast");
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+            assertThat(calls.get()).isEqualTo(34);
+        }
+    }
+
+    @Test
+    void shouldRunAttemptsWithCallersContext() throws Exception {
+        List<String> requestIds = new CopyOnWriteArrayList<>();
+        List<OptionalLong> deadlines = new CopyOnWriteArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            requestIds.add(MDC.get("requestId"));
+            deadlines.add(RequestDeadline.current());
+            if (calls.incrementAndGet() == 33) {
+                sleep(500);
+            }
+            return response(request, "ok");
+        };
+
+        try (HedgingClient client = new HedgingClient("test", delegate, new RetryBudget(10, 0), 0.95,
+                Duration.ofMillis(20), 32, 8)) {
+            Request request = request("hedged");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            MDC.put("requestId", "req-1");
+            try {
+                RequestDeadline.callWithin(deadline, () -> {
+                    for (int i = 0; i < 33; i++) {
+                        client.execute(request, new Request.Options()).close();
+                    }
+                    return null;
+                });
+            } finally {
+                MDC.remove("requestId");
+            }
+
+            // The last call was slow enough to be hedged; every attempt saw the caller's context
+            assertThat(calls.get()).isEqualTo(34);
+            assertThat(requestIds).containsOnly("req-1");
+            assertThat(deadlines).containsOnly(OptionalLong.of(deadline));
+        }
+    }
+
+    @Test
+    void shouldNotHedgeMethodsWithoutAnnotation() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            calls.incrementAndGet();
+            return response(request, "ok");
+        };
+
+        try (HedgingClient client = new HedgingClient("test", delegate, new RetryBudget(10, 0), 0.95,
+                Duration.ofMillis(1), 1, 8)) {
+            for (int i = 0; i < 64; i++) {
+                client.execute(request("plain"), new Request.Options()).close();
+            }
+        }
+        assertThat(calls.get()).isEqualTo(64);
+    }
+
+    private static Request request(String methodName) {
+        MethodMetadata metadata = new Contract.Default().parseAndValidateMetadata(Api.class).stream()
+                .filter(candidate -> candidate.method().getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        RequestTemplate template = new RequestTemplate()
+                .method(Request.HttpMethod.GET)
+                .target("http://localhost")
+                .uri("/" + methodName)
+                .methodMetadata(metadata);
+        return template.resolve(Map.of()).request();
+    }
+
+    private static Response response(Request request, String body) {
+        return Response.builder()
+                .status(200)
+                .request(request)
+                .headers(Map.of())
+                .body(body, Util.UTF_8)
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
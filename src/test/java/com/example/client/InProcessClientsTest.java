@@ -0,0 +1,115 @@
+package com.example.client;
+
+import com.example.controller.PermissionController;
+import com.example.controller.UserController;
+import com.example.dto.PermissionGrant;
+import com.example.model.User;
+import com.example.persistence.StatePersistence;
+import com.example.service.PermissionGrantOutbox;
+import com.example.service.PermissionRegistry;
+import com.example.service.PermissionService;
+import com.example.service.UserService;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InProcessClientsTest {
+
+    private final UserController userController = new UserController(
+            new UserService(new PermissionGrantOutbox(), StatePersistence.inMemory(), new SimpleMeterRegistry()), 50, 500);
+
+    @Test
+    void shouldThrowFeignExceptionsOfEndpointStatus() {
+        // Given: A client of a co-located user-service with one user
+        UserServiceClient client = new InProcessUserServiceClient(userController);
+        User created = client.createUser(User.builder().username("dana").email("dana@example.com").build());
+
+        // Then: Results are those of the controller
+        assertThat(client.getUserById(created.id())).isEqualTo(created);
+        assertThat(client.getUserByUsername("DANA")).isEqualTo(created);
+
+        // And: Errors are those of the Feign client, whether returned or thrown by the controller
+        assertThatThrownBy(() -> client.getUserById(UUID.randomUUID()))
+                .isInstanceOf(FeignException.NotFound.class)
+                .hasMessageContaining("UserServiceClient#getUserById(UUID)");
+        assertThatThrownBy(() -> client.createUser(User.builder().username("dana").email("dana2@example.com").build()))
+                .isInstanceOf(FeignException.Conflict.class);
+        assertThatThrownBy(() -> client.getUserPage("not a cursor", null))
+                .isInstanceOf(FeignException.BadRequest.class);
+        assertThatThrownBy(() -> client.createUser(User.builder().username("erin").build()))
+                .isInstanceOf(FeignException.BadRequest.class);
+    }
+
+    @Test
+    void shouldThrowFeignExceptionsOfPermissionEndpointStatus() {
+        // Given: A client of a co-located permission-service whose single grants fail
+        PermissionService permissionService = new PermissionService(new PermissionRegistry(), event -> {
+        }, StatePersistence.inMemory(), new SimpleMeterRegistry());
+        PermissionServiceClient client = new InProcessPermissionServiceClient(new PermissionController(permissionService) {
+            @Override
+            public ResponseEntity<Void> addPermission(UUID userId, String permission) {
+                throw new IllegalStateException("No space left on device");
+            }
+
+            @Override
+            public ResponseEntity<Boolean> hasPermission(UUID userId, String permission) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down");
+            }
+        });
+        UUID userId = UUID.randomUUID();
+
+        // Then: Results are those of the controller
+        client.addPermissions(List.of(new PermissionGrant(UUID.randomUUID(), userId, "document-read")));
+        assertThat(client.getPermissionsByUserId(userId)).containsExactly("document-read");
+        assertThat(client.getPermissionsByUserIds(Set.of(userId))).containsEntry(userId, List.of("document-read"));
+
+        // And: Batches over the limit are rejected with 400, as permission-service answers them
+        Set<UUID> tooManyUsers = IntStream.range(0, 1001).mapToObj(i -> UUID.randomUUID()).collect(Collectors.toSet());
+        assertThatThrownBy(() -> client.getPermissionsByUserIds(tooManyUsers))
+                .isInstanceOf(FeignException.BadRequest.class)
+                .hasMessageContaining("PermissionServiceClient#getPermissionsByUserIds(Set)");
+        List<PermissionGrant> tooManyGrants = Collections.nCopies(1001, new PermissionGrant(UUID.randomUUID(), userId, "x"));
+        assertThatThrownBy(() -> client.addPermissions(tooManyGrants))
+                .isInstanceOf(FeignException.BadRequest.class)
+                .hasMessageContaining("PermissionServiceClient#addPermissions(List)");
+
+        // And: A thrown status is kept, and any other exception is the 500 Spring MVC would answer with
+        assertThatThrownBy(() -> client.hasPermission(userId, "document-read"))
+                .isInstanceOf(FeignException.ServiceUnavailable.class);
+        assertThatThrownBy(() -> client.addPermission(userId, "WRITE"))
+                .isInstanceOf(FeignException.InternalServerError.class)
+                .hasMessageContaining("No space left on device");
+    }
+
+    @Test
+    void shouldCallControllerOnlyWhenEnabledAndColocated() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withUserConfiguration(InProcessClientConfig.class)
+                .withBean(UserController.class, () -> userController);
+
+        // Given: The profile of user-service is active, so its controller is a bean
+        runner.withPropertyValues("feign.client.in-process.enabled=true", "spring.profiles.active=user-service")
+                .run(context -> {
+                    assertThat(context).getBean(UserServiceClient.class).isInstanceOf(InProcessUserServiceClient.class);
+                    assertThat(context).doesNotHaveBean(PermissionServiceClient.class);
+                });
+        runner.withPropertyValues("feign.client.in-process.enabled=false", "spring.profiles.active=user-service")
+                .run(context -> assertThat(context).doesNotHaveBean(UserServiceClient.class));
+        runner.withPropertyValues("feign.client.in-process.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(UserServiceClient.class));
+    }
+}
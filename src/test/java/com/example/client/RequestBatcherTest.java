@@ -0,0 +1,187 @@
+package com.example.client;
+
+import feign.Request;
+import feign.RetryableException;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestBatcherTest {
+
+    private static final Request REQUEST = BatchingClients.request("/api/test/1");
+
+    @Test
+    void shouldResolveConcurrentLookupsWithOneBatchCall() {
+        List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+        try (RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> {
+            batches.add(Set.copyOf(keys));
+            Map<Integer, String> result = new HashMap<>();
+            keys.stream().filter(key -> key != 3).forEach(key -> result.put(key, "value-" + key));
+            return result;
+        }, Duration.ofMillis(50), 100, 1)) {
+
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int key = 1; key <= 3; key++) {
+                futures.add(batcher.submit(key));
+            }
+            // The same key within one window shares a single lookup
+            futures.add(batcher.submit(1));
+
+            assertThat(futures.get(0).join()).isEqualTo("value-1");
+            assertThat(futures.get(1).join()).isEqualTo("value-2");
+            assertThat(futures.get(2).join()).isNull();
+            assertThat(futures.get(3)).isSameAs(futures.get(0));
+            assertThat(batches).containsExactly(Set.of(1, 2, 3));
+        }
+    }
+
+    @Test
+    void shouldSendBatchAsSoonAsItIsFull() {
+        List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+        try (RequestBatcher<Integer, Integer> batcher = new RequestBatcher<>("test", keys -> {
+            batches.add(Set.copyOf(keys));
+            Map<Integer, Integer> result = new HashMap<>();
+            keys.forEach(key -> result.put(key, key));
+            return result;
+        }, Duration.ofMinutes(1), 2, 1)) {
+
+            CompletableFuture<Integer> first = batcher.submit(1);
+            CompletableFuture<Integer> second = batcher.submit(2);
+
+            assertThat(first.join()).isEqualTo(1);
+            assertThat(second.join()).isEqualTo(2);
+            assertThat(batches).containsExactly(Set.of(1, 2));
+        }
+    }
+
+    @Test
+    void shouldFailEveryCallerWhenBatchCallFails() {
+        try (RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> {
+            throw new IllegalStateException("downstream failure");
+        }, Duration.ofMillis(10), 100, 1)) {
+
+            CompletableFuture<String> first = batcher.submit(1);
+            CompletableFuture<String> second = batcher.submit(2);
+
+            assertThatThrownBy(() -> BatchingClients.join(first, REQUEST)).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> BatchingClients.join(second, REQUEST)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void shouldFailPendingAndLaterLookupsWhenClosed() {
+        // Given: A lookup waiting for its window to close
+        RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> Map.of(),
+                Duration.ofMinutes(1), 100, 1);
+        CompletableFuture<String> pending = batcher.submit(1);
+
+        // When: Closing the batcher
+        batcher.close();
+
+        // Then: The pending lookup and every later one fail instead of waiting forever
+        assertThatThrownBy(() -> BatchingClients.join(pending, REQUEST)).isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> BatchingClients.join(batcher.submit(2), REQUEST))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void shouldStopWaitingAtCallersDeadline() {
+        // Given: A batch call that outlives the caller's deadline
+        CountDownLatch release = new CountDownLatch(1);
+        try (RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> {
+            await(release);
+            return Map.of();
+        }, Duration.ofMillis(1), 100, 1)) {
+
+            // When: Waiting for a lookup within a 100ms deadline
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+
+            // Then: The wait ends at the deadline, as a direct call's retries would
+            assertThatThrownBy(() -> RequestDeadline.callWithin(deadline,
+                    () -> BatchingClients.join(batcher.submit(1), REQUEST)))
+                    .isInstanceOf(RetryableException.class)
+                    .hasCauseInstanceOf(SocketTimeoutException.class);
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldStopWaitingWhenCallerIsInterrupted() throws Exception {
+        // Given: A caller waiting for a batch call that does not return
+        CountDownLatch release = new CountDownLatch(1);
+        try (RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> {
+            await(release);
+            return Map.of();
+        }, Duration.ofMillis(1), 100, 1)) {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            Thread caller = new Thread(() -> {
+                try {
+                    BatchingClients.join(batcher.submit(1), REQUEST);
+                } catch (Throwable t) {
+                    failure.set(t);
+                    interrupted.set(Thread.currentThread().isInterrupted());
+                }
+            });
+            caller.start();
+
+            // When: The caller is cancelled, e.g. by DocumentController at its deadline
+            Thread.sleep(50);
+            caller.interrupt();
+            caller.join(5_000);
+
+            // Then: The caller stops waiting, still interrupted
+            assertThat(failure.get()).isInstanceOf(RetryableException.class)
+                    .hasCauseInstanceOf(InterruptedIOException.class);
+            assertThat(interrupted).isTrue();
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldRunBatchCallWithinLatestDeadlineOfItsCallers() throws Exception {
+        // Given: A batch call that records its deadline
+        CompletableFuture<OptionalLong> batchDeadline = new CompletableFuture<>();
+        try (RequestBatcher<Integer, String> batcher = new RequestBatcher<>("test", keys -> {
+            batchDeadline.complete(RequestDeadline.current());
+            return Map.of();
+        }, Duration.ofMillis(50), 100, 1)) {
+            long now = System.nanoTime();
+            long early = now + TimeUnit.SECONDS.toNanos(5);
+            long late = now + TimeUnit.SECONDS.toNanos(10);
+
+            // When: Two callers with different deadlines share a batch
+            RequestDeadline.callWithin(early, () -> batcher.submit(1));
+            RequestDeadline.callWithin(late, () -> batcher.submit(2));
+
+            // Then: The batch call runs within the later deadline
+            assertThat(batchDeadline.get(5, TimeUnit.SECONDS)).hasValue(late);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
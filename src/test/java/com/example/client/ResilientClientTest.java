@@ -0,0 +1,96 @@
+package com.example.client;
+
+import com.example.exception.DownstreamUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientClientTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://localhost/api/users",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    @Test
+    void shouldFailFastOnceServerErrorsOpenTheCircuit() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            calls.incrementAndGet();
+            return response(503);
+        };
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("user-service", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        ResilientClient client = new ResilientClient(delegate, circuitBreaker, Bulkhead.ofDefaults("user-service"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.execute(REQUEST, new Request.Options()).status()).isEqualTo(503);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> client.execute(REQUEST, new Request.Options()))
+                .isInstanceOf(DownstreamUnavailableException.class);
+        assertThat(calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldRejectCallsBeyondTheBulkhead() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Client delegate = (request, options) -> {
+            inFlight.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(200);
+        };
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("permission-service");
+        ResilientClient client = new ResilientClient(delegate, circuitBreaker, Bulkhead.of("permission-service",
+                BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build()));
+
+        Thread caller = new Thread(() -> {
+            try {
+                client.execute(REQUEST, new Request.Options());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        caller.start();
+        inFlight.await();
+
+        assertThatThrownBy(() -> client.execute(REQUEST, new Request.Options()))
+                .isInstanceOf(DownstreamUnavailableException.class);
+        release.countDown();
+        caller.join();
+        // The rejected call was never sent, so the circuit breaker only saw the successful one
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    private static Response response(int status) {
+        return Response.builder()
+                .status(status)
+                .request(REQUEST)
+                .headers(Map.of())
+                .body(new byte[0])
+                .build();
+    }
+}
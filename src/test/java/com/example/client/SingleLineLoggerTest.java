@@ -0,0 +1,127 @@
+package com.example.client;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleLineLoggerTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://localhost/api/documents",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private final ch.qos.logback.classic.Logger logbackLogger =
+            (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(SingleLineLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void captureLog() {
+        previousLevel = logbackLogger.getLevel();
+        logbackLogger.setLevel(Level.INFO);
+        appender.start();
+        logbackLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void releaseLog() {
+        logbackLogger.detachAppender(appender);
+        logbackLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    void shouldLogTruncatedBodyOnSingleLine() throws Exception {
+        // Given: A response body longer than the logged prefix, spread over several lines
+        SingleLineLogger logger = new SingleLineLogger("document-service",
+                new FeignBodyLoggingProperties(DataSize.ofBytes(16), 1.0, 1.0, Map.of()));
+        byte[] body = "line\n".repeat(10).getBytes(StandardCharsets.UTF_8);
+
+        // When: The caller reads the body
+        Response logged = logger.logAndRebufferResponse("DocumentServiceClient#stream()", Logger.Level.FULL,
+                response(body), 5);
+        try (InputStream in = logged.body().asInputStream()) {
+            Util.toByteArray(in);
+        }
+
+        // Then: One line holds the status and the first bytes of the body
+        assertThat(appender.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("[DocumentServiceClient#stream()] Response: 200 (5ms) | Headers:  "
+                        + "| Body: line line line l... (16 of 50 bytes)");
+    }
+
+    @Test
+    void shouldPassSampledBodyThroughUnchanged() throws Exception {
+        SingleLineLogger logger = new SingleLineLogger("document-service",
+                new FeignBodyLoggingProperties(DataSize.ofBytes(16), 1.0, 1.0, Map.of()));
+        byte[] body = "line\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        Response logged = logger.logAndRebufferResponse("DocumentServiceClient#stream()", Logger.Level.FULL,
+                response(body), 5);
+
+        assertThat(logged.body().isRepeatable()).isFalse();
+        try (InputStream in = logged.body().asInputStream()) {
+            assertThat(Util.toByteArray(in)).isEqualTo(body);
+        }
+    }
+
+    @Test
+    void shouldPassBinaryBodyThroughUnchanged() throws Exception {
+        SingleLineLogger logger = new SingleLineLogger("document-service",
+                new FeignBodyLoggingProperties(DataSize.ofBytes(16), 1.0, 1.0, Map.of()));
+        byte[] body = new byte[1000];
+        new Random(7).nextBytes(body);
+
+        Response logged = logger.logAndRebufferResponse("DocumentServiceClient#get()", Logger.Level.FULL,
+                response(body).toBuilder().headers(Map.of("Content-Type", List.of("application/x-jackson-smile"))).build(),
+                5);
+
+        try (InputStream in = logged.body().asInputStream()) {
+            assertThat(Util.toByteArray(in)).isEqualTo(body);
+        }
+        assertThat(appender.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("[DocumentServiceClient#get()] Response: 200 (5ms) | Headers: "
+                        + "content-type=application/x-jackson-smile;  "
+                        + "| Body: <1000 bytes of application/x-jackson-smile>");
+    }
+
+    @Test
+    void shouldLeaveUnsampledBodyAlone() throws Exception {
+        SingleLineLogger logger = new SingleLineLogger("document-service",
+                new FeignBodyLoggingProperties(DataSize.ofKilobytes(1), 1.0, 0.0,
+                        Map.of("user-service", new FeignBodyLoggingProperties.ClientSampling(null, 1.0))));
+        Response response = response("[]".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(logger.logAndRebufferResponse("DocumentServiceClient#get()", Logger.Level.FULL, response, 5))
+                .isSameAs(response);
+        assertThat(appender.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("[DocumentServiceClient#get()] Response: 200 (5ms) | Headers: ");
+    }
+
+    private static Response response(byte[] body) {
+        return Response.builder()
+                .status(200)
+                .request(REQUEST)
+                .headers(Map.of())
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.config;
+
+import com.example.client.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextTaskDecoratorTest {
+
+    @AfterEach
+    void clearContext() {
+        MDC.clear();
+    }
+
+    @Test
+    void shouldRunTaskWithSubmittingThreadsContext() throws Exception {
+        // A single platform thread, so both tasks run on the same worker
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) TaskExecutors.create(new MockEnvironment(), "test-", 1, 1, 10);
+        executor.initialize();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+
+        AtomicReference<String> requestId = new AtomicReference<>();
+        AtomicReference<OptionalLong> taskDeadline = new AtomicReference<>();
+        MDC.put("requestId", "req-1");
+        RequestDeadline.callWithin(deadline, () -> executor.submit(() -> {
+            requestId.set(MDC.get("requestId"));
+            taskDeadline.set(RequestDeadline.current());
+        }).get());
+
+        // The pooled worker thread is left clean for the next task
+        MDC.clear();
+        AtomicReference<String> leftover = new AtomicReference<>();
+        AtomicReference<OptionalLong> leftoverDeadline = new AtomicReference<>();
+        executor.submit(() -> {
+            leftover.set(MDC.get("requestId"));
+            leftoverDeadline.set(RequestDeadline.current());
+        }).get();
+
+        executor.shutdown();
+
+        assertThat(requestId.get()).isEqualTo("req-1");
+        assertThat(taskDeadline.get()).hasValue(deadline);
+        assertThat(leftover.get()).isNull();
+        assertThat(leftoverDeadline.get()).isEmpty();
+    }
+}
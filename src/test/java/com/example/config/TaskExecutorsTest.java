@@ -0,0 +1,54 @@
+package com.example.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.MDC;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskExecutorsTest {
+
+    private final MockEnvironment virtualThreadsEnabled = new MockEnvironment()
+            .withProperty("spring.threads.virtual.enabled", "true");
+
+    @AfterEach
+    void clearContext() {
+        MDC.clear();
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void shouldRunEveryTaskOnVirtualThreadWithSubmittingThreadsContext() throws Exception {
+        AsyncTaskExecutor executor = TaskExecutors.create(virtualThreadsEnabled, "test-", 1, 1, 10);
+
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        AtomicReference<String> requestId = new AtomicReference<>();
+        MDC.put("requestId", "req-1");
+        executor.submit(() -> {
+            thread.set(Thread.currentThread());
+            requestId.set(MDC.get("requestId"));
+        }).get();
+
+        assertThat(executor).isInstanceOf(SimpleAsyncTaskExecutor.class);
+        // Compiled for Java 17, so Thread.isVirtual() is called reflectively
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+        assertThat(thread.get().getName()).startsWith("test-");
+        assertThat(requestId.get()).isEqualTo("req-1");
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void shouldFallBackToPlatformThreadPoolBeforeJava21() {
+        // Spring Boot only turns virtual threads on when the runtime supports them
+        assertThat(TaskExecutors.create(virtualThreadsEnabled, "test-", 1, 1, 10))
+                .isInstanceOf(ThreadPoolTaskExecutor.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.controller;
+
+import com.example.client.PermissionServiceClient;
+import com.example.service.PermissionCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PermissionCacheControllerTest {
+
+    @Test
+    void shouldInvalidateCachedDecisionsOfUser() throws Exception {
+        // Given: A cached decision for a user
+        AtomicInteger lookups = new AtomicInteger();
+        PermissionServiceClient permissionServiceClient = (PermissionServiceClient) Proxy.newProxyInstance(
+                PermissionServiceClient.class.getClassLoader(), new Class<?>[]{PermissionServiceClient.class},
+                (proxy, method, args) -> lookups.incrementAndGet() > 1);
+        PermissionCache permissionCache = new PermissionCache(permissionServiceClient, new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), 100);
+        UUID userId = UUID.randomUUID();
+        assertThat(permissionCache.hasPermission(userId, "WRITE")).isFalse();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PermissionCacheController(permissionCache)).build();
+
+        // When: permission-service posts a change of the user's permissions
+        mockMvc.perform(post("/api/permission-cache/invalidations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + userId + "\",\"permission\":\"WRITE\","
+                                + "\"changedAt\":\"2026-01-01T00:00:00Z\"}"))
+                .andExpect(status().isOk());
+
+        // Then: The next check asks permission-service again
+        assertThat(permissionCache.hasPermission(userId, "WRITE")).isTrue();
+        assertThat(lookups).hasValue(2);
+    }
+}
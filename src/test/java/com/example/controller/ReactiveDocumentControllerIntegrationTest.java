@@ -0,0 +1,235 @@
+package com.example.controller;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts document-service on the reactive stack, with user-service and permission-service
+ * replaced by a stub server that records the X-Request-ID headers it receives.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "document-service.storage.engine=memory",
+        "document-service.read.deadline=500ms"
+})
+@ActiveProfiles({"test", "document-service"})
+class ReactiveDocumentControllerIntegrationTest {
+
+    private static final UUID SLOW_USER = UUID.randomUUID();
+    private static final UUID UNPRIVILEGED_USER = UUID.randomUUID();
+    private static final UUID EMPTY_USER = UUID.randomUUID();
+    private static final Map<String, Set<String>> REQUEST_IDS_BY_PATH = new ConcurrentHashMap<>();
+    private static final HttpServer DOWNSTREAM = startDownstream();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void downstreamUrls(DynamicPropertyRegistry registry) {
+        String url = "http://localhost:" + DOWNSTREAM.getAddress().getPort();
+        registry.add("feign.client.user-service.url", () -> url);
+        registry.add("feign.client.permission-service.url", () -> url);
+    }
+
+    @AfterAll
+    static void stopDownstream() {
+        DOWNSTREAM.stop(0);
+    }
+
+    @Test
+    void shouldReadDocumentsAndPropagateRequestId() {
+        UUID userId = UUID.randomUUID();
+        List<Document> added = List.of(
+                new Document(DocumentId.of(UUID.randomUUID()), "First"),
+                new Document(DocumentId.of(UUID.randomUUID()), "Second"));
+        added.forEach(document -> webTestClient.post().uri("/api/documents/user/{userId}", userId)
+                .bodyValue(document)
+                .exchange()
+                .expectStatus().isOk());
+
+        ListAppender<ILoggingEvent> logs = new ListAppender<>();
+        logs.start();
+        Logger controllerLogger = (Logger) LoggerFactory.getLogger(ReactiveDocumentController.class);
+        controllerLogger.addAppender(logs);
+        try {
+            webTestClient.get().uri("/api/documents/user/{userId}", userId)
+                    .header("X-Request-ID", "reactive-read-1")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("X-Request-ID", "reactive-read-1")
+                    .expectBodyList(Document.class).isEqualTo(added);
+        } finally {
+            controllerLogger.detachAppender(logs);
+        }
+
+        // Both lookups carry the request ID, and so do the log lines written after they complete
+        assertThat(REQUEST_IDS_BY_PATH.get("/api/users/" + userId)).containsExactly("reactive-read-1");
+        assertThat(REQUEST_IDS_BY_PATH.get("/api/permissions/user/" + userId + "/has")).containsExactly("reactive-read-1");
+        assertThat(logs.list)
+                .filteredOn(event -> event.getFormattedMessage().startsWith("User found"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getMDCPropertyMap()).containsEntry("requestId", "reactive-read-1"));
+
+        // And: The streaming endpoint returns one document per line
+        webTestClient.get().uri("/api/documents/user/{userId}/stream", userId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Document.class).isEqualTo(added);
+    }
+
+    @Test
+    void shouldAnswerUnchangedDocumentsWithNotModified() {
+        // Given: A user with a document, read once for its ETag
+        UUID userId = UUID.randomUUID();
+        webTestClient.post().uri("/api/documents/user/{userId}", userId)
+                .bodyValue(new Document(DocumentId.of(UUID.randomUUID()), "First"))
+                .exchange()
+                .expectStatus().isOk();
+        String eTag = webTestClient.get().uri("/api/documents/user/{userId}", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Document.class)
+                .getResponseHeaders().getETag();
+
+        // When/Then: The same ETag gets 304 without a body until a document is added
+        webTestClient.get().uri("/api/documents/user/{userId}", userId)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", eTag)
+                .expectBody().isEmpty();
+        webTestClient.post().uri("/api/documents/user/{userId}", userId)
+                .bodyValue(new Document(DocumentId.of(UUID.randomUUID()), "Second"))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/documents/user/{userId}", userId)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Document.class).hasSize(2);
+    }
+
+    @Test
+    void shouldRejectUserWithoutPermission() {
+        webTestClient.get().uri("/api/documents/user/{userId}", UNPRIVILEGED_USER)
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void shouldRejectUserWhoseLookupIsEmpty() {
+        // Given: A user with a document, whose lookup answers without a body
+        webTestClient.post().uri("/api/documents/user/{userId}", EMPTY_USER)
+                .bodyValue(new Document(DocumentId.of(UUID.randomUUID()), "First"))
+                .exchange()
+                .expectStatus().isOk();
+
+        // When/Then: The documents are not returned
+        webTestClient.get().uri("/api/documents/user/{userId}", EMPTY_USER)
+                .exchange()
+                .expectStatus().is5xxServerError();
+        webTestClient.get().uri("/api/documents/user/{userId}/stream", EMPTY_USER)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    void shouldTimeOutSlowLookups() {
+        webTestClient.get().uri("/api/documents/user/{userId}", SLOW_USER)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    /**
+     * Answer every user lookup with a user and every permission check with true, except for
+     * SLOW_USER, whose user lookup takes 2s, UNPRIVILEGED_USER, who has no permissions, and
+     * EMPTY_USER, whose user lookup has an empty body.
+     */
+    private static HttpServer startDownstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/api/users/", exchange -> {
+                UUID userId = UUID.fromString(lastSegment(exchange.getRequestURI().getPath()));
+                record(exchange);
+                if (userId.equals(SLOW_USER)) {
+                    sleep(2000);
+                }
+                if (userId.equals(EMPTY_USER)) {
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                    return;
+                }
+                respond(exchange, "{\"id\":\"" + userId + "\",\"username\":\"reader\"}");
+            });
+            server.createContext("/api/permissions/user/", exchange -> {
+                record(exchange);
+                respond(exchange, Boolean.toString(!exchange.getRequestURI().getPath().contains(UNPRIVILEGED_USER.toString())));
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void record(HttpExchange exchange) {
+        String requestId = exchange.getRequestHeaders().getFirst("X-Request-ID");
+        if (requestId != null) {
+            REQUEST_IDS_BY_PATH.computeIfAbsent(exchange.getRequestURI().getPath(), path -> ConcurrentHashMap.newKeySet())
+                    .add(requestId);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String lastSegment(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.load;
+
+import feign.micrometer.FeignContext;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency of every Feign call between the services (a downstream hop), per client and
+ * method, e.g. "permission-service PermissionServiceClient#hasPermission(UUID,String)". Latencies are
+ * recorded in microseconds. Calls that fail or get a status of 400 or above also count as errors.
+ */
+class HopLatencyRecorder implements ObservationHandler<FeignContext> {
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Hop> hops = new ConcurrentHashMap<>();
+
+    record Hop(Histogram latencies, AtomicLong errors) {
+    }
+
+    @Override
+    public void onStart(FeignContext context) {
+        context.put(HopLatencyRecorder.class, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(FeignContext context) {
+        Long start = context.get(HopLatencyRecorder.class);
+        if (start == null) {
+            return;
+        }
+        String hop = value(context, "client.name") + " " + value(context, "feign.method");
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        Hop stats = hops.computeIfAbsent(hop, key -> new Hop(new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3), new AtomicLong()));
+        stats.latencies().recordValue(Math.min(micros, HIGHEST_LATENCY_MICROS));
+        if (context.getError() != null || (context.getResponse() != null && context.getResponse().status() >= 400)) {
+            stats.errors().incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof FeignContext;
+    }
+
+    /**
+     * @return Latencies and errors recorded since the last call, by hop; recording starts over
+     */
+    Map<String, Hop> takeHops() {
+        Map<String, Hop> taken = new TreeMap<>();
+        for (String hop : hops.keySet()) {
+            Hop stats = hops.remove(hop);
+            if (stats != null) {
+                taken.put(hop, stats);
+            }
+        }
+        return taken;
+    }
+
+    private static String value(Observation.Context context, String key) {
+        KeyValue keyValue = context.getLowCardinalityKeyValue(key);
+        return keyValue == null ? "unknown" : keyValue.getValue();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency report of a load test run, written to a directory:
+ * - summary.csv: one line per rate and endpoint or hop, with count, errors, throughput and percentiles in ms
+ * - <rate>rps/endpoint-<name>.hgrm and <rate>rps/hop-<client>-<method>.hgrm: HdrHistogram percentile
+ *   distributions, which can be plotted with HdrHistogram's plotter or compared between runs
+ */
+class LatencyReport {
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Path directory;
+    private final List<Line> lines = new ArrayList<>();
+
+    /**
+     * @param kind endpoint or hop
+     * @param throughput Completed requests per second over the whole step; for hops, 0
+     */
+    record Line(double rate, String kind, String name, Histogram latencies, long errors, double throughput) {
+    }
+
+    LatencyReport(Path directory) {
+        this.directory = directory;
+    }
+
+    void add(OpenLoopLoadGenerator.Result result, Map<String, HopLatencyRecorder.Hop> hops) throws IOException {
+        Path step = Files.createDirectories(directory.resolve(String.format(Locale.ROOT, "%.0frps", result.targetRate())));
+        result.operations().forEach((name, operation) -> lines.add(new Line(result.targetRate(), "endpoint", name,
+                operation.latencies(), operation.errors(), result.throughput())));
+        hops.forEach((name, hop) -> lines.add(new Line(result.targetRate(), "hop", name, hop.latencies(), hop.errors().get(), 0)));
+        for (Line line : lines) {
+            if (line.rate() == result.targetRate()) {
+                String file = line.kind() + "-" + line.name().replaceAll("[^A-Za-z0-9.-]+", "-") + ".hgrm";
+                try (PrintStream out = new PrintStream(Files.newOutputStream(step.resolve(file)), false, StandardCharsets.UTF_8)) {
+                    line.latencies().outputPercentileDistribution(out, MICROS_PER_MILLI);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Largest 99th percentile of any endpoint at any rate, in ms
+     */
+    double maxEndpointP99Millis() {
+        return lines.stream()
+                .filter(line -> line.kind().equals("endpoint"))
+                .mapToDouble(line -> millis(line.latencies(), 99.0))
+                .max()
+                .orElse(0);
+    }
+
+    void write(PrintStream console) throws IOException {
+        try (Writer csv = Files.newBufferedWriter(directory.resolve("summary.csv"), StandardCharsets.UTF_8)) {
+            csv.write("rate,kind,name,count,errors,throughput,p50_ms,p90_ms,p99_ms,p99.9_ms,max_ms\n");
+            for (Line line : lines) {
+                Histogram h = line.latencies();
+                csv.write(String.format(Locale.ROOT, "%.0f,%s,\"%s\",%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        line.rate(), line.kind(), line.name(), h.getTotalCount(), line.errors(), line.throughput(),
+                        millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9), h.getMaxValue() / MICROS_PER_MILLI));
+            }
+        }
+
+        console.printf("%n%8s %-8s %-90s %8s %7s %9s %9s %9s %9s%n",
+                "rate", "kind", "name", "count", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Line line : lines) {
+            Histogram h = line.latencies();
+            console.printf(Locale.ROOT, "%8.0f %-8s %-90s %8d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    line.rate(), line.kind(), line.name(), h.getTotalCount(), line.errors(),
+                    millis(h, 50), millis(h, 99), millis(h, 99.9), h.getMaxValue() / MICROS_PER_MILLI);
+        }
+        console.println("Report in " + directory.toAbsolutePath());
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
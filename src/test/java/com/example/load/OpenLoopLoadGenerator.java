@@ -0,0 +1,145 @@
+package com.example.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends HTTP requests at a fixed rate, whether or not earlier requests have completed (open loop).
+ *
+ * Request i is due at start + i / rate. Its latency is measured from that intended time, not from
+ * when it was actually sent, so a request that was sent late because the generator fell behind is
+ * charged for the wait. This avoids coordinated omission: a slow server cannot slow the generator
+ * down and hide its own latency. Latencies are recorded in microseconds.
+ *
+ * Requests still in flight when the drain timeout expires are given up: each counts as an error,
+ * with its latency up to that moment, so the slowest requests are not left out of the results.
+ */
+class OpenLoopLoadGenerator {
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final TimeoutException DRAIN_TIMEOUT = new TimeoutException("Still in flight at the drain timeout");
+
+    private final HttpClient client;
+    private final Random random;
+
+    OpenLoopLoadGenerator(HttpClient client, long seed) {
+        this.client = client;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * One kind of request in the traffic mix.
+     *
+     * @param name e.g. get-documents
+     * @param weight Share of the requests, relative to the other operations
+     * @param request Builds the next request of this kind
+     */
+    record Operation(String name, int weight, Function<Random, HttpRequest> request) {
+    }
+
+    /**
+     * Latencies and outcomes of one operation.
+     */
+    record OperationResult(Histogram latencies, long errors) {
+    }
+
+    /**
+     * @param completed Requests that completed, successfully or not; requests given up at the drain timeout are not included
+     * @param throughput Completed requests per second, from the first intended send to the last completion
+     */
+    record Result(double targetRate, long completed, double throughput, Map<String, OperationResult> operations) {
+    }
+
+    /**
+     * Send requests of the given mix at the given rate for the given duration, then wait up to
+     * drainTimeout for the requests still in flight; those that are still in flight then are
+     * recorded as errors.
+     */
+    Result run(List<Operation> mix, double ratePerSecond, Duration duration, Duration drainTimeout) {
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        Map<String, ConcurrentHistogram> latencies = new LinkedHashMap<>();
+        Map<String, AtomicLong> errors = new LinkedHashMap<>();
+        for (Operation operation : mix) {
+            latencies.put(operation.name(), new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(operation.name(), new AtomicLong());
+        }
+        Set<CompletableFuture<HttpResponse<Void>>> inFlight = ConcurrentHashMap.newKeySet();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = pick(mix, totalWeight);
+            ConcurrentHistogram histogram = latencies.get(operation.name());
+            AtomicLong operationErrors = errors.get(operation.name());
+            CompletableFuture<HttpResponse<Void>> request =
+                    client.sendAsync(operation.request().apply(random), HttpResponse.BodyHandlers.discarding());
+            inFlight.add(request);
+            // Runs once, either when the response arrives or when the request is given up below
+            request.whenComplete((response, failure) -> {
+                long now = System.nanoTime();
+                histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - intended), HIGHEST_LATENCY_MICROS));
+                if (failure != null || response.statusCode() >= 400) {
+                    operationErrors.incrementAndGet();
+                }
+                if (failure != DRAIN_TIMEOUT) {
+                    completed.incrementAndGet();
+                    lastCompletion.accumulateAndGet(now, Math::max);
+                }
+                inFlight.remove(request);
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!inFlight.isEmpty() && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        // A request that completes meanwhile is recorded by its response; the future only completes once
+        for (CompletableFuture<HttpResponse<Void>> request : List.copyOf(inFlight)) {
+            request.completeExceptionally(DRAIN_TIMEOUT);
+        }
+
+        Map<String, OperationResult> operations = new LinkedHashMap<>();
+        latencies.forEach((name, histogram) -> operations.put(name, new OperationResult(histogram, errors.get(name).get())));
+        double elapsedSeconds = Math.max(lastCompletion.get() - start, 1) / 1e9;
+        return new Result(ratePerSecond, completed.get(), completed.get() / elapsedSeconds, operations);
+    }
+
+    private Operation pick(List<Operation> mix, int totalWeight) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : mix) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Empty traffic mix");
+    }
+}
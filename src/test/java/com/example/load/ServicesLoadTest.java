@@ -0,0 +1,192 @@
+package com.example.load;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import com.example.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Open-loop load test of the three services, started in one JVM as in
+ * {@link com.example.service.UserAndDocumentServiceIntegrationTest} but on a port of its own.
+ *
+ * Runs a mix of create-user, add-document and get-documents requests at each rate of load.rates, after
+ * a warm-up at the first rate, and reports latency percentiles per endpoint and per downstream hop
+ * (see {@link LatencyReport}). Stepping stops at the first saturated rate: completed requests per second
+ * below 95% of the rate, or more than 1% errors. Not part of the default build; run with
+ *
+ * mvn -Pload test -Dload.rates=100,200,400
+ *
+ * Settings (system properties):
+ * - load.rates: requests per second of each step (default 50,100,200)
+ * - load.duration: length of each step (default 15s); load.warmup: length of the warm-up (default 5s)
+ * - load.mix: relative weights of the operations (default create-user=1,add-document=4,get-documents=5)
+ * - load.users: users created before the run, whose documents are added and read (default 100)
+ * - load.report-dir: report directory (default target/load-reports)
+ * - load.max-p99: when set (e.g. 250ms), fail if the p99 of any endpoint at any rate is above it
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+        "server.port=" + ServicesLoadTest.PORT,
+        "feign.client.user-service.url=http://localhost:" + ServicesLoadTest.PORT,
+        "feign.client.permission-service.url=http://localhost:" + ServicesLoadTest.PORT,
+        "feign.client.document-service.url=http://localhost:" + ServicesLoadTest.PORT,
+        "feign.client.logging.success-sample-rate=0",
+        "feign.client.logging.clients.document-service.success-sample-rate=0",
+        "logging.level.com.example=WARN"
+})
+@ActiveProfiles({"test", "user-service", "document-service", "permission-service"})
+@Import(ServicesLoadTest.HopRecording.class)
+class ServicesLoadTest {
+    static final int PORT = 2375;
+    private static final String BASE_URL = "http://localhost:" + PORT;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HopLatencyRecorder hopLatencyRecorder;
+
+    // Usernames and emails are unique, so every created user gets a number of its own
+    private final AtomicInteger createdUsers = new AtomicInteger();
+
+    @TestConfiguration
+    static class HopRecording {
+        @Bean
+        HopLatencyRecorder hopLatencyRecorder() {
+            return new HopLatencyRecorder();
+        }
+    }
+
+    @Test
+    void shouldReportLatencyPerEndpointAndHopAtEachRate() throws Exception {
+        double[] rates = Arrays.stream(setting("load.rates", "50,100,200").split(","))
+                .mapToDouble(rate -> Double.parseDouble(rate.trim()))
+                .toArray();
+        Duration duration = DurationStyle.detectAndParse(setting("load.duration", "15s"));
+        Duration warmup = DurationStyle.detectAndParse(setting("load.warmup", "5s"));
+        Duration drainTimeout = Duration.ofSeconds(30);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(4))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<UUID> users = createUsers(client, Integer.parseInt(setting("load.users", "100")));
+        List<OpenLoopLoadGenerator.Operation> mix = mix(setting("load.mix", "create-user=1,add-document=4,get-documents=5"), users);
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, 42);
+
+        generator.run(mix, rates[0], warmup, drainTimeout);
+        hopLatencyRecorder.takeHops();
+
+        LatencyReport report = new LatencyReport(Path.of(setting("load.report-dir", "target/load-reports")));
+        for (double rate : rates) {
+            OpenLoopLoadGenerator.Result result = generator.run(mix, rate, duration, drainTimeout);
+            report.add(result, hopLatencyRecorder.takeHops());
+            long errors = result.operations().values().stream().mapToLong(OpenLoopLoadGenerator.OperationResult::errors).sum();
+            if (result.throughput() < 0.95 * rate || errors > 0.01 * result.completed()) {
+                System.out.printf("%nSaturated at %.0f requests/s: %.1f completed/s, %d errors%n", rate, result.throughput(), errors);
+                break;
+            }
+        }
+        report.write(System.out);
+
+        String maxP99 = System.getProperty("load.max-p99");
+        if (maxP99 != null) {
+            assertThat(report.maxEndpointP99Millis())
+                    .as("p99 latency of the slowest endpoint, in ms")
+                    .isLessThanOrEqualTo(DurationStyle.detectAndParse(maxP99).toNanos() / 1e6);
+        }
+    }
+
+    private List<UUID> createUsers(HttpClient client, int count) throws Exception {
+        List<UUID> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> response = client.send(createUser(createdUsers.incrementAndGet()), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(200);
+            users.add(objectMapper.readValue(response.body(), User.class).id());
+        }
+        // Grants are delivered in the background in creation order; once the last user can read, every user can
+        URI lastUserCanRead = URI.create(BASE_URL + "/api/permissions/user/" + users.get(count - 1) + "/has?permission=document-read");
+        await().atMost(Duration.ofSeconds(30)).until(() -> "true".equals(
+                client.send(HttpRequest.newBuilder(lastUserCanRead).build(), HttpResponse.BodyHandlers.ofString()).body()));
+        return users;
+    }
+
+    private List<OpenLoopLoadGenerator.Operation> mix(String weights, List<UUID> users) {
+        List<OpenLoopLoadGenerator.Operation> mix = new ArrayList<>();
+        for (String entry : weights.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            String name = nameAndWeight[0];
+            int weight = Integer.parseInt(nameAndWeight[1]);
+            mix.add(new OpenLoopLoadGenerator.Operation(name, weight, switch (name) {
+                case "create-user" -> random -> createUser(createdUsers.incrementAndGet());
+                case "add-document" -> random -> HttpRequest.newBuilder(documentsOf(pick(users, random)))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json(new Document(DocumentId.of(UUID.randomUUID()), "Load test document"))))
+                        .build();
+                case "get-documents" -> random -> HttpRequest.newBuilder(documentsOf(pick(users, random))).GET().build();
+                default -> throw new IllegalArgumentException("Unknown operation " + name + " in load.mix");
+            }));
+        }
+        return mix;
+    }
+
+    private HttpRequest createUser(int number) {
+        User user = User.builder()
+                .username("load" + number)
+                .firstName("Load")
+                .lastName("Test")
+                .email("load" + number + "@example.com")
+                .build();
+        return HttpRequest.newBuilder(URI.create(BASE_URL + "/api/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(user)))
+                .build();
+    }
+
+    private static URI documentsOf(UUID userId) {
+        return URI.create(BASE_URL + "/api/documents/user/" + userId);
+    }
+
+    private static UUID pick(List<UUID> users, Random random) {
+        return users.get(random.nextInt(users.size()));
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String setting(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AsyncLogAppenderTest {
+
+    private static final int RING_BUFFER_SIZE = 4;
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger(AsyncLogAppenderTest.class);
+    private final BlockedAppender delegate = new BlockedAppender();
+    private final AsyncLogAppender appender = new AsyncLogAppender();
+
+    @AfterEach
+    void stop() {
+        delegate.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void shouldDropAndCountEventsWhileRingBufferIsFull() {
+        // Given: A full ring buffer behind a writer that is stuck on its first event
+        start("drop");
+        fill();
+        // The event being written keeps its slot until it is written
+        assertThat(appender.getQueueDepth()).isEqualTo(RING_BUFFER_SIZE);
+
+        // When: Logging more events
+        append(4);
+        append(5);
+
+        // Then: They are dropped without waiting, and counted
+        assertThat(appender.getDroppedEvents()).isEqualTo(2);
+        delegate.release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> delegate.messages.size() == RING_BUFFER_SIZE);
+        assertThat(delegate.messages).containsExactly("event 0", "event 1", "event 2", "event 3");
+        await().atMost(Duration.ofSeconds(5)).until(() -> appender.getQueueDepth() == 0);
+    }
+
+    @Test
+    void shouldMakeLoggingThreadWaitWhileRingBufferIsFull() throws Exception {
+        // Given: A full ring buffer behind a writer that is stuck on its first event
+        start("block");
+        fill();
+
+        // When: Logging one more event
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> append(4));
+
+        // Then: The logging thread waits until the writer catches up, and no event is lost
+        Thread.sleep(200);
+        assertThat(blocked).isNotDone();
+        delegate.release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        await().atMost(Duration.ofSeconds(5)).until(() -> delegate.messages.size() == RING_BUFFER_SIZE + 1);
+        assertThat(delegate.messages).endsWith("event 4");
+        assertThat(appender.getDroppedEvents()).isZero();
+    }
+
+    private void start(String overflowPolicy) {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        delegate.setContext(context);
+        delegate.start();
+        appender.setContext(context);
+        appender.setName("ASYNC_TEST");
+        appender.setRingBufferSize(RING_BUFFER_SIZE);
+        appender.setOverflowPolicy(overflowPolicy);
+        appender.addAppender(delegate);
+        appender.start();
+    }
+
+    /**
+     * Log events 0 to RING_BUFFER_SIZE - 1, once the writer has taken event 0.
+     */
+    private void fill() {
+        append(0);
+        await().atMost(Duration.ofSeconds(5)).until(() -> delegate.started.getCount() == 0);
+        for (int i = 1; i < RING_BUFFER_SIZE; i++) {
+            append(i);
+        }
+    }
+
+    private void append(int i) {
+        appender.doAppend(new LoggingEvent(Logger.class.getName(), logger, Level.INFO, "event " + i, null, null));
+    }
+
+    /**
+     * Appender whose first write waits until the test releases it.
+     */
+    private static final class BlockedAppender extends AppenderBase<ILoggingEvent> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(event.getFormattedMessage());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatePersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverFromSnapshotAndLogTail() throws IOException {
+        Map<UUID, String> written = new ConcurrentHashMap<>();
+
+        // Given: Records journaled concurrently, and no snapshot on close
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            Journal journal = persistence.open("names", names);
+            CompletableFuture.allOf(IntStream.range(0, 100)
+                    .mapToObj(i -> names.add(journal, UUID.randomUUID(), "name-" + i))
+                    .toArray(CompletableFuture[]::new)).join();
+            written.putAll(names.values);
+        }
+        assertThat(files("snapshot-")).isEmpty();
+
+        // When: Restarting, taking a snapshot and journaling more
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            Journal journal = persistence.open("names", names);
+            assertThat(names.values).isEqualTo(written);
+
+            persistence.snapshot();
+            for (int i = 0; i < 10; i++) {
+                names.add(journal, UUID.randomUUID(), "after-snapshot-" + i).join();
+            }
+            written.putAll(names.values);
+        }
+
+        // Then: The log covered by the snapshot is gone, and the state comes back from the snapshot and the tail
+        assertThat(files("snapshot-")).hasSize(1);
+        assertThat(files("wal-")).hasSize(1);
+        try (StatePersistence persistence = open(true)) {
+            Names names = new Names();
+            persistence.open("names", names);
+            assertThat(names.values).hasSize(110).isEqualTo(written);
+        }
+
+        // And: Closing with a snapshot leaves nothing to replay
+        assertThat(files("wal-")).isEmpty();
+        Names names = new Names();
+        try (StatePersistence persistence = open(false)) {
+            persistence.open("names", names);
+        }
+        assertThat(names.values).isEqualTo(written);
+    }
+
+    @Test
+    void shouldCutOffTornRecordAtEndOfLog() throws IOException {
+        UUID kept = UUID.randomUUID();
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            names.add(persistence.open("names", names), kept, "kept").join();
+        }
+        // A record header promising more bytes than were written, as after a crash in the middle of a write
+        Path segment = files("wal-").get(0);
+        Files.write(segment, ByteBuffer.allocate(12).putInt(100).putInt(42).array(), StandardOpenOption.APPEND);
+
+        UUID added = UUID.randomUUID();
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            Journal journal = persistence.open("names", names);
+            assertThat(names.values).containsOnlyKeys(kept);
+            names.add(journal, added, "added").join();
+        }
+
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            persistence.open("names", names);
+            assertThat(names.values).containsOnlyKeys(kept, added);
+        }
+    }
+
+    @Test
+    void shouldRefuseToReplaySegmentWithCorruptHeader() throws IOException {
+        UUID kept = UUID.randomUUID();
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            names.add(persistence.open("names", names), kept, "kept").join();
+        }
+        Path segment = files("wal-").get(0);
+        byte[] corrupt = Files.readAllBytes(segment);
+        corrupt[0] ^= 0x7F;
+        Files.write(segment, corrupt);
+
+        // Startup fails instead of cutting off the whole segment
+        try (StatePersistence persistence = open(false)) {
+            assertThatThrownBy(() -> persistence.open("names", new Names()))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasRootCauseMessage("Not a write-ahead log segment, or its header is corrupt: " + segment);
+        }
+        assertThat(Files.readAllBytes(segment)).isEqualTo(corrupt);
+    }
+
+    @Test
+    void shouldSkipSegmentWithoutCompleteHeader() throws IOException {
+        UUID kept = UUID.randomUUID();
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            names.add(persistence.open("names", names), kept, "kept").join();
+        }
+        // A segment that was being created when the log stopped
+        Path segment = files("wal-").get(0);
+        Files.write(segment.resolveSibling("wal-0000000001.log"), new byte[]{0x57, 0x41});
+
+        try (StatePersistence persistence = open(false)) {
+            Names names = new Names();
+            persistence.open("names", names);
+            assertThat(names.values).containsOnlyKeys(kept);
+        }
+    }
+
+    private StatePersistence open(boolean snapshotOnClose) {
+        return new StatePersistence(directory, Duration.ofHours(1), snapshotOnClose);
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("names"))) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    /**
+     * State of names by ID; records are the ID followed by the name.
+     */
+    private static class Names implements PersistentState {
+        final Map<UUID, String> values = new ConcurrentHashMap<>();
+
+        CompletableFuture<Void> add(Journal journal, UUID id, String name) {
+            values.put(id, name);
+            return journal.appendAsync(Records.encode(id, name));
+        }
+
+        @Override
+        public void apply(ByteBuffer record) {
+            values.put(Records.getUuid(record), Records.getString(record));
+        }
+
+        @Override
+        public void writeSnapshot(RecordSink sink) throws IOException {
+            for (Map.Entry<UUID, String> entry : values.entrySet()) {
+                sink.add(Records.encode(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.service;
+
+import com.example.client.InProcessPermissionServiceClient;
+import com.example.client.InProcessUserServiceClient;
+import com.example.client.PermissionServiceClient;
+import com.example.client.UserServiceClient;
+import com.example.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Starts the application with all three profiles and in-process calls enabled, as a single
+ * deployment of the three services would run: calls between them go straight to the co-located
+ * controllers instead of through Feign and loopback HTTP.
+ */
+@SpringBootTest(properties = "feign.client.in-process.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "user-service", "document-service", "permission-service"})
+class ColocatedServicesIntegrationTest {
+
+    @Autowired
+    private UserServiceClient userServiceClient;
+
+    @Autowired
+    private PermissionServiceClient permissionServiceClient;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldServeDocumentsThroughInProcessCalls() throws Exception {
+        // Given: The clients injected into application code call the co-located controllers
+        assertThat(userServiceClient).isInstanceOf(InProcessUserServiceClient.class);
+        assertThat(permissionServiceClient).isInstanceOf(InProcessPermissionServiceClient.class);
+
+        // When: Creating a user, whose grant is delivered from the outbox in-process too
+        User created = userServiceClient.createUser(User.builder()
+                .username("colocated")
+                .firstName("Co")
+                .lastName("Located")
+                .email("colocated@example.com")
+                .build());
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> permissionServiceClient.hasPermission(created.id(), "document-read"));
+
+        // Then: document-service checks the user and the grant in-process and serves the user's documents
+        mockMvc.perform(post("/api/documents/user/{userId}", created.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":\"" + UUID.randomUUID() + "\",\"content\":\"In-process\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/documents/user/{userId}", created.id()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].content").value("In-process"));
+    }
+}
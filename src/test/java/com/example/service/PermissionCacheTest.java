@@ -0,0 +1,95 @@
+package com.example.service;
+
+import com.example.client.PermissionServiceClient;
+import com.example.dto.PermissionChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionCacheTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final Set<String> granted = ConcurrentHashMap.newKeySet();
+    private final List<String> lookups = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PermissionCache permissionCache = new PermissionCache(permissionServiceClient(), meterRegistry,
+            Duration.ofMinutes(1), 100);
+
+    @Test
+    void shouldAnswerRepeatedChecksFromCache() {
+        // Given: The user has READ but not WRITE
+        granted.add("READ");
+
+        // When: Checking each permission twice
+        boolean read = permissionCache.hasPermission(userId, "READ");
+        boolean readAgain = permissionCache.hasPermission(userId, "READ");
+        boolean write = permissionCache.hasPermission(userId, "WRITE");
+        boolean writeAgain = permissionCache.hasPermission(userId, "WRITE");
+
+        // Then: permission-service was asked once per permission, denials are cached too
+        assertThat(List.of(read, readAgain, write, writeAgain)).containsExactly(true, true, false, false);
+        assertThat(lookups).containsExactly("READ", "WRITE");
+        assertThat(decisions("hit")).isEqualTo(2);
+        assertThat(decisions("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAskAgainAfterPermissionChanged() {
+        // Given: A cached denial
+        assertThat(permissionCache.hasPermission(userId, "WRITE")).isFalse();
+
+        // When: WRITE is granted and permission-service reports the change
+        granted.add("WRITE");
+        permissionCache.invalidate(new PermissionChangedEvent(userId, "WRITE", Instant.now().minusMillis(10)));
+
+        // Then: The next check reaches permission-service and sees the grant
+        assertThat(permissionCache.hasPermission(userId, "WRITE")).isTrue();
+        assertThat(lookups).containsExactly("WRITE", "WRITE");
+        assertThat(meterRegistry.get("permission.cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShareDecisionsWithReactiveChecks() {
+        granted.add("READ");
+
+        Boolean first = permissionCache.hasPermission(userId, "READ",
+                (id, permission) -> Mono.fromSupplier(() -> lookup(permission))).block();
+        Boolean second = permissionCache.hasPermission(userId, "READ",
+                (id, permission) -> Mono.error(new AssertionError("Cached decision expected"))).block();
+
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(permissionCache.hasPermission(userId, "READ")).isTrue();
+        assertThat(lookups).containsExactly("READ");
+    }
+
+    private double decisions(String result) {
+        return meterRegistry.get("permission.cache.decisions").tag("result", result).counter().count();
+    }
+
+    private boolean lookup(String permission) {
+        lookups.add(permission);
+        return granted.contains(permission);
+    }
+
+    private PermissionServiceClient permissionServiceClient() {
+        return (PermissionServiceClient) Proxy.newProxyInstance(
+                PermissionServiceClient.class.getClassLoader(), new Class<?>[]{PermissionServiceClient.class},
+                (proxy, method, args) -> {
+                    assertThat(method.getName()).isEqualTo("hasPermission");
+                    assertThat(args[0]).isEqualTo(userId);
+                    return lookup((String) args[1]);
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.service;
+
+import com.example.client.DocumentServiceClient;
+import com.example.dto.PermissionChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class PermissionChangeNotifierTest {
+
+    private final List<PermissionChangedEvent> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldSendChangesToDocumentService() {
+        // Given: A notifier that sends on the calling thread
+        PermissionChangeNotifier notifier = new PermissionChangeNotifier(documentServiceClient(false), Runnable::run);
+        PermissionChangedEvent event = new PermissionChangedEvent(UUID.randomUUID(), "WRITE", Instant.now());
+
+        // When: A permission changes
+        notifier.onPermissionChanged(event);
+
+        // Then: document-service is told to invalidate the user's entry
+        assertThat(sent).containsExactly(event);
+    }
+
+    @Test
+    void shouldNotFailPermissionChangeWhenNotificationFails() {
+        PermissionChangedEvent event = new PermissionChangedEvent(UUID.randomUUID(), "WRITE", Instant.now());
+
+        // A failed call and a full queue are only logged; the TTL bounds the staleness
+        PermissionChangeNotifier failing = new PermissionChangeNotifier(documentServiceClient(true), Runnable::run);
+        PermissionChangeNotifier rejecting = new PermissionChangeNotifier(documentServiceClient(false), task -> {
+            throw new TaskRejectedException("Queue is full");
+        });
+
+        assertThatCode(() -> failing.onPermissionChanged(event)).doesNotThrowAnyException();
+        assertThatCode(() -> rejecting.onPermissionChanged(event)).doesNotThrowAnyException();
+        assertThat(sent).containsExactly(event);
+    }
+
+    private DocumentServiceClient documentServiceClient(boolean fail) {
+        return (DocumentServiceClient) Proxy.newProxyInstance(
+                DocumentServiceClient.class.getClassLoader(), new Class<?>[]{DocumentServiceClient.class},
+                (proxy, method, args) -> {
+                    assertThat(method.getName()).isEqualTo("invalidatePermissions");
+                    sent.add((PermissionChangedEvent) args[0]);
+                    if (fail) {
+                        throw new IllegalStateException("document-service unavailable");
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.service;
+
+import com.example.client.PermissionServiceClient;
+import com.example.dto.PermissionGrant;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class PermissionGrantDeliveryTest {
+
+    @Test
+    void shouldDeliverGrantsInBatchesAndRetryFailedBatchUnchanged() throws Exception {
+        // Given: permission-service fails the first two requests
+        AtomicInteger failuresLeft = new AtomicInteger(2);
+        List<List<PermissionGrant>> requests = new CopyOnWriteArrayList<>();
+        PermissionServiceClient permissionServiceClient = (PermissionServiceClient) Proxy.newProxyInstance(
+                PermissionServiceClient.class.getClassLoader(), new Class<?>[]{PermissionServiceClient.class},
+                (proxy, method, args) -> {
+                    @SuppressWarnings("unchecked")
+                    List<PermissionGrant> grants = List.copyOf((List<PermissionGrant>) args[0]);
+                    requests.add(grants);
+                    if (failuresLeft.getAndDecrement() > 0) {
+                        throw new IllegalStateException("permission-service unavailable");
+                    }
+                    return null;
+                });
+        PermissionGrantOutbox outbox = new PermissionGrantOutbox();
+        List<PermissionGrant> granted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PermissionGrant grant = new PermissionGrant(UUID.randomUUID(), UUID.randomUUID(), "document-read");
+            granted.add(grant);
+            outbox.add(grant);
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // When: Delivering two grants at a time
+        PermissionGrantDelivery delivery = new PermissionGrantDelivery(outbox, permissionServiceClient,
+                new PermissionOutboxProperties(2, Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(50)),
+                meterRegistry);
+        try {
+            await().atMost(Duration.ofSeconds(5))
+                    .until(() -> meterRegistry.get("permissions.outbox.delivered").counter().count() == 5);
+        } finally {
+            delivery.destroy();
+        }
+
+        // Then: The first batch was sent three times, then the rest in order, every grant once
+        assertThat(requests).containsExactly(
+                granted.subList(0, 2), granted.subList(0, 2), granted.subList(0, 2),
+                granted.subList(2, 4), granted.subList(4, 5));
+        assertThat(meterRegistry.get("permissions.outbox.failures").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("permissions.outbox.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldSplitRejectedBatchAndDeadLetterTheGrantItWasRejectedFor() throws Exception {
+        // Given: permission-service rejects every batch with one bad grant in it with 400 Bad Request
+        PermissionGrant bad = new PermissionGrant(UUID.randomUUID(), UUID.randomUUID(), "");
+        List<List<PermissionGrant>> requests = new CopyOnWriteArrayList<>();
+        PermissionServiceClient permissionServiceClient = (PermissionServiceClient) Proxy.newProxyInstance(
+                PermissionServiceClient.class.getClassLoader(), new Class<?>[]{PermissionServiceClient.class},
+                (proxy, method, args) -> {
+                    @SuppressWarnings("unchecked")
+                    List<PermissionGrant> grants = List.copyOf((List<PermissionGrant>) args[0]);
+                    requests.add(grants);
+                    if (grants.contains(bad)) {
+                        throw badRequest();
+                    }
+                    return null;
+                });
+        PermissionGrantOutbox outbox = new PermissionGrantOutbox();
+        List<PermissionGrant> acknowledged = new CopyOnWriteArrayList<>();
+        outbox.onAcknowledged(acknowledged::addAll);
+        List<PermissionGrant> granted = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PermissionGrant grant = i == 1 ? bad : new PermissionGrant(UUID.randomUUID(), UUID.randomUUID(), "document-read");
+            granted.add(grant);
+            outbox.add(grant);
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        // When: Delivering four grants at a time
+        PermissionGrantDelivery delivery = new PermissionGrantDelivery(outbox, permissionServiceClient,
+                new PermissionOutboxProperties(4, Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(50)),
+                meterRegistry);
+        try {
+            await().atMost(Duration.ofSeconds(5)).until(() -> acknowledged.size() == 4);
+        } finally {
+            delivery.destroy();
+        }
+
+        // Then: The batch was halved until the bad grant was alone, without retrying or holding up the others
+        assertThat(requests).containsExactly(
+                granted, granted.subList(0, 2), granted.subList(0, 1), granted.subList(1, 2), granted.subList(2, 4));
+        assertThat(meterRegistry.get("permissions.outbox.delivered").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("permissions.outbox.dead-lettered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("permissions.outbox.failures").counter().count()).isZero();
+        assertThat(meterRegistry.get("permissions.outbox.pending").gauge().value()).isZero();
+        assertThat(acknowledged).containsExactlyInAnyOrderElementsOf(granted);
+    }
+
+    private static FeignException badRequest() {
+        Request request = Request.create(Request.HttpMethod.POST, "http://permission-service/api/permissions/grants",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return FeignException.errorStatus("PermissionServiceClient#addPermissions(List)", Response.builder()
+                .status(400)
+                .request(request)
+                .headers(Map.of())
+                .build());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionRegistryTest {
+
+    @Test
+    void shouldAssignStableIdsInOrderOfFirstGrant() {
+        PermissionRegistry registry = new PermissionRegistry();
+
+        assertThat(registry.idOf("READ")).isEqualTo(-1);
+        assertThat(registry.intern("READ")).isZero();
+        assertThat(registry.intern("WRITE")).isEqualTo(1);
+        assertThat(registry.intern("READ")).isZero();
+        assertThat(registry.idOf("WRITE")).isEqualTo(1);
+        assertThat(registry.nameOf(1)).isEqualTo("WRITE");
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGiveConcurrentInternsOfOnePermissionTheSameId() throws Exception {
+        PermissionRegistry registry = new PermissionRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> ids = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                String permission = "permission-" + (i % 10);
+                ids.add(executor.submit(() -> registry.intern(permission)));
+            }
+            Set<Integer> distinct = ids.stream().map(PermissionRegistryTest::get).collect(Collectors.toSet());
+
+            assertThat(distinct).hasSize(10);
+            assertThat(registry.size()).isEqualTo(10);
+            for (int id : distinct) {
+                assertThat(registry.idOf(registry.nameOf(id))).isEqualTo(id);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Integer get(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
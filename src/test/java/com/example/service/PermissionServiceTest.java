@@ -0,0 +1,109 @@
+package com.example.service;
+
+import com.example.dto.PermissionChangedEvent;
+import com.example.dto.PermissionGrant;
+import com.example.persistence.Journal;
+import com.example.persistence.PersistentState;
+import com.example.persistence.StatePersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PermissionServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldApplyGrantsOfBatchThatFailedToBeJournaledWhenItIsRetried() throws IOException {
+        // Given: A journal that fails while the disk is full
+        AtomicBoolean diskFull = new AtomicBoolean();
+        List<ByteBuffer> journaled = new CopyOnWriteArrayList<>();
+        Journal journal = record -> {
+            if (diskFull.get()) {
+                return CompletableFuture.failedFuture(new UncheckedIOException(new IOException("No space left on device")));
+            }
+            journaled.add(record);
+            return CompletableFuture.completedFuture(null);
+        };
+        List<Object> events = new CopyOnWriteArrayList<>();
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false) {
+            @Override
+            public Journal open(String name, PersistentState state) {
+                return journal;
+            }
+        }) {
+            PermissionService permissionService = new PermissionService(new PermissionRegistry(), events::add,
+                    persistence, new SimpleMeterRegistry());
+            journaled.clear();
+            PermissionGrant grant = new PermissionGrant(UUID.randomUUID(), UUID.randomUUID(), "document-read");
+
+            // When: The batch fails to be journaled, then is delivered again
+            diskFull.set(true);
+            assertThatThrownBy(() -> permissionService.addPermissions(List.of(grant)))
+                    .isInstanceOf(UncheckedIOException.class);
+            assertThat(events).isEmpty();
+            diskFull.set(false);
+            permissionService.addPermissions(List.of(grant));
+
+            // Then: The retry journals and publishes the grant, and later deliveries skip it
+            assertThat(journaled).hasSize(1);
+            assertThat(events).singleElement().isInstanceOfSatisfying(PermissionChangedEvent.class, event -> {
+                assertThat(event.userId()).isEqualTo(grant.userId());
+                assertThat(event.permission()).isEqualTo("document-read");
+            });
+            permissionService.addPermissions(List.of(grant));
+            assertThat(journaled).hasSize(1);
+            assertThat(events).hasSize(1);
+            assertThat(permissionService.hasPermission(grant.userId(), "document-read")).isTrue();
+        }
+    }
+
+    @Test
+    void shouldRevokeGrantThatFailedToBeJournaledSoRetryPublishesIt() throws IOException {
+        // Given: A journal that fails while the disk is full
+        AtomicBoolean diskFull = new AtomicBoolean();
+        Journal journal = record -> diskFull.get()
+                ? CompletableFuture.failedFuture(new UncheckedIOException(new IOException("No space left on device")))
+                : CompletableFuture.completedFuture(null);
+        List<Object> events = new CopyOnWriteArrayList<>();
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false) {
+            @Override
+            public Journal open(String name, PersistentState state) {
+                return journal;
+            }
+        }) {
+            PermissionService permissionService = new PermissionService(new PermissionRegistry(), events::add,
+                    persistence, new SimpleMeterRegistry());
+            UUID userId = UUID.randomUUID();
+
+            // When: The grant fails to be journaled
+            diskFull.set(true);
+            assertThatThrownBy(() -> permissionService.addPermission(userId, "document-read"))
+                    .isInstanceOf(UncheckedIOException.class);
+
+            // Then: The user does not have the permission, and a retry grants it and publishes the change
+            assertThat(permissionService.hasPermission(userId, "document-read")).isFalse();
+            assertThat(permissionService.getPermissionsByUserIds(List.of(userId))).containsEntry(userId, List.of());
+            diskFull.set(false);
+            permissionService.addPermission(userId, "document-read");
+            assertThat(permissionService.hasPermission(userId, "document-read")).isTrue();
+            assertThat(events).singleElement().isInstanceOfSatisfying(PermissionChangedEvent.class,
+                    event -> assertThat(event.userId()).isEqualTo(userId));
+        }
+    }
+}
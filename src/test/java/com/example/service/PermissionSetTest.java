@@ -0,0 +1,46 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionSetTest {
+
+    @Test
+    void shouldAddPermissionsWithoutChangingOriginalSet() {
+        PermissionRegistry registry = new PermissionRegistry();
+        int read = registry.intern("READ");
+        int write = registry.intern("WRITE");
+
+        PermissionSet readOnly = PermissionSet.EMPTY.with(read);
+        PermissionSet readWrite = readOnly.with(write);
+
+        assertThat(PermissionSet.EMPTY.size()).isZero();
+        assertThat(readOnly.contains(read)).isTrue();
+        assertThat(readOnly.contains(write)).isFalse();
+        assertThat(readWrite.names(registry)).containsExactly("READ", "WRITE");
+        // Granting a permission the set already has keeps the instance, so compare-and-set sees no change
+        assertThat(readWrite.with(read)).isSameAs(readWrite);
+    }
+
+    @Test
+    void shouldSpanSeveralWords() {
+        PermissionRegistry registry = new PermissionRegistry();
+        PermissionSet set = PermissionSet.EMPTY;
+        for (int i = 0; i < 130; i++) {
+            int id = registry.intern("permission-" + i);
+            if (i % 63 == 0 || i == 129) {
+                set = set.with(id);
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(4);
+        assertThat(set.contains(126)).isTrue();
+        assertThat(set.contains(127)).isFalse();
+        assertThat(set.contains(1000)).isFalse();
+        assertThat(set.names(registry)).isEqualTo(List.of("permission-0", "permission-63", "permission-126",
+                "permission-129"));
+    }
+}
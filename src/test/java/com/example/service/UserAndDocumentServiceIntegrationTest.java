@@ -3,32 +3,68 @@ package com.example.service;
 import com.example.client.DocumentServiceClient;
 import com.example.client.PermissionServiceClient;
 import com.example.client.UserServiceClient;
+import com.example.client.WireFormat;
 import com.example.dto.Document;
 import com.example.dto.DocumentId;
+import com.example.dto.DocumentPage;
+import com.example.dto.UserPage;
 import com.example.model.User;
+import com.example.tracing.SpanRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.FeignException;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 
 /**
  * Full integration test that starts the Spring Boot application with all three profiles
  * (user-service, document-service, permission-service) and tests the complete workflow:
  * 1. Creating a user via UserService HTTP endpoint
- * 2. Verifying permissions are added via PermissionService HTTP endpoint
+ * 2. Verifying permissions are added via PermissionService HTTP endpoint, once delivered from the outbox
  * 3. Adding documents via DocumentService HTTP endpoint
  * 4. Retrieving documents via DocumentService HTTP endpoint
  *
- * This test uses real HTTP calls with JSON serialization/deserialization.
+ * This test uses real HTTP calls; the Feign clients send and receive Smile, the test's own requests JSON.
  * All three services run in the same JVM and communicate via Feign clients pointing to localhost.
+ * Metrics export and tracing are left on so the Prometheus endpoint and the exported spans can be checked.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@AutoConfigureObservability
 @ActiveProfiles({"test", "user-service", "document-service", "permission-service"})
 class UserAndDocumentServiceIntegrationTest {
 
@@ -41,6 +77,21 @@ class UserAndDocumentServiceIntegrationTest {
     @Autowired
     private PermissionServiceClient permissionServiceClient;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
     @Test
     void shouldCreateUserAndAddDocument() throws Exception {
 
@@ -74,10 +125,13 @@ class UserAndDocumentServiceIntegrationTest {
         assertThat(getResponse.username()).isEqualTo("testuser");
 
         // And: Permissions should have been added for the user
+        awaitDocumentReadGrant(createdUser.id());
         List<String> permissions = permissionServiceClient.getPermissionsByUserId(
                 createdUser.id()
         );
         assertThat(permissions).contains("document-read");
+        assertThat(permissionServiceClient.hasPermission(createdUser.id(), "document-read")).isTrue();
+        assertThat(permissionServiceClient.hasPermission(createdUser.id(), "ADMIN")).isFalse();
 
         // When: Adding a document for the created user
         DocumentId documentId = DocumentId.of(UUID.randomUUID());
@@ -96,5 +150,289 @@ class UserAndDocumentServiceIntegrationTest {
         assertThat(userDocuments.get(0).content()).isEqualTo("This is a test document");
     }
 
+    @Test
+    void shouldPageAndStreamDocuments() throws Exception {
+        // Given: A user with five documents
+        User user = userserviceClient.createUser(User.builder()
+                .username("pager")
+                .firstName("Page")
+                .lastName("Reader")
+                .email("page.reader@example.com")
+                .build());
+        List<Document> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Document document = new Document(DocumentId.of(UUID.randomUUID()), "Document " + i);
+            documentServiceClient.addDocument(user.id(), document);
+            added.add(document);
+        }
+        awaitDocumentReadGrant(user.id());
+
+        // When: Reading the documents two at a time
+        List<Document> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DocumentPage page = documentServiceClient.getDocumentPage(user.id(), cursor, 2);
+            paged.addAll(page.documents());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then: Every document is returned once, in order
+        assertThat(pages).isEqualTo(3);
+        assertThat(paged).containsExactlyElementsOf(added);
+
+        // And: The streaming endpoint returns one document per line
+        try (Response response = documentServiceClient.streamDocumentsByUserId(user.id());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     response.body().asInputStream(), StandardCharsets.UTF_8))) {
+            assertThat(response.headers().get("Content-Type")).anyMatch(value -> value.startsWith("application/x-ndjson"));
+            List<Document> streamed = new ArrayList<>();
+            for (String line : reader.lines().toList()) {
+                streamed.add(objectMapper.readValue(line, Document.class));
+            }
+            assertThat(streamed).containsExactlyElementsOf(added);
+        }
+    }
+
+    @Test
+    void shouldLookUpUsersAndPermissionsInBatches() {
+        // Given: Two users created through the user service
+        User first = userserviceClient.createUser(User.builder()
+                .username("batch1")
+                .firstName("Batch")
+                .lastName("One")
+                .email("batch.one@example.com")
+                .build());
+        User second = userserviceClient.createUser(User.builder()
+                .username("batch2")
+                .firstName("Batch")
+                .lastName("Two")
+                .email("batch.two@example.com")
+                .build());
+        UUID unknownId = UUID.randomUUID();
+        awaitDocumentReadGrant(second.id());
+
+        // When: Looking both users up together with an unknown ID
+        Map<UUID, User> users = userserviceClient.getUsersByIds(Set.of(first.id(), second.id(), unknownId));
+        Map<UUID, List<String>> permissions = permissionServiceClient.getPermissionsByUserIds(
+                Set.of(first.id(), second.id(), unknownId));
+
+        // Then: Known users are returned and unknown IDs are left out or have no permissions
+        assertThat(users).containsOnlyKeys(first.id(), second.id());
+        assertThat(users.get(second.id()).username()).isEqualTo("batch2");
+        assertThat(permissions.get(first.id())).contains("document-read");
+        assertThat(permissions.get(second.id())).contains("document-read");
+        assertThat(permissions.get(unknownId)).isEmpty();
+    }
+
+    @Test
+    void shouldFindUsersByUsernameAndEmailAndListThemInPages() {
+        // Given: Users created through the user service
+        User first = userserviceClient.createUser(User.builder()
+                .username("indexed-one")
+                .firstName("Index")
+                .lastName("One")
+                .email("indexed.one@example.com")
+                .build());
+        User second = userserviceClient.createUser(User.builder()
+                .username("indexed-two")
+                .firstName("Index")
+                .lastName("Two")
+                .email("indexed.two@example.com")
+                .build());
+
+        // Then: They are found by username, email and username prefix
+        assertThat(userserviceClient.getUserByUsername("Indexed-One")).isEqualTo(first);
+        assertThat(userserviceClient.getUserByEmail("indexed.two@example.com")).isEqualTo(second);
+        assertThat(userserviceClient.searchByUsernamePrefix("indexed-", null)).containsExactly(first, second);
+
+        // And: A second user with a taken username is rejected
+        assertThatThrownBy(() -> userserviceClient.createUser(first.toBuilder().email("other@example.com").build()))
+                .isInstanceOf(FeignException.Conflict.class);
+
+        // And: Following the cursors lists every user once, in username order
+        List<User> listed = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPage page = userserviceClient.getUserPage(cursor, 2);
+            assertThat(page.users()).hasSizeLessThanOrEqualTo(2);
+            listed.addAll(page.users());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertThat(listed).contains(first, second);
+        assertThat(listed).extracting(user -> user.username().toLowerCase()).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldAnswerInSmileOnlyWhenAskedFor() throws Exception {
+        // Given: A user created through the Feign client, which sends the body as Smile
+        User user = userserviceClient.createUser(User.builder()
+                .username("smile")
+                .firstName("Binary")
+                .lastName("Reader")
+                .email("binary.reader@example.com")
+                .build());
+        URI uri = URI.create("http://localhost:2374/api/users/" + user.id());
+
+        // When: Reading the user without Accept, and accepting Smile
+        HttpResponse<byte[]> json = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> smile = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri)
+                        .header(HttpHeaders.ACCEPT, WireFormat.accept(WireFormat.SMILE))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        // Then: JSON is the default, and the Smile body is the same user in fewer bytes
+        assertThat(json.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(objectMapper.readValue(json.body(), User.class)).isEqualTo(user);
+        assertThat(smile.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValue(WireFormat.SMILE.toString());
+        assertThat(new ObjectMapper(new SmileFactory()).readValue(smile.body(), User.class)).isEqualTo(user);
+        assertThat(smile.body().length).isLessThan(json.body().length);
+    }
+
+    @Test
+    void shouldRevalidateAndCompressDocumentLists() throws Exception {
+        // Given: A user with enough documents for the list to be compressed
+        User user = userserviceClient.createUser(User.builder()
+                .username("poller")
+                .firstName("Document")
+                .lastName("Poller")
+                .email("document.poller@example.com")
+                .build());
+        awaitDocumentReadGrant(user.id());
+        for (int i = 0; i < 50; i++) {
+            documentServiceClient.addDocument(user.id(), new Document(DocumentId.of(UUID.randomUUID()),
+                    "Polled document number " + i));
+        }
+
+        // When: Polling the documents through the Feign client twice
+        Counter notModified = meterRegistry.get("feign.client.response.cache")
+                .tags("client.name", "document-service", "result", "not_modified")
+                .counter();
+        double notModifiedBefore = notModified.count();
+        List<Document> first = documentServiceClient.getDocumentsByUserId(user.id());
+        List<Document> second = documentServiceClient.getDocumentsByUserId(user.id());
+
+        // Then: The second poll is answered from the client's cache after a 304
+        assertThat(second).hasSize(50).isEqualTo(first);
+        assertThat(notModified.count()).isEqualTo(notModifiedBefore + 1);
+
+        // And: The list is gzip-compressed for clients that accept it, and its ETag gets 304 without a body
+        URI uri = URI.create("http://localhost:2374/api/documents/user/" + user.id());
+        HttpResponse<byte[]> compressed = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(compressed.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.body()))) {
+            assertThat(objectMapper.readValue(in, Document[].class)).containsExactlyElementsOf(first);
+        }
+        String eTag = compressed.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        HttpResponse<byte[]> notModifiedResponse = HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(notModifiedResponse.statusCode()).isEqualTo(304);
+        assertThat(notModifiedResponse.body()).isEmpty();
+    }
+
+    @Test
+    void shouldExposeLatencyHistogramsAndStoreSizesForPrometheus() throws Exception {
+        // Given: A user created and read through the user service
+        User user = userserviceClient.createUser(User.builder()
+                .username("metrics")
+                .firstName("Metric")
+                .lastName("Reader")
+                .email("metric.reader@example.com")
+                .build());
+        userserviceClient.getUserById(user.id());
+
+        // When: Scraping the Prometheus endpoint
+        HttpResponse<String> scrape = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:2374/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then: Endpoints and Feign methods have latency histograms, and store sizes are published
+        assertThat(scrape.statusCode()).isEqualTo(200);
+        assertThat(scrape.body())
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/users/{id}\"")
+                .contains("http_client_requests_seconds_bucket{")
+                .contains("feign_method=\"UserServiceClient#getUserById(UUID)\"")
+                .contains("http_client_requests_active_seconds_active_count{")
+                .contains("users_stored{")
+                .contains("documents_stored{")
+                .contains("permissions_grants{");
+    }
+
+    @Test
+    void shouldTimeEachHopAsChildSpansOfOneTrace() throws Exception {
+        // Given: A user created and their documents read within one trace
+        Observation caller = Observation.start("test-caller", observationRegistry);
+        String traceId;
+        try (Observation.Scope scope = caller.openScope()) {
+            traceId = tracer.currentSpan().context().traceId();
+            User user = userserviceClient.createUser(User.builder()
+                    .username("traced")
+                    .firstName("Trace")
+                    .lastName("Reader")
+                    .email("trace.reader@example.com")
+                    .build());
+            awaitDocumentReadGrant(user.id());
+            documentServiceClient.getDocumentsByUserId(user.id());
+        } finally {
+            caller.stop();
+        }
+
+        // When: Reading the exported spans of that trace
+        assertThat(tracerProvider.forceFlush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+        List<SpanRecord> spans = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of("target/test-data/spans.jsonl"))) {
+            SpanRecord span = objectMapper.readValue(line, SpanRecord.class);
+            if (span.traceId().equals(traceId)) {
+                spans.add(span);
+            }
+        }
+
+        // Then: The user service request is a child of the test's call, and its permission grant is not part of it
+        SpanRecord createUser = serverSpan(spans, "/api/users");
+        assertThat(spans).anySatisfy(span -> assertThat(span.spanId()).isEqualTo(createUser.parentId()));
+        assertThat(spans).noneSatisfy(span -> assertThat(span.parentId()).isEqualTo(createUser.spanId()));
+
+        // And: The lookups made on document-service worker threads are children of the document request
+        SpanRecord readDocuments = serverSpan(spans, "/api/documents/user/{userId}");
+        clientSpan(spans, readDocuments, "user-service");
+        SpanRecord permissionCheck = clientSpan(spans, readDocuments, "permission-service");
+        assertThat(spans).anySatisfy(span -> {
+            assertThat(span.kind()).isEqualTo("SERVER");
+            assertThat(span.parentId()).isEqualTo(permissionCheck.spanId());
+        });
+        assertThat(spans).allSatisfy(span -> assertThat(span.status()).isEqualTo("OK"));
+    }
+
+    /**
+     * New users are granted document-read in the background; wait until permission-service has the grant.
+     */
+    private void awaitDocumentReadGrant(UUID userId) {
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> permissionServiceClient.hasPermission(userId, "document-read"));
+    }
+
+    private static SpanRecord serverSpan(List<SpanRecord> spans, String uri) {
+        return spans.stream()
+                .filter(span -> span.kind().equals("SERVER") && uri.equals(span.attributes().get("uri")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No server span for " + uri + " in " + spans));
+    }
+
+    private static SpanRecord clientSpan(List<SpanRecord> spans, SpanRecord parent, String clientName) {
+        return spans.stream()
+                .filter(span -> span.kind().equals("CLIENT") && parent.spanId().equals(span.parentId())
+                        && clientName.equals(span.attributes().get("client.name")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + clientName + " call under " + parent + " in " + spans));
+    }
+
 }
 
@@ -0,0 +1,181 @@
+package com.example.service;
+
+import com.example.dto.PermissionGrant;
+import com.example.exception.DuplicateUserException;
+import com.example.model.User;
+import com.example.persistence.StatePersistence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserServiceTest {
+
+    private final PermissionGrantOutbox outbox = new PermissionGrantOutbox();
+    private final UserService userService = new UserService(outbox, StatePersistence.inMemory(), new SimpleMeterRegistry());
+
+    @Test
+    void shouldQueueDocumentReadGrantOfNewUser() {
+        User created = userService.createUser(user("bob2", "bob2@example.com"));
+
+        // Then: The grant waits in the outbox with an idempotency key of its own
+        List<PermissionGrant> grants = outbox.drain(10);
+        assertThat(grants).singleElement().satisfies(grant -> {
+            assertThat(grant.userId()).isEqualTo(created.id());
+            assertThat(grant.permission()).isEqualTo("document-read");
+            assertThat(grant.grantId()).isNotNull();
+        });
+        assertThat(outbox.size()).isZero();
+
+        // And: A rejected user gets no grant
+        assertThatThrownBy(() -> userService.createUser(user("bob2", "bob3@example.com")))
+                .isInstanceOf(DuplicateUserException.class);
+        assertThat(outbox.size()).isZero();
+    }
+
+    @Test
+    void shouldKeepUsernamesAndEmailsUnique() {
+        User created = userService.createUser(user("Carol", "carol@example.com"));
+
+        assertThat(userService.getUserByUsername("carol")).contains(created);
+        assertThat(userService.getUserByEmail("CAROL@example.com")).contains(created);
+        assertThatThrownBy(() -> userService.createUser(user("CAROL", "other@example.com")))
+                .isInstanceOf(DuplicateUserException.class);
+        assertThatThrownBy(() -> userService.createUser(user("carol2", "Carol@Example.com")))
+                .isInstanceOf(DuplicateUserException.class);
+
+        // The username claimed by the rejected carol2 was released
+        assertThat(userService.createUser(user("carol2", "carol2@example.com")).username()).isEqualTo("carol2");
+    }
+
+    @Test
+    void shouldCreateOnlyOneOfConcurrentUsersWithTheSameUsername() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> attempts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String email = "dave" + i + "@example.com";
+            attempts.add(executor.submit(() -> {
+                start.await();
+                return userService.createUser(user("dave", email));
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<User> attempt : attempts) {
+            try {
+                attempt.get();
+                created++;
+            } catch (Exception e) {
+                assertThat(e).hasCauseInstanceOf(DuplicateUserException.class);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(userService.searchByUsernamePrefix("dave", 10)).hasSize(1);
+    }
+
+    @Test
+    void shouldSearchByPrefixAndPageInUsernameOrder() {
+        for (String username : List.of("erin", "Eve", "evan", "everett", "frank")) {
+            userService.createUser(user(username, username + "@example.com"));
+        }
+
+        assertThat(userService.searchByUsernamePrefix("EV", 10)).extracting(User::username)
+                .containsExactly("evan", "Eve", "everett");
+        assertThat(userService.searchByUsernamePrefix("ev", 2)).extracting(User::username)
+                .containsExactly("evan", "Eve");
+
+        // Walk all users, sample users included, two at a time
+        List<String> walked = new ArrayList<>();
+        List<User> page = userService.getUserPage(null, 2);
+        while (!page.isEmpty()) {
+            page.forEach(user -> walked.add(user.username()));
+            page = userService.getUserPage(page.get(page.size() - 1).username(), 2);
+        }
+        assertThat(walked).containsExactly("asmith", "bwilliams", "erin", "evan", "Eve", "everett", "frank", "jdoe");
+    }
+
+    @Test
+    void shouldKeepUsersAndTheirIndexesAcrossRestarts(@TempDir Path directory) throws Exception {
+        User created;
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false)) {
+            created = new UserService(outbox, persistence, new SimpleMeterRegistry())
+                    .createUser(user("Grace", "grace@example.com"));
+        }
+
+        // When: Restarting from the log only, then from the snapshot written on close
+        for (boolean snapshotOnClose : new boolean[]{true, false}) {
+            try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), snapshotOnClose)) {
+                UserService restarted = new UserService(outbox, persistence, new SimpleMeterRegistry());
+
+                // Then: The user is back in every index, next to the sample users added on the first start only
+                assertThat(restarted.getUserById(created.id())).contains(created);
+                assertThat(restarted.getUserByEmail("GRACE@example.com")).contains(created);
+                assertThat(restarted.getUserPage(null, 10)).extracting(User::username)
+                        .containsExactly("asmith", "bwilliams", "Grace", "jdoe");
+                assertThatThrownBy(() -> restarted.createUser(user("grace", "other@example.com")))
+                        .isInstanceOf(DuplicateUserException.class);
+            }
+        }
+    }
+
+    @Test
+    void shouldQueueGrantsNotDeliveredBeforeRestartAgain(@TempDir Path directory) throws Exception {
+        // Given: Two new users, of which only the first one's grant was delivered before user-service stopped
+        PermissionGrant undelivered;
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false)) {
+            UserService service = new UserService(outbox, persistence, new SimpleMeterRegistry());
+            service.createUser(user("heidi", "heidi@example.com"));
+            outbox.acknowledge(outbox.drain(1));
+            service.createUser(user("ivan", "ivan@example.com"));
+            undelivered = outbox.drain(1).get(0);
+        }
+
+        // When: Restarting from the log only, then from the snapshot written on close
+        for (boolean snapshotOnClose : new boolean[]{true, false}) {
+            try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), snapshotOnClose)) {
+                PermissionGrantOutbox restartedOutbox = new PermissionGrantOutbox();
+                new UserService(restartedOutbox, persistence, new SimpleMeterRegistry());
+
+                // Then: Only the grant that was not acknowledged is in the outbox again
+                assertThat(restartedOutbox.drain(10)).containsExactly(undelivered);
+            }
+        }
+
+        // And: Once it is acknowledged, it is not queued again
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false)) {
+            PermissionGrantOutbox restartedOutbox = new PermissionGrantOutbox();
+            new UserService(restartedOutbox, persistence, new SimpleMeterRegistry());
+            restartedOutbox.acknowledge(restartedOutbox.drain(10));
+        }
+        try (StatePersistence persistence = new StatePersistence(directory, Duration.ofHours(1), false)) {
+            PermissionGrantOutbox restartedOutbox = new PermissionGrantOutbox();
+            new UserService(restartedOutbox, persistence, new SimpleMeterRegistry());
+            assertThat(restartedOutbox.size()).isZero();
+        }
+    }
+
+    private static User user(String username, String email) {
+        return User.builder()
+                .username(username)
+                .firstName("First")
+                .lastName("Last")
+                .email(email)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppendOnlyListTest {
+
+    @Test
+    void shouldKeepEveryConcurrentAppend() throws Exception {
+        AppendOnlyList<Integer> list = new AppendOnlyList<>();
+        int writers = 8;
+        int perWriter = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            int base = writer * perWriter;
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < perWriter; i++) {
+                    list.append(base + i);
+                }
+            }));
+        }
+        // A reader checks that snapshots only grow and never contain holes
+        Thread reader = new Thread(() -> {
+            awaitQuietly(start);
+            int lastSize = 0;
+            try {
+                while (lastSize < writers * perWriter) {
+                    List<Integer> snapshot = list.snapshot();
+                    assertThat(snapshot.size()).isGreaterThanOrEqualTo(lastSize);
+                    for (int i = lastSize; i < snapshot.size(); i++) {
+                        assertThat(snapshot.get(i)).isNotNull();
+                    }
+                    lastSize = snapshot.size();
+                }
+            } catch (Throwable t) {
+                readerFailure.set(t);
+            }
+        });
+        threads.forEach(Thread::start);
+        reader.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        reader.join();
+
+        assertThat(readerFailure.get()).isNull();
+        List<Integer> snapshot = list.snapshot();
+        assertThat(snapshot).hasSize(writers * perWriter);
+        Set<Integer> distinct = new HashSet<>(snapshot);
+        assertThat(distinct).hasSize(writers * perWriter);
+    }
+
+    @Test
+    void shouldNotChangeSnapshotOnLaterAppends() {
+        AppendOnlyList<String> list = new AppendOnlyList<>();
+        list.append("first");
+        List<String> snapshot = list.snapshot();
+
+        for (int i = 0; i < 100; i++) {
+            list.append("later " + i);
+        }
+
+        assertThat(snapshot).containsExactly("first");
+        assertThat(list.snapshot()).hasSize(101).startsWith("first", "later 0");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
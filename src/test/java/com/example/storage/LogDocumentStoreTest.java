@@ -0,0 +1,170 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogDocumentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepDocumentsAcrossRestarts() throws IOException {
+        UUID userId = UUID.randomUUID();
+        List<Document> written = documents(50);
+
+        try (LogDocumentStore store = open(1024)) {
+            written.forEach(document -> store.append(userId, document));
+            store.append(UUID.randomUUID(), new Document(null, null));
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+        }
+
+        try (LogDocumentStore store = open(1024)) {
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+            assertThat(store.findByUserId(UUID.randomUUID())).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldIndexSealedSegmentsFromHintsWrittenWhileAppending() throws IOException {
+        UUID userId = UUID.randomUUID();
+        List<Document> written = documents(50);
+
+        try (LogDocumentStore store = open(1024)) {
+            written.forEach(document -> store.append(userId, document));
+
+            // Then: Every sealed segment has its hint, and documents in sealed segments stay readable
+            assertThat(segmentFiles().size()).isGreaterThan(2);
+            for (Path segment : segmentFiles().subList(0, segmentFiles().size() - 1)) {
+                assertThat(Path.of(segment + ".hint")).exists();
+            }
+            assertThat(store.findPageByUserId(userId, 10, 5)).containsExactlyElementsOf(written.subList(10, 15));
+        }
+
+        // And: A restart indexes the sealed segments from those hints
+        try (LogDocumentStore store = open(1024)) {
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+        }
+    }
+
+    @Test
+    void shouldDropTornRecordOnRecovery() throws IOException {
+        UUID userId = UUID.randomUUID();
+        List<Document> written = documents(3);
+        try (LogDocumentStore store = open(1024 * 1024)) {
+            written.forEach(document -> store.append(userId, document));
+        }
+
+        // Simulate a crash in the middle of writing one more record
+        Path segment = segmentFiles().get(0);
+        Files.delete(Path.of(segment + ".hint"));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 100, 1, 2, 3}));
+        }
+
+        try (LogDocumentStore store = open(1024 * 1024)) {
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+            store.append(userId, new Document(DocumentId.of(UUID.randomUUID()), "after recovery"));
+            assertThat(store.findByUserId(userId)).hasSize(4);
+        }
+    }
+
+    @Test
+    void shouldMergeSmallSegmentsWithoutLosingDocuments() throws IOException {
+        UUID userId = UUID.randomUUID();
+        List<Document> written = new ArrayList<>();
+        // Every restart leaves a small segment behind
+        for (int restart = 0; restart < 4; restart++) {
+            try (LogDocumentStore store = open(1024 * 1024)) {
+                for (Document document : documents(5)) {
+                    store.append(userId, document);
+                    written.add(document);
+                }
+            }
+        }
+        assertThat(segmentFiles()).hasSize(4);
+
+        try (LogDocumentStore store = open(1024 * 1024)) {
+            store.compact();
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+            store.append(userId, new Document(DocumentId.of(UUID.randomUUID()), "after compaction"));
+        }
+        assertThat(segmentFiles()).hasSize(2);
+
+        try (LogDocumentStore store = open(1024 * 1024)) {
+            assertThat(store.findByUserId(userId)).hasSize(21).startsWith(written.toArray(new Document[0]));
+        }
+    }
+
+    @Test
+    void shouldKeepReplacedSegmentsReadableForReadThatStartedBeforeCompaction() throws IOException {
+        // Given: Small segments left behind by restarts
+        UUID userId = UUID.randomUUID();
+        List<Document> written = new ArrayList<>();
+        for (int restart = 0; restart < 3; restart++) {
+            try (LogDocumentStore store = open(1024 * 1024)) {
+                for (Document document : documents(5)) {
+                    store.append(userId, document);
+                    written.add(document);
+                }
+            }
+        }
+
+        try (LogDocumentStore store = open(1024 * 1024)) {
+            // When: Compacting twice while a lazy read is streaming the documents of its snapshot
+            List<Document> streamed = new ArrayList<>();
+            store.forEachByUserId(userId, document -> {
+                if (streamed.isEmpty()) {
+                    try {
+                        store.compact();
+                        store.compact();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                streamed.add(document);
+            });
+
+            // Then: The read finishes from the replaced segments, and later reads use the merged one
+            assertThat(streamed).containsExactlyElementsOf(written);
+            store.compact();
+            assertThat(store.findByUserId(userId)).containsExactlyElementsOf(written);
+        }
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    private LogDocumentStore open(long maxSegmentSize) throws IOException {
+        return new LogDocumentStore(directory, maxSegmentSize, 2, Duration.ofSeconds(1), Duration.ofHours(1));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static List<Document> documents(int count) {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(new Document(DocumentId.of(UUID.randomUUID()), "Document " + i + " żółć"));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.storage;
+
+import com.example.dto.Document;
+import com.example.dto.DocumentId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapDocumentStoreTest {
+
+    @Test
+    void shouldRoundTripDocuments() {
+        OffHeapDocumentStore store = new OffHeapDocumentStore(1024, 64);
+        UUID userId = UUID.randomUUID();
+        Document small = new Document(DocumentId.of(UUID.randomUUID()), "Zażółć gęślą jaźń");
+        Document compressible = new Document(DocumentId.of(UUID.randomUUID()), "abc".repeat(2000));
+        Document withoutContent = new Document(null, null);
+        Document larger = new Document(DocumentId.of(UUID.randomUUID()), UUID.randomUUID().toString().repeat(100));
+
+        store.append(userId, small);
+        store.append(userId, compressible);
+        store.append(userId, withoutContent);
+        store.append(userId, larger);
+
+        assertThat(store.findByUserId(userId)).containsExactly(small, compressible, withoutContent, larger);
+        assertThat(store.findPageByUserId(userId, 1, 2)).containsExactly(compressible, withoutContent);
+        assertThat(store.findPageByUserId(userId, 4, 2)).isEmpty();
+        assertThat(store.findByUserId(UUID.randomUUID())).isEmpty();
+        // The repeated content is stored deflated, well below its raw size
+        assertThat(store.offHeapBytes()).isLessThan(6000);
+    }
+
+    @Test
+    void shouldNotChangeReturnedListOnLaterAppends() {
+        OffHeapDocumentStore store = new OffHeapDocumentStore(1024, 0);
+        UUID userId = UUID.randomUUID();
+        store.append(userId, new Document(DocumentId.of(UUID.randomUUID()), "first"));
+
+        List<Document> documents = store.findByUserId(userId);
+        store.append(userId, new Document(DocumentId.of(UUID.randomUUID()), "second"));
+
+        assertThat(documents).extracting(Document::content).containsExactly("first");
+        assertThat(store.findByUserId(userId)).extracting(Document::content).containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldKeepEveryAppendOfConcurrentWriters() throws Exception {
+        OffHeapDocumentStore store = new OffHeapDocumentStore(64 * 1024, 64);
+        UUID userId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                int id = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        store.append(userId, new Document(null, (id + "-" + i + " ").repeat(i % 3 == 0 ? 50 : 1)));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(store.findByUserId(userId)).hasSize(4000).doesNotHaveDuplicates();
+        assertThat(store.documentCount()).isEqualTo(4000);
+
+        // Closing ends the pooled deflaters and inflaters, documents stay readable
+        store.close();
+        assertThat(store.findPageByUserId(userId, 0, 4000)).extracting(Document::content).doesNotContainNull();
+        store.append(userId, new Document(null, "abc".repeat(100)));
+        assertThat(store.findPageByUserId(userId, 4000, 1)).extracting(Document::content).containsExactly("abc".repeat(100));
+    }
+}